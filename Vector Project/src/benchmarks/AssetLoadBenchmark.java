@@ -0,0 +1,45 @@
+package benchmarks;
+
+import main.GeometryAssets;
+import main.VectorGeometry;
+
+/**
+ * Loads every geometry definition through GeometryAssets and prints the load report, then compares
+ * building an enemy's geometry from file against looking it up.
+ * @author Henry
+ *
+ */
+public class AssetLoadBenchmark {
+
+	public static void main(String[] args) {
+		GeometryAssets.preload();
+		GeometryAssets.printReport(System.out);
+
+		int iterations = 2000;
+		//Keep the result so the work is not optimized away
+		double sum = 0;
+
+		for (int i = 0; i < iterations; i++) sum += parse().getAverageRadius();
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) sum += parse().getAverageRadius();
+		double parsed = (System.nanoTime() - start) / 1e3 / iterations;
+
+		for (int i = 0; i < iterations; i++) sum += lookUp().getAverageRadius();
+		start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) sum += lookUp().getAverageRadius();
+		double cached = (System.nanoTime() - start) / 1e3 / iterations;
+
+		System.out.printf("spawn geometry: parsed %.3f us, registry %.3f us (%.0f)%n", parsed, cached, sum);
+	}
+
+	/**
+	 * Builds an Orbiter's geometry the way it was built before the registry
+	 */
+	private static VectorGeometry parse(){
+		return new VectorGeometry("/geomDefs/ship.geom").scale(-.5).rotate(-Math.PI/2);
+	}
+
+	private static VectorGeometry lookUp(){
+		return GeometryAssets.get("/geomDefs/ship.geom", -.5, -Math.PI/2);
+	}
+}
@@ -0,0 +1,126 @@
+package benchmarks;
+
+import java.util.List;
+import java.util.Random;
+
+import main.AudioQueue;
+import main.AudioThread;
+import main.VoicePool;
+
+/**
+ * Checks that sending commands through an AudioQueue to an AudioThread makes the same audio library calls,
+ * in the same order, as running them on a VoicePool directly. A seeded mix of creates, plays, moves,
+ * deletes, listener moves and updates is run both ways on RecordingBackends, with few enough voices that
+ * sounds are merged, stolen and dropped, and a small queue so it wraps and fills. Throws at the first call
+ * that differs.
+ *
+ * The queue's writer waits while the queue is full instead of dropping, so both pools see every command.
+ * The queue must never refuse a create or delete itself.
+ *
+ * Options:
+ * --commands n    commands sent, 200000 by default
+ * --seed n        seed for the mix of commands, 1 by default
+ * @author Henry
+ *
+ */
+public class AudioOrderCheck {
+
+	private static final int VOICES = 8;
+	private static final int QUEUE_SIZE = 64;
+	//Number of isPlaying() calls a sound lasts, so voices finish and are reused
+	private static final int PLAY_LENGTH = 3;
+	//Most emitters alive at once
+	private static final int MAX_EMITTERS = 40;
+
+	public static void main(String[] args) {
+		int commands = 200000;
+		long seed = 1;
+		for (int i = 0; i < args.length; i++){
+			if (args[i].equals("--commands")) commands = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--seed")) seed = Long.parseLong(args[++i]);
+			else throw new IllegalArgumentException("Unknown option " + args[i]);
+		}
+		int[] buffers = {10, 11, 12};
+
+		RecordingBackend direct = new RecordingBackend(VOICES, PLAY_LENGTH);
+		VoicePool directPool = new VoicePool(direct, buffers, VOICES);
+		run(directPool, null, commands, seed);
+		directPool.destroy();
+
+		RecordingBackend queued = new RecordingBackend(VOICES, PLAY_LENGTH);
+		AudioQueue queue = new AudioQueue(QUEUE_SIZE);
+		AudioThread thread = new AudioThread(queue, new VoicePool(queued, buffers, VOICES));
+		thread.start();
+		int waits = run(null, queue, commands, seed);
+		thread.shutdown();
+
+		List<String> expected = direct.getCalls();
+		List<String> actual = queued.getCalls();
+		for (int i = 0; i < Math.min(expected.size(), actual.size()); i++){
+			if (!expected.get(i).equals(actual.get(i))){
+				throw new IllegalStateException("Call " + i + " through the queue was " + actual.get(i) + ", expected " + expected.get(i));
+			}
+		}
+		if (expected.size() != actual.size()){
+			throw new IllegalStateException("The queued pool made " + actual.size() + " calls, expected " + expected.size());
+		}
+		System.out.println(commands + " commands made the same " + actual.size() + " calls through the queue, " + waits + " waited for room in the queue");
+	}
+
+	/**
+	 * Sends the mix of commands given by the seed, the way Sounds does, handing out emitter handles from 1
+	 * and reusing the last one freed first
+	 * @param pool Pool to run the commands on directly, or null to use the queue
+	 * @return Number of commands that had to wait for room in the queue
+	 */
+	private static int run(VoicePool pool, AudioQueue queue, int commands, long seed){
+		Random rand = new Random(seed);
+		int[] live = new int[MAX_EMITTERS];
+		int numLive = 0;
+		int[] free = new int[MAX_EMITTERS];
+		int numFree = 0;
+		int numHandles = 0;
+		int waits = 0;
+		for (int i = 0; i < commands; i++){
+			float x = rand.nextInt(1600) - 400;
+			float y = rand.nextInt(1200) - 300;
+			float vx = rand.nextInt(200) - 100;
+			float vy = rand.nextInt(200) - 100;
+			int sound = rand.nextInt(3);
+			int pick = rand.nextInt(16);
+			int command;
+			int handle = 0;
+			if (i % 10 == 9) command = VoicePool.UPDATE;
+			else if (numLive == 0 || (pick < 3 && numLive < MAX_EMITTERS)){
+				command = VoicePool.CREATE;
+				handle = numFree > 0 ? free[--numFree] : ++numHandles;
+				live[numLive++] = handle;
+			}
+			else if (pick < 5){
+				command = VoicePool.DELETE;
+				int e = rand.nextInt(numLive);
+				handle = live[e];
+				live[e] = live[--numLive];
+				free[numFree++] = handle;
+			}
+			else if (pick < 9){
+				command = VoicePool.PLAY;
+				handle = live[rand.nextInt(numLive)];
+			}
+			else if (pick < 13){
+				command = VoicePool.MOVE;
+				handle = live[rand.nextInt(numLive)];
+			}
+			else if (pick < 15) command = VoicePool.PLAY_ONCE;
+			else command = VoicePool.LISTENER;
+
+			if (pool != null) pool.execute(command, handle, sound, x, y, vx, vy);
+			else if (!queue.offer(command, handle, sound, x, y, vx, vy)){
+				if (command == VoicePool.CREATE || command == VoicePool.DELETE) throw new IllegalStateException("The queue dropped command " + command + " for emitter " + handle);
+				waits++;
+				while (!queue.offer(command, handle, sound, x, y, vx, vy)) Thread.yield();
+			}
+		}
+		return waits;
+	}
+}
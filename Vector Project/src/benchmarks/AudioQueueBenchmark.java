@@ -0,0 +1,165 @@
+package benchmarks;
+
+import main.AudioBackend;
+import main.AudioQueue;
+import main.AudioThread;
+import main.Histogram;
+import main.OpenALBackend;
+import main.VoicePool;
+
+import org.lwjgl.LWJGLException;
+import org.lwjgl.openal.AL;
+
+/**
+ * Measures the time the game thread spends on sound each frame, calling the voice pool directly as the
+ * game used to against only adding commands to the queue for the audio thread. Each frame makes the calls
+ * of a busy frame of the game: the listener and the player's two emitters are moved, an enemy fires and
+ * something is killed. Between frames the audio thread is given time to empty the queue, untimed, as it
+ * would have while the frame was drawn.
+ *
+ * Uses OpenAL if it can be created, otherwise a stand-in that takes a fixed time per call.
+ *
+ * Options:
+ * --frames n      frames to time, 100000 by default
+ * --call-ns n     time per call of the stand-in, 1000 by default
+ * --simulated     use the stand-in even if OpenAL is available
+ * @author Henry
+ *
+ */
+public class AudioQueueBenchmark {
+
+	public static void main(String[] args) {
+		int frames = 100000;
+		long callNanos = 1000;
+		boolean simulated = false;
+		for (int i = 0; i < args.length; i++){
+			if (args[i].equals("--frames")) frames = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--call-ns")) callNanos = Long.parseLong(args[++i]);
+			else if (args[i].equals("--simulated")) simulated = true;
+			else throw new IllegalArgumentException("Unknown option " + args[i]);
+		}
+
+		AudioBackend backend = null;
+		if (!simulated){
+			try {
+				AL.create();
+				backend = new OpenALBackend();
+			} catch (LWJGLException | UnsatisfiedLinkError e) {
+				System.out.println("OpenAL not available (" + e + "), using the stand-in");
+			}
+		}
+		if (backend == null) backend = new SimulatedBackend(callNanos);
+		System.out.println("backend: " + (backend instanceof SimulatedBackend ? "stand-in, " + callNanos + " ns per call" : "OpenAL"));
+
+		int[] buffers = {0, 0, 0};
+		Histogram direct = run(new VoicePool(backend, buffers, 32), null, frames);
+		AudioQueue queue = new AudioQueue(4096);
+		VoicePool pool = new VoicePool(backend, buffers, 32);
+		AudioThread thread = new AudioThread(queue, pool);
+		thread.start();
+		Histogram queued = run(pool, queue, frames);
+		thread.shutdown();
+		if (!(backend instanceof SimulatedBackend)) AL.destroy();
+
+		System.out.println("\tmean (us/frame)\tp50 (us)\tp99 (us)\tmax (us)");
+		print("direct", direct);
+		print("queued", queued);
+		System.out.printf("saved %.2f us of game thread time per frame, %d commands dropped%n",
+				(direct.getMean() - queued.getMean()) / 1e3, queue.getDropped());
+	}
+
+	/**
+	 * Times the sound calls of each frame
+	 * @param queue Queue to add commands to, null to run them on the pool directly
+	 * @return Time per frame, in nanoseconds
+	 */
+	private static Histogram run(VoicePool pool, AudioQueue queue, int frames){
+		Histogram h = new Histogram();
+		int player = 1;
+		int hurt = 2;
+		int enemy = 3;
+		command(pool, queue, VoicePool.CREATE, player, 0, 0, 0);
+		command(pool, queue, VoicePool.CREATE, hurt, 2, 0, 0);
+		command(pool, queue, VoicePool.CREATE, enemy, 0, 200, 0);
+		for (int i = -frames / 10; i < frames; i++){
+			float x = i % 800;
+			long start = System.nanoTime();
+			command(pool, queue, VoicePool.LISTENER, 0, 0, x, 0);
+			command(pool, queue, VoicePool.MOVE, player, 0, x, 0);
+			command(pool, queue, VoicePool.MOVE, hurt, 0, x, 0);
+			command(pool, queue, VoicePool.MOVE, enemy, 0, x + 200, 100);
+			command(pool, queue, VoicePool.PLAY, enemy, 0, 0, 0);
+			command(pool, queue, VoicePool.PLAY_ONCE, 0, 1, x - 100, 50);
+			command(pool, queue, VoicePool.UPDATE, 0, 0, 0, 0);
+			long time = System.nanoTime() - start;
+			//The first tenth of the frames warm up
+			if (i >= 0) h.record(time);
+			if (queue != null) while (!queue.isEmpty()) Thread.yield();
+		}
+		return h;
+	}
+
+	private static void command(VoicePool pool, AudioQueue queue, int command, int handle, int sound, float x, float y){
+		if (queue == null) pool.execute(command, handle, sound, x, y, 0, 0);
+		else queue.offer(command, handle, sound, x, y, 0, 0);
+	}
+
+	private static void print(String name, Histogram h){
+		System.out.printf("%s\t%.2f\t%.2f\t%.2f\t%.2f%n", name, h.getMean() / 1e3, h.percentile(.5) / 1e3, h.percentile(.99) / 1e3, h.getMax() / 1e3);
+	}
+
+	/**
+	 * Stand-in for an audio library that spins for a fixed time on every call, sources play until stopped
+	 */
+	private static class SimulatedBackend implements AudioBackend {
+
+		private final long callNanos;
+		private int nextSource = 1;
+		private boolean[] playing = new boolean[64];
+
+		public SimulatedBackend(long callNanos){
+			this.callNanos = callNanos;
+		}
+
+		private void call(){
+			long end = System.nanoTime() + callNanos;
+			while (System.nanoTime() < end);
+		}
+
+		public int genSource(){
+			call();
+			return nextSource < playing.length ? nextSource++ : -1;
+		}
+		public void deleteSource(int source){
+			call();
+		}
+		public void setSound(int source, int buffer, float gain){
+			call();
+			call();
+		}
+		public void setPosition(int source, float x, float y, float vx, float vy){
+			call();
+			call();
+		}
+		public void play(int source){
+			call();
+			playing[source] = true;
+		}
+		public void stop(int source){
+			call();
+			playing[source] = false;
+		}
+		public boolean isPlaying(int source){
+			call();
+			return playing[source];
+		}
+		public void setListener(float x, float y, float vx, float vy){
+			call();
+			call();
+			call();
+		}
+		public void clearErrors(){
+			call();
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package benchmarks;
+
+import gameObjects.GameObject;
+import gameObjects.Piece;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import main.VectorGeometry;
+import main.Workers;
+
+/**
+ * Compares the broadphase collision check against the all pairs loop at different object counts, with the
+ * broadphase on one thread and on one thread a core. Objects are spread at roughly the density of a busy
+ * wave, about half of them debris.
+ * @author Henry
+ *
+ */
+public class CollisionBenchmark {
+
+	//Number of collisions seen by the last check, used to make sure both methods agree
+	private static int collisions;
+
+	public static void main(String[] args) {
+		VectorGeometry enemy = new VectorGeometry("/geomDefs/ship.geom").scale(-.5);
+		VectorGeometry[] debris = enemy.split();
+		int[] counts = {100, 1000, 10000};
+		int threads = Runtime.getRuntime().availableProcessors();
+
+		System.out.println("objects\tpairs\tbrute force (ms)\tbroadphase 1 thread (ms)\tbroadphase " + threads + " threads (ms)");
+		for (int n : counts){
+			ArrayList<GameObject> objects = new ArrayList<GameObject>();
+			Random rand = new Random(n);
+			//Keep the density constant, about one object per 60x60 area
+			double side = Math.sqrt(n) * 60;
+			for (int i = 0; i < n; i++){
+				double x = rand.nextDouble() * side;
+				double y = rand.nextDouble() * side;
+				if (i % 2 == 0) objects.add(Piece.obtain(debris[i % debris.length], x, y, 5000));
+				else objects.add(new Target(enemy, x, y));
+			}
+			GameObject.initGameObjectList(objects);
+
+			int iterations = n >= 10000 ? 3 : 50;
+			double brute = time(true, iterations);
+			int bruteCollisions = collisions;
+			Workers.setThreads(1);
+			double serial = time(false, iterations);
+			if (collisions != bruteCollisions) throw new IllegalStateException("Broadphase found " + collisions + " collisions, expected " + bruteCollisions);
+			Workers.setThreads(threads);
+			double parallel = time(false, iterations);
+			if (collisions != bruteCollisions) throw new IllegalStateException("Parallel broadphase found " + collisions + " collisions, expected " + bruteCollisions);
+
+			System.out.printf("%d\t%d\t%.3f\t%.3f\t%.3f%n", n, collisions / 2, brute, serial, parallel);
+			GameObject.destroyGameObjectList();
+		}
+	}
+
+	/**
+	 * Runs a collision check repeatedly after a warm up
+	 * @param bruteForce whether to use the all pairs loop or the broadphase
+	 * @param iterations number of timed runs
+	 * @return Average time per check in milliseconds
+	 */
+	private static double time(boolean bruteForce, int iterations){
+		for (int i = 0; i < iterations; i++) check(bruteForce);
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) check(bruteForce);
+		return (System.nanoTime() - start) / 1e6 / iterations;
+	}
+
+	private static void check(boolean bruteForce){
+		collisions = 0;
+		if (bruteForce) GameObject.checkCollisionsBruteForce();
+		else GameObject.checkCollisions();
+	}
+
+	/**
+	 * Object that only counts its collisions
+	 */
+	private static class Target extends GameObject {
+
+		public Target(VectorGeometry g, double x, double y) {
+			super(g, x, y);
+		}
+
+		@Override
+		public void collide(GameObject other) {
+			collisions++;
+		}
+	}
+}
@@ -0,0 +1,168 @@
+package benchmarks;
+
+import gameObjects.EntityStore;
+import gameObjects.GameObject;
+import gameObjects.Piece;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import main.GeometryAssets;
+import main.VectorGeometry;
+
+/**
+ * Compares adding and removing objects with the EntityStore against the ArrayLists GameObject used
+ * before, which removed with removeAll() and inserted new pieces after the last piece. Each tick removes
+ * some objects picked at random and adds as many new ones, half of them pieces.
+ *
+ * Options:
+ * --entities n    objects in the game, 5000 by default
+ * --removals n    objects removed and added each tick, 500 by default
+ * --ticks n       ticks to time, 2000 by default
+ * @author Henry
+ *
+ */
+public class EntityStoreBenchmark {
+
+	public static void main(String[] args) {
+		int entities = 5000;
+		int removals = 500;
+		int ticks = 2000;
+		for (int i = 0; i < args.length; i++){
+			if (args[i].equals("--entities")) entities = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--removals")) removals = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--ticks")) ticks = Integer.parseInt(args[++i]);
+			else throw new IllegalArgumentException("Unknown option " + args[i]);
+		}
+
+		VectorGeometry g = GeometryAssets.get("/geomDefs/ship.geom");
+		GameObject[] objects = new GameObject[entities + removals];
+		for (int i = 0; i < objects.length; i++) objects[i] = i % 2 == 0 ? Piece.obtain(g, 0, 0, 5000) : new Target(g);
+
+		System.out.printf("%d entities, %d removals and %d additions per tick%n", entities, removals, removals);
+		System.out.println("\tms/tick");
+		for (int round = 0; round < 2; round++){
+			//The first round warms up
+			double lists = lists(objects, entities, removals, ticks);
+			double store = store(objects, entities, removals, ticks);
+			if (round == 1){
+				System.out.printf("ArrayList\t%.4f%n", lists);
+				System.out.printf("EntityStore\t%.4f%n", store);
+				System.out.printf("%.1fx faster%n", lists / store);
+			}
+		}
+	}
+
+	/**
+	 * Runs the ticks with the old ArrayList queues
+	 * @return Time per tick in milliseconds, not counting picking the objects to remove
+	 */
+	private static double lists(GameObject[] all, int entities, int removals, int ticks){
+		Random rand = new Random(1);
+		ArrayList<GameObject> objects = new ArrayList<GameObject>();
+		ArrayList<GameObject> queue = new ArrayList<GameObject>();
+		ArrayList<GameObject> removeQueue = new ArrayList<GameObject>();
+		ArrayList<GameObject> spare = new ArrayList<GameObject>();
+		for (int i = 0; i < all.length; i++){
+			if (i < entities) objects.add(all[i]);
+			else spare.add(all[i]);
+		}
+		int[] picks = new int[removals];
+
+		long time = 0;
+		for (int t = 0; t < ticks; t++){
+			pick(rand, objects.size(), picks);
+			long start = System.nanoTime();
+			for (int i = 0; i < removals; i++){
+				removeQueue.add(objects.get(picks[i]));
+				queue.add(spare.get(i));
+			}
+			queue.removeAll(removeQueue);
+			if (queue.size() > 0 && queue.get(0) instanceof Piece) objects.addAll(lastPieceIndex(objects)+1, queue);
+			else objects.addAll(objects.size()-1,queue);
+			queue.clear();
+			objects.removeAll(removeQueue);
+			time += System.nanoTime() - start;
+
+			//Removed objects are added again next tick
+			spare.clear();
+			spare.addAll(removeQueue);
+			removeQueue.clear();
+		}
+		return time / 1e6 / ticks;
+	}
+
+	private static int lastPieceIndex(ArrayList<GameObject> objects){
+		for (int i = objects.size()-1; i >= 0; i--){
+			if (objects.get(i) instanceof Piece) return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Runs the ticks with an EntityStore
+	 * @return Time per tick in milliseconds, not counting picking the objects to remove
+	 */
+	private static double store(GameObject[] all, int entities, int removals, int ticks){
+		Random rand = new Random(1);
+		EntityStore store = new EntityStore();
+		GameObject[] spare = new GameObject[removals];
+		for (int i = 0; i < all.length; i++){
+			if (i < entities) store.add(all[i]);
+			else spare[i - entities] = all[i];
+		}
+		store.apply(null);
+		int[] picks = new int[removals];
+		GameObject[] removed = new GameObject[removals];
+
+		long time = 0;
+		for (int t = 0; t < ticks; t++){
+			pick(rand, store.size(), picks);
+			for (int i = 0; i < removals; i++) removed[i] = store.at(picks[i]);
+			long start = System.nanoTime();
+			for (int i = 0; i < removals; i++){
+				store.remove(removed[i]);
+				store.add(spare[i]);
+			}
+			store.apply(null);
+			time += System.nanoTime() - start;
+
+			//Removed objects are added again next tick
+			GameObject[] swap = spare;
+			spare = removed;
+			removed = swap;
+		}
+		store.clear(null);
+		return time / 1e6 / ticks;
+	}
+
+	/**
+	 * Picks distinct indexes below size
+	 */
+	private static void pick(Random rand, int size, int[] picks){
+		for (int i = 0; i < picks.length; i++){
+			int p;
+			boolean repeat;
+			do {
+				p = rand.nextInt(size);
+				repeat = false;
+				for (int j = 0; j < i && !repeat; j++) repeat = picks[j] == p;
+			} while (repeat);
+			picks[i] = p;
+		}
+	}
+
+	/**
+	 * Object that does nothing
+	 */
+	private static class Target extends GameObject {
+
+		public Target(VectorGeometry g) {
+			super(g, 0, 0);
+		}
+
+		@Override
+		public void collide(GameObject other) {
+		}
+	}
+}
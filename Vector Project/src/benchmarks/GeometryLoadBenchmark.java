@@ -0,0 +1,79 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import main.GeometryArchive;
+import main.VectorGeometry;
+
+/**
+ * Compares loading every geometry definition from the text files, from the archive on the classpath and
+ * from a memory mapped archive file. The archive is compiled fresh from the text files first, run from the
+ * project directory or pass the geomDefs directory as the first argument.
+ * @author Henry
+ *
+ */
+public class GeometryLoadBenchmark {
+
+	public static void main(String[] args) throws IOException {
+		File dir = new File(args.length > 0 ? args[0] : "src/geomDefs");
+		File file = File.createTempFile("geomDefs", ".bin");
+		file.deleteOnExit();
+		GeometryArchive.compile(dir, "/geomDefs", file);
+
+		ArrayList<String> paths = new ArrayList<String>(GeometryArchive.fromFile(file).getPaths());
+		checkSame(paths, GeometryArchive.fromFile(file));
+
+		int iterations = 50;
+		System.out.println(paths.size() + " geometries, average of " + iterations + " loads after warm up");
+		System.out.printf("text (Scanner)\t%.3f ms%n", time(paths, 0, iterations, file));
+		System.out.printf("archive (classpath)\t%.3f ms%n", time(paths, 1, iterations, file));
+		System.out.printf("archive (mapped)\t%.3f ms%n", time(paths, 2, iterations, file));
+	}
+
+	/**
+	 * Loads every geometry repeatedly after a warm up
+	 * @param source 0 for text, 1 for the classpath archive, 2 for the mapped archive
+	 * @return Average time to load them all in milliseconds
+	 */
+	private static double time(ArrayList<String> paths, int source, int iterations, File file) throws IOException{
+		//Keep the results so the work is not optimized away
+		double sum = 0;
+		for (int i = 0; i < iterations; i++) sum += load(paths, source, file);
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) sum += load(paths, source, file);
+		double ms = (System.nanoTime() - start) / 1e6 / iterations;
+		if (Double.isNaN(sum)) System.out.println(sum);
+		return ms;
+	}
+
+	private static double load(ArrayList<String> paths, int source, File file) throws IOException{
+		GeometryArchive archive = null;
+		if (source == 1) archive = GeometryArchive.fromResource(GeometryArchive.RESOURCE);
+		else if (source == 2) archive = GeometryArchive.fromFile(file);
+		if (source != 0 && archive == null) throw new IOException(GeometryArchive.RESOURCE + " is not on the classpath, run GeometryArchive first");
+		double sum = 0;
+		for (String path : paths){
+			VectorGeometry vg = source == 0 ? new VectorGeometry(path) : archive.get(path);
+			sum += vg.getVertexCount();
+		}
+		return sum;
+	}
+
+	/**
+	 * Makes sure every geometry in the archive matches its text definition
+	 */
+	private static void checkSame(ArrayList<String> paths, GeometryArchive archive){
+		for (String path : paths){
+			VectorGeometry text = new VectorGeometry(path);
+			VectorGeometry binary = archive.get(path);
+			boolean same = text.getVertexCount() == binary.getVertexCount() && text.getWeight() == binary.getWeight()
+					&& text.getRed() == binary.getRed() && text.getGreen() == binary.getGreen() && text.getBlue() == binary.getBlue();
+			for (int i = 0; same && i < text.getVertexCount(); i++){
+				same = text.getX(i) == binary.getX(i) && text.getY(i) == binary.getY(i);
+			}
+			if (!same) throw new IllegalStateException(path + " differs between the text and the archive");
+		}
+	}
+}
@@ -0,0 +1,211 @@
+package benchmarks;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.ArrayList;
+
+/**
+ * Runs microbenchmarks the way JMH does in average time mode: each benchmark is warmed up, then timed over a
+ * number of fixed length iterations, and the mean time per operation is reported with a 99.9% confidence
+ * interval. Results can be written as JSON in the same layout as JMH's JSON output, so runs can be diffed.
+ * @author Henry
+ *
+ */
+public class Harness {
+
+	/**
+	 * A piece of code to time. run() is one operation, it returns a value so the work can't be optimized away.
+	 */
+	public static abstract class Benchmark {
+
+		final String name;
+		//Name and value of the parameter, null if the benchmark has none
+		final String paramName;
+		final String paramValue;
+
+		public Benchmark(String name){
+			this(name, null, null);
+		}
+
+		public Benchmark(String name, String paramName, Object paramValue){
+			this.name = name;
+			this.paramName = paramName;
+			this.paramValue = paramValue == null ? null : paramValue.toString();
+		}
+
+		/**
+		 * Called once before warming up
+		 */
+		public void setUp(){
+		}
+
+		/**
+		 * Called once after measuring
+		 */
+		public void tearDown(){
+		}
+
+		/**
+		 * Does one operation
+		 * @return Any result of the operation
+		 */
+		public abstract double run();
+
+		String label(){
+			return paramName == null ? name : name + " (" + paramName + "=" + paramValue + ")";
+		}
+	}
+
+	/**
+	 * Times of one benchmark
+	 */
+	private static class Result {
+		Benchmark benchmark;
+		//Mean time per operation of each iteration, in microseconds
+		double[] raw;
+		double score;
+		double error;
+	}
+
+	//Two sided 99.9% Student's t values for 1 to 30 degrees of freedom
+	private static final double[] T_999 = {
+		636.62, 31.60, 12.92, 8.61, 6.87, 5.96, 5.41, 5.04, 4.78, 4.59,
+		4.44, 4.32, 4.22, 4.14, 4.07, 4.01, 3.97, 3.92, 3.88, 3.85,
+		3.82, 3.79, 3.77, 3.75, 3.73, 3.71, 3.69, 3.67, 3.66, 3.65
+	};
+
+	private final int warmupIterations;
+	private final int measurementIterations;
+	private final long iterationNanos;
+	//Only benchmarks with this in their name are run, null to run all
+	private final String filter;
+	private final PrintStream log;
+
+	private ArrayList<Result> results = new ArrayList<Result>();
+
+	//Sum of every result, printed at the end so it is never unused
+	private double sink;
+
+	/**
+	 * @param warmupIterations Number of untimed iterations before measuring
+	 * @param measurementIterations Number of timed iterations
+	 * @param iterationMillis Length of each iteration
+	 * @param filter Only run benchmarks with this in their name, null to run all
+	 * @param log Where to print progress and results
+	 */
+	public Harness(int warmupIterations, int measurementIterations, long iterationMillis, String filter, PrintStream log){
+		this.warmupIterations = warmupIterations;
+		this.measurementIterations = Math.max(measurementIterations, 2);
+		this.iterationNanos = iterationMillis * 1000000;
+		this.filter = filter;
+		this.log = log;
+	}
+
+	/**
+	 * Warms up and times a benchmark if it matches the filter
+	 * @param b Benchmark to run
+	 */
+	public void run(Benchmark b){
+		if (filter != null && !b.label().contains(filter)) return;
+		b.setUp();
+		try {
+			//Find a number of operations that takes long enough to time accurately
+			int batch = 1;
+			while (true){
+				long start = System.nanoTime();
+				for (int i = 0; i < batch; i++) sink += b.run();
+				if (System.nanoTime() - start > 20000 || batch >= 1 << 20) break;
+				batch *= 2;
+			}
+
+			for (int i = 0; i < warmupIterations; i++) iteration(b, batch);
+			Result r = new Result();
+			r.benchmark = b;
+			r.raw = new double[measurementIterations];
+			for (int i = 0; i < measurementIterations; i++) r.raw[i] = iteration(b, batch);
+
+			double sum = 0;
+			for (double t : r.raw) sum += t;
+			r.score = sum / r.raw.length;
+			double variance = 0;
+			for (double t : r.raw) variance += (t - r.score) * (t - r.score);
+			variance /= r.raw.length - 1;
+			int df = r.raw.length - 1;
+			double t = df <= T_999.length ? T_999[df - 1] : 3.29;
+			r.error = t * Math.sqrt(variance / r.raw.length);
+			results.add(r);
+			log.printf("%-60s %12.4f +- %.4f us/op%n", b.label(), r.score, r.error);
+		} finally {
+			b.tearDown();
+		}
+	}
+
+	/**
+	 * Runs batches of operations until the iteration time has passed
+	 * @return Mean time per operation in microseconds
+	 */
+	private double iteration(Benchmark b, int batch){
+		long ops = 0;
+		long start = System.nanoTime();
+		long elapsed;
+		do {
+			for (int i = 0; i < batch; i++) sink += b.run();
+			ops += batch;
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < iterationNanos);
+		return elapsed / 1e3 / ops;
+	}
+
+	/**
+	 * Writes every result as JSON in the layout of JMH's JSON output
+	 * @param path File to write
+	 * @throws IOException If the file can't be written
+	 */
+	public void writeJson(String path) throws IOException{
+		Writer out = new FileWriter(path);
+		try {
+			out.write("[\n");
+			for (int i = 0; i < results.size(); i++){
+				Result r = results.get(i);
+				Benchmark b = r.benchmark;
+				out.write("    {\n");
+				out.write("        \"benchmark\" : \"" + escape(b.name) + "\",\n");
+				out.write("        \"mode\" : \"avgt\",\n");
+				out.write("        \"warmupIterations\" : " + warmupIterations + ",\n");
+				out.write("        \"measurementIterations\" : " + measurementIterations + ",\n");
+				out.write("        \"measurementTime\" : \"" + iterationNanos / 1000000 + " ms\",\n");
+				if (b.paramName != null){
+					out.write("        \"params\" : {\n");
+					out.write("            \"" + escape(b.paramName) + "\" : \"" + escape(b.paramValue) + "\"\n");
+					out.write("        },\n");
+				}
+				out.write("        \"primaryMetric\" : {\n");
+				out.write("            \"score\" : " + r.score + ",\n");
+				out.write("            \"scoreError\" : " + r.error + ",\n");
+				out.write("            \"scoreConfidence\" : [ " + (r.score - r.error) + ", " + (r.score + r.error) + " ],\n");
+				out.write("            \"scoreUnit\" : \"us/op\",\n");
+				out.write("            \"rawData\" : [ [ ");
+				for (int j = 0; j < r.raw.length; j++) out.write((j > 0 ? ", " : "") + r.raw[j]);
+				out.write(" ] ]\n");
+				out.write("        }\n");
+				out.write(i < results.size() - 1 ? "    },\n" : "    }\n");
+			}
+			out.write("]\n");
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * @return Sum of every operation's result, print it so the work can't be optimized away
+	 */
+	public double getSink(){
+		return sink;
+	}
+
+	private static String escape(String s){
+		return s.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+}
@@ -0,0 +1,208 @@
+package benchmarks;
+
+import gameObjects.GameObject;
+import gameObjects.Piece;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Random;
+
+import main.Draw;
+import main.GeometryAssets;
+import main.VectorGeometry;
+import main.VectorString;
+import main.Vertex;
+
+/**
+ * Microbenchmarks of the geometry, drawing and collision hot paths, using the shipped geometry definitions
+ * as input. Results are printed and written as JSON.
+ *
+ * Options:
+ * --warmup n      warm up iterations, 5 by default
+ * --iterations n  measured iterations, 10 by default
+ * --time ms       length of each iteration, 200 by default
+ * --filter text   only run benchmarks with text in their name
+ * --out file      JSON file to write, benchmark-results.json by default
+ * @author Henry
+ *
+ */
+public class HotPathBenchmarks {
+
+	//Geometries used as input, from small to large
+	private static final String[] GEOMETRIES = {"ship", "spikey", "asteroid", "spiral", "geomStressTest", "scores"};
+	//Enemy geometries as the game uses them, for drawing
+	private static final String[] ENEMIES = {"ship", "spikey", "asteroid", "spiral"};
+	private static final int[] COLLISION_COUNTS = {100, 1000, 5000};
+
+	public static void main(String[] args) throws IOException {
+		int warmup = 5;
+		int iterations = 10;
+		long time = 200;
+		String filter = null;
+		String out = "benchmark-results.json";
+		for (int i = 0; i < args.length; i++){
+			if (args[i].equals("--warmup")) warmup = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--iterations")) iterations = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--time")) time = Long.parseLong(args[++i]);
+			else if (args[i].equals("--filter")) filter = args[++i];
+			else if (args[i].equals("--out")) out = args[++i];
+			else throw new IllegalArgumentException("Unknown option " + args[i]);
+		}
+
+		GeometryAssets.preload();
+		Harness harness = new Harness(warmup, iterations, time, filter, System.out);
+
+		for (String name : GEOMETRIES){
+			final VectorGeometry g = geometry(name);
+			harness.run(new Harness.Benchmark("VectorGeometry.rotate", "geometry", name){
+				private double angle;
+				public double run(){
+					angle += .01;
+					return g.rotate(angle).getAverageRadius();
+				}
+			});
+			harness.run(new Harness.Benchmark("VectorGeometry.translate", "geometry", name){
+				private double x;
+				public double run(){
+					x += .5;
+					return g.translate(x, -x).getMinX();
+				}
+			});
+			harness.run(new Harness.Benchmark("VectorGeometry.scale", "geometry", name){
+				private double factor;
+				public double run(){
+					factor = factor > 1 ? -.5 : factor + .01;
+					return g.scale(factor).getMaxX();
+				}
+			});
+			harness.run(new Harness.Benchmark("VectorGeometry.split", "geometry", name){
+				public double run(){
+					return g.split().length;
+				}
+			});
+		}
+
+		//Differences between the vertices of every geometry, as passed to getAngle() when drawing and aiming
+		final double[] dxs = differences(true);
+		final double[] dys = differences(false);
+		harness.run(new Harness.Benchmark("GameObject.getAngle"){
+			private int i;
+			public double run(){
+				i = (i + 1) % dxs.length;
+				return GameObject.getAngle(dxs[i], dys[i]);
+			}
+		});
+
+		final ArrayList<Vertex> verts = new ArrayList<Vertex>();
+		for (String name : GEOMETRIES){
+			for (Vertex v : geometry(name).getVerts()) verts.add(v);
+		}
+		harness.run(new Harness.Benchmark("Vertex.distance"){
+			private int i;
+			public double run(){
+				i = (i + 1) % (verts.size() - 1);
+				return verts.get(i).distance(verts.get(i + 1));
+			}
+		});
+
+		for (final String text : new String[]{"score", "press enter to confirm"}){
+			harness.run(new Harness.Benchmark("VectorString.new", "text", text){
+				public double run(){
+					return new VectorString(text, 10).hashCode();
+				}
+			});
+		}
+
+		for (final int n : COLLISION_COUNTS){
+			harness.run(new Harness.Benchmark("GameObject.checkCollisions", "objects", n){
+				public void setUp(){
+					GameObject.initGameObjectList(scene(n));
+				}
+				public double run(){
+					GameObject.checkCollisions();
+					return Target.collisions;
+				}
+				public void tearDown(){
+					GameObject.destroyGameObjectList();
+				}
+			});
+		}
+
+		//Only the CPU side, strokes are added to the batch and it is thrown away instead of being drawn
+		for (String name : ENEMIES){
+			final VectorGeometry g = geometry(name);
+			harness.run(new Harness.Benchmark("Draw.geometry", "geometry", name){
+				private int count;
+				public double run(){
+					count++;
+					Draw.geometry(g, count % 800, count % 600, count * .01);
+					if (count % 1000 == 0) Draw.clear();
+					return count;
+				}
+				public void tearDown(){
+					Draw.clear();
+				}
+			});
+		}
+
+		harness.writeJson(out);
+		System.out.println("Results written to " + out + " (" + harness.getSink() + ")");
+	}
+
+	private static VectorGeometry geometry(String name){
+		return GeometryAssets.get("/geomDefs/" + name + ".geom");
+	}
+
+	/**
+	 * @param x Whether to return x differences or y differences
+	 * @return Difference between each vertex and the next in every input geometry
+	 */
+	private static double[] differences(boolean x){
+		ArrayList<Double> result = new ArrayList<Double>();
+		for (String name : GEOMETRIES){
+			VectorGeometry g = geometry(name);
+			for (int i = 0; i < g.getVertexCount() - 1; i++){
+				result.add(x ? g.getX(i + 1) - g.getX(i) : g.getY(i + 1) - g.getY(i));
+			}
+		}
+		double[] d = new double[result.size()];
+		for (int i = 0; i < d.length; i++) d[i] = result.get(i);
+		return d;
+	}
+
+	/**
+	 * Spreads enemies and debris at roughly the density of a busy wave
+	 * @param n Number of objects
+	 */
+	private static ArrayList<GameObject> scene(int n){
+		VectorGeometry enemy = GeometryAssets.get("/geomDefs/ship.geom", -.5, -Math.PI/2);
+		VectorGeometry[] debris = enemy.split();
+		ArrayList<GameObject> objects = new ArrayList<GameObject>();
+		Random rand = new Random(n);
+		double side = Math.sqrt(n) * 60;
+		for (int i = 0; i < n; i++){
+			double x = rand.nextDouble() * side;
+			double y = rand.nextDouble() * side;
+			if (i % 2 == 0) objects.add(Piece.obtain(debris[i % debris.length], x, y, 5000));
+			else objects.add(new Target(enemy, x, y));
+		}
+		return objects;
+	}
+
+	/**
+	 * Object that only counts its collisions
+	 */
+	private static class Target extends GameObject {
+
+		static int collisions;
+
+		public Target(VectorGeometry g, double x, double y) {
+			super(g, x, y);
+		}
+
+		@Override
+		public void collide(GameObject other) {
+			collisions++;
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package benchmarks;
+
+import gameObjects.KinematicStore;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Compares integrating velocities with the KinematicStore against one heap object per entity,
+ * each moved by its own virtual update() call, as GameObject used to do.
+ * @author Henry
+ *
+ */
+public class KinematicsBenchmark {
+
+	public static void main(String[] args) {
+		int[] counts = {10000, 100000};
+		double deltaTime = 1000 / 60.0;
+
+		System.out.println("entities\tobjects (ms)\tstore (ms)\tstore (M entities/s)");
+		for (int n : counts){
+			Random rand = new Random(n);
+			ArrayList<Body> bodies = new ArrayList<Body>();
+			KinematicStore store = new KinematicStore();
+			for (int i = 0; i < n; i++){
+				double x = rand.nextDouble() * 1000, y = rand.nextDouble() * 1000;
+				double vx = rand.nextDouble() * 200 - 100, vy = rand.nextDouble() * 200 - 100;
+				double rot = rand.nextDouble() * 2 * Math.PI, vRot = rand.nextDouble();
+				//Mix in the other kinds of body so update() stays a virtual call
+				Body b = i % 3 == 0 ? new Body() : i % 3 == 1 ? new SpinningBody() : new FadingBody();
+				b.x = x; b.y = y; b.vx = vx; b.vy = vy; b.rot = rot; b.vRot = vRot;
+				bodies.add(b);
+
+				int slot = store.allocate();
+				store.set(slot, x, y, vx, vy, rot, vRot);
+				store.setActive(slot, true);
+			}
+
+			int iterations = 500;
+			for (int i = 0; i < iterations; i++){
+				for (int j = 0; j < bodies.size(); j++) bodies.get(j).update(deltaTime);
+				store.integrate(deltaTime);
+			}
+
+			long start = System.nanoTime();
+			for (int i = 0; i < iterations; i++){
+				for (int j = 0; j < bodies.size(); j++) bodies.get(j).update(deltaTime);
+			}
+			double objects = (System.nanoTime() - start) / 1e6 / iterations;
+
+			start = System.nanoTime();
+			for (int i = 0; i < iterations; i++) store.integrate(deltaTime);
+			double soa = (System.nanoTime() - start) / 1e6 / iterations;
+
+			System.out.printf("%d\t%.3f\t%.3f\t%.1f%n", n, objects, soa, n / soa / 1000);
+		}
+	}
+
+	/**
+	 * Entity with its own copy of the kinematic state, integrated the way GameObject.update() used to
+	 */
+	private static class Body {
+		double x, y, vx, vy, rot, vRot;
+
+		void update(double deltaTime){
+			x += vx * deltaTime/1000.0;
+			y += vy * deltaTime/1000.0;
+			rot += vRot * deltaTime/1000.0;
+			rot %= 2 * Math.PI;
+		}
+	}
+
+	private static class SpinningBody extends Body {
+		@Override
+		void update(double deltaTime){
+			super.update(deltaTime);
+		}
+	}
+
+	private static class FadingBody extends Body {
+		@Override
+		void update(double deltaTime){
+			super.update(deltaTime);
+		}
+	}
+}
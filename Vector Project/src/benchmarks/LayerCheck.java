@@ -0,0 +1,131 @@
+package benchmarks;
+
+import gameObjects.Bullet;
+import gameObjects.GameObject;
+import gameObjects.Piece;
+import gameObjects.RenderLayers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+import main.Sounds;
+import main.VectorGeometry;
+
+import org.newdawn.slick.Color;
+
+/**
+ * Checks that the layers objects are drawn from hold exactly the objects in the game, each in the layer
+ * it returns from getLayer(). A seeded mix of objects in every layer is added and removed over many
+ * updates, some removed twice or added and removed in the same update, and after each update the layers
+ * are compared with the list of every GameObject. Throws at the first update where they differ.
+ *
+ * Options:
+ * --updates n     updates run, 2000 by default
+ * --seed n        seed for the mix of adds and removes, 1 by default
+ * @author Henry
+ *
+ */
+public class LayerCheck {
+
+	public static void main(String[] args) {
+		int updates = 2000;
+		long seed = 1;
+		for (int i = 0; i < args.length; i++){
+			if (args[i].equals("--updates")) updates = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--seed")) seed = Long.parseLong(args[++i]);
+			else throw new IllegalArgumentException("Unknown option " + args[i]);
+		}
+
+		Sounds.disable();
+		VectorGeometry line = new VectorGeometry(new double[] {0,0, 1,0}, 1, 1, 1, 1);
+		Random rand = new Random(seed);
+		ArrayList<GameObject> live = new ArrayList<GameObject>();
+		GameObject.initGameObjectList(live);
+		int most = 0;
+		for (int u = 0; u < updates; u++){
+			//Grow for the first half and shrink for the second, so layers fill, empty and grow their arrays
+			int adds = rand.nextInt(u < updates / 2 ? 20 : 8);
+			int removes = rand.nextInt(u < updates / 2 ? 8 : 20);
+			ArrayList<GameObject> added = new ArrayList<GameObject>();
+			for (int i = 0; i < adds; i++){
+				GameObject o = create(rand, line);
+				GameObject.addObject(o);
+				added.add(o);
+			}
+			for (int i = 0; i < removes && !live.isEmpty(); i++){
+				GameObject o = live.remove(rand.nextInt(live.size()));
+				GameObject.removeObject(o);
+				if (rand.nextInt(4) == 0) GameObject.removeObject(o);
+			}
+			//An object added and removed in the same update never joins a layer
+			if (!added.isEmpty() && rand.nextInt(3) == 0) GameObject.removeObject(added.remove(rand.nextInt(added.size())));
+			live.addAll(added);
+			GameObject.updateQueue();
+			check(u, live);
+			most = Math.max(most, live.size());
+		}
+		GameObject.destroyGameObjectList();
+		for (int layer = 0; layer < RenderLayers.COUNT; layer++){
+			if (GameObject.getLayerSize(layer) != 0) throw new IllegalStateException("Layer " + layer + " is not empty after the game ended");
+		}
+		System.out.println(updates + " updates kept the layers matching the game, with up to " + most + " objects");
+	}
+
+	/**
+	 * @return A new object in a random layer
+	 */
+	private static GameObject create(Random rand, VectorGeometry line){
+		switch (rand.nextInt(4)){
+		case 0: return Piece.obtain(line, 0, 0, 1000);
+		case 1: return Bullet.obtain(0, 0, 0, 0, 0, 10, new Color(1f, 1f, 1f), 1, 1000);
+		case 2: return new Marker(line, RenderLayers.ENEMIES);
+		default: return new Marker(line, RenderLayers.PLAYER);
+		}
+	}
+
+	/**
+	 * Throws unless the objects in the game are the expected ones and each is in its own layer exactly once
+	 */
+	private static void check(int update, ArrayList<GameObject> live){
+		if (GameObject.getObjectCount() != live.size()){
+			throw new IllegalStateException("Update " + update + ": " + GameObject.getObjectCount() + " objects in the game, expected " + live.size());
+		}
+		HashMap<GameObject, Integer> expected = new HashMap<GameObject, Integer>();
+		for (GameObject o : live) expected.put(o, o.getLayer());
+		int total = 0;
+		for (int layer = 0; layer < RenderLayers.COUNT; layer++){
+			for (int i = 0; i < GameObject.getLayerSize(layer); i++){
+				GameObject o = GameObject.getInLayer(layer, i);
+				Integer want = expected.remove(o);
+				if (want == null) throw new IllegalStateException("Update " + update + ": layer " + layer + " holds an object that is not in the game, or holds it twice");
+				if (want != layer) throw new IllegalStateException("Update " + update + ": object in layer " + layer + " should be in layer " + want);
+				total++;
+			}
+		}
+		if (!expected.isEmpty()) throw new IllegalStateException("Update " + update + ": " + expected.size() + " objects in the game are in no layer");
+		if (total != live.size()) throw new IllegalStateException("Update " + update + ": layers hold " + total + " objects, expected " + live.size());
+	}
+
+	/**
+	 * Object that is drawn in the layer it is given and does nothing else
+	 */
+	private static class Marker extends GameObject {
+
+		private final int layer;
+
+		public Marker(VectorGeometry g, int layer) {
+			super(g, 0, 0);
+			this.layer = layer;
+		}
+
+		@Override
+		public int getLayer(){
+			return layer;
+		}
+
+		@Override
+		public void collide(GameObject other) {
+		}
+	}
+}
@@ -0,0 +1,163 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.TreeSet;
+
+import main.GeometryArchive;
+import main.VectorGeometry;
+
+/**
+ * Checks the simplified levels of detail against the full geometry over the sweep of tolerances, for
+ * every shipped geometry and for seeded random lines, some closed and some doubling back on themselves.
+ * Throws unless, for every level:
+ *
+ * its vertices are vertices of the full line, in order, with both ends kept;
+ * every vertex it leaves out is within the level's tolerance of the segment that replaced it;
+ * it has no more vertices than the level before it;
+ * getLod() picks it for exactly the scales and budgets its tolerance fits, and budget 0 gives the full line.
+ *
+ * Prints the vertices kept and the largest distance of a removed vertex, as a fraction of the tolerance,
+ * for each level.
+ *
+ * Options:
+ * --lines n       random lines checked, 1000 by default
+ * --seed n        seed for the random lines, 1 by default
+ * @author Henry
+ *
+ */
+public class LodCheck {
+
+	//On screen sizes of one unit getLod() is checked at, in pixels
+	private static final double[] SCALES = {.1, .5, 1, 1.5, 3, 10};
+	//Allowance for rounding when comparing a distance to a tolerance
+	private static final double ROUNDING = 1e-9;
+
+	//Vertices in every full line and in every level, and the largest error of each level as a fraction of its tolerance
+	private static long fullVertices;
+	private static long[] levelVertices = new long[VectorGeometry.LOD_TOLERANCES.length];
+	private static double[] worst = new double[VectorGeometry.LOD_TOLERANCES.length];
+
+	public static void main(String[] args) throws IOException {
+		int lines = 1000;
+		long seed = 1;
+		for (int i = 0; i < args.length; i++){
+			if (args[i].equals("--lines")) lines = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--seed")) seed = Long.parseLong(args[++i]);
+			else throw new IllegalArgumentException("Unknown option " + args[i]);
+		}
+
+		GeometryArchive archive = GeometryArchive.fromResource(GeometryArchive.RESOURCE);
+		if (archive == null) throw new IOException(GeometryArchive.RESOURCE + " is not on the classpath, run GeometryArchive first");
+		ArrayList<String> paths = new ArrayList<String>(new TreeSet<String>(archive.getPaths()));
+		for (String path : paths) check(path, new VectorGeometry(path));
+
+		Random rand = new Random(seed);
+		for (int l = 0; l < lines; l++){
+			int n = 3 + rand.nextInt(200);
+			double[] c = new double[n * 2];
+			double x = 0, y = 0;
+			for (int i = 0; i < n; i++){
+				//Every fourth line is a tight zigzag that keeps doubling back
+				double step = l % 4 == 3 ? .5 : 3;
+				x += rand.nextGaussian() * step;
+				y += rand.nextGaussian() * step;
+				c[i * 2] = x;
+				c[i * 2 + 1] = y;
+			}
+			if (l % 3 == 0){
+				c[(n - 1) * 2] = c[0];
+				c[(n - 1) * 2 + 1] = c[1];
+			}
+			check("random line " + l, new VectorGeometry(c, 2, 1, 1, 1));
+		}
+
+		System.out.println("tolerance\tvertices kept\tworst error / tolerance");
+		System.out.printf("full\t%d\t%n", fullVertices);
+		for (int i = 0; i < worst.length; i++){
+			System.out.printf("%.2f\t%d\t%.3f%n", VectorGeometry.LOD_TOLERANCES[i], levelVertices[i], worst[i]);
+		}
+		System.out.println(paths.size() + " geometries and " + lines + " random lines are within tolerance at every level");
+	}
+
+	private static void check(String name, VectorGeometry full){
+		double[] tolerances = VectorGeometry.LOD_TOLERANCES;
+		int n = full.getVertexCount();
+		fullVertices += n;
+		if (full.getLod(1, 0) != full) throw new IllegalStateException(name + ": budget 0 does not give the full geometry");
+
+		//getLod(1, tolerance) gives the level of that tolerance, checked against the scale sweep below
+		VectorGeometry[] levels = new VectorGeometry[tolerances.length];
+		int previous = n;
+		for (int level = 0; level < tolerances.length; level++){
+			VectorGeometry lod = levels[level] = full.getLod(1, tolerances[level]);
+			int m = lod.getVertexCount();
+			if (m != full.getLodVertexCount(level)) throw new IllegalStateException(name + ": getLod() and getLodVertexCount() disagree at tolerance " + tolerances[level]);
+			if (m > previous) throw new IllegalStateException(name + ": tolerance " + tolerances[level] + " keeps " + m + " vertices, more than the " + previous + " before it");
+			previous = m;
+			levelVertices[level] += m;
+			double error = error(name, full, lod);
+			if (error > tolerances[level] + ROUNDING) throw new IllegalStateException(name + ": a vertex left out at tolerance " + tolerances[level] + " is " + error + " from the simplified line");
+			worst[level] = Math.max(worst[level], error / tolerances[level]);
+		}
+
+		for (double scale : SCALES){
+			for (int level = -1; level < tolerances.length; level++){
+				//A budget below the finest level's error on screen, and at and above each level's
+				for (int edge = 0; edge < 2; edge++){
+					double budget = level == -1 ? tolerances[0] * scale / 2 : tolerances[level] * scale * (edge == 0 ? 1 : 1.5);
+					int expected = -1;
+					for (int i = 0; i < tolerances.length; i++){
+						if (tolerances[i] * scale <= budget) expected = i;
+					}
+					VectorGeometry want = expected == -1 ? full : levels[expected];
+					if (full.getLod(scale, budget) != want){
+						throw new IllegalStateException(name + ": getLod(" + scale + ", " + budget + ") did not give tolerance " + (expected == -1 ? "0" : tolerances[expected]));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Matches the vertices of a level to the vertices of the full line, and measures every vertex left out
+	 * against the segment of the level between the kept vertices on either side of it
+	 * @return Largest distance of a removed vertex from the level
+	 */
+	private static double error(String name, VectorGeometry full, VectorGeometry lod){
+		int n = full.getVertexCount();
+		int m = lod.getVertexCount();
+		if (!same(full, 0, lod, 0) || !same(full, n - 1, lod, m - 1)) throw new IllegalStateException(name + ": an end was not kept");
+
+		double max = 0;
+		int from = 0;
+		for (int k = 1; k < m; k++){
+			//The last kept vertex is the last vertex of the line, others are the next vertex that matches
+			int to = k == m - 1 ? n - 1 : from + 1;
+			while (k < m - 1 && to < n - 1 && !same(full, to, lod, k)) to++;
+			if (!same(full, to, lod, k)) throw new IllegalStateException(name + ": vertex " + k + " of a level is not a vertex of the line");
+			for (int i = from + 1; i < to; i++){
+				double d = distance(full.getX(i), full.getY(i), full.getX(from), full.getY(from), full.getX(to), full.getY(to));
+				if (d > max) max = d;
+			}
+			from = to;
+		}
+		return max;
+	}
+
+	private static boolean same(VectorGeometry a, int i, VectorGeometry b, int j){
+		return a.getX(i) == b.getX(j) && a.getY(i) == b.getY(j);
+	}
+
+	/**
+	 * @return Distance from (px,py) to the segment from (ax,ay) to (bx,by)
+	 */
+	private static double distance(double px, double py, double ax, double ay, double bx, double by){
+		double dx = bx - ax;
+		double dy = by - ay;
+		double lengthSquared = dx * dx + dy * dy;
+		double t = lengthSquared > 0 ? Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / lengthSquared)) : 0;
+		return Math.hypot(px - ax - t * dx, py - ay - t * dy);
+	}
+}
@@ -0,0 +1,79 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import main.AudioBackend;
+
+/**
+ * Stand-in for an audio library that records every call made on it, so the calls two VoicePools make can
+ * be compared. A source that is played stops on its own after it has been asked whether it is playing a
+ * fixed number of times, so which voices are free depends only on the calls made and not on timing.
+ * @author Henry
+ *
+ */
+public class RecordingBackend implements AudioBackend {
+
+	//Number of isPlaying() calls a played source answers true to before it has finished
+	private final int playLength;
+	//Most sources handed out
+	private final int maxSources;
+
+	//Every call made, in order
+	private final List<String> calls = new ArrayList<String>();
+	//isPlaying() calls left before each source finishes, 0 when it is not playing, indexed by source
+	private int[] remaining;
+	private int nextSource = 1;
+
+	/**
+	 * @param maxSources Most sources genSource() hands out before returning -1
+	 * @param playLength Number of times a played source says it is playing before it finishes
+	 */
+	public RecordingBackend(int maxSources, int playLength){
+		this.maxSources = maxSources;
+		this.playLength = playLength;
+		remaining = new int[maxSources + 1];
+	}
+
+	public int genSource(){
+		int source = nextSource <= maxSources ? nextSource++ : -1;
+		calls.add("genSource " + source);
+		return source;
+	}
+	public void deleteSource(int source){
+		calls.add("deleteSource " + source);
+	}
+	public void setSound(int source, int buffer, float gain){
+		calls.add("setSound " + source + " " + buffer + " " + gain);
+	}
+	public void setPosition(int source, float x, float y, float vx, float vy){
+		calls.add("setPosition " + source + " " + x + " " + y + " " + vx + " " + vy);
+	}
+	public void play(int source){
+		calls.add("play " + source);
+		remaining[source] = playLength;
+	}
+	public void stop(int source){
+		calls.add("stop " + source);
+		remaining[source] = 0;
+	}
+	public boolean isPlaying(int source){
+		boolean playing = remaining[source] > 0;
+		if (playing) remaining[source]--;
+		calls.add("isPlaying " + source + " " + playing);
+		return playing;
+	}
+	public void setListener(float x, float y, float vx, float vy){
+		calls.add("setListener " + x + " " + y + " " + vx + " " + vy);
+	}
+	public void clearErrors(){
+		calls.add("clearErrors");
+	}
+
+	/**
+	 * @return Every call made so far, in order, read only once the thread making them has stopped
+	 */
+	public List<String> getCalls(){
+		return calls;
+	}
+}
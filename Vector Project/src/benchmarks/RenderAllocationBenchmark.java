@@ -0,0 +1,51 @@
+package benchmarks;
+
+import gameObjects.GameObject;
+import gameObjects.Piece;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Random;
+
+import main.Draw;
+import main.VectorGeometry;
+
+/**
+ * Measures the bytes allocated per GameObject.render() call once the stroke meshes are built and the
+ * batch has grown to fit a frame. Uses the HotSpot per thread allocation counter.
+ * @author Henry
+ *
+ */
+public class RenderAllocationBenchmark {
+
+	public static void main(String[] args) {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+		long thread = Thread.currentThread().getId();
+
+		VectorGeometry[] geoms = {
+				new VectorGeometry("/geomDefs/ship.geom").scale(-.5).rotate(-Math.PI/2),
+				new VectorGeometry("/geomDefs/spikey.geom").scale(-.5),
+				new VectorGeometry("/geomDefs/asteroid.geom"),
+				new VectorGeometry("/geomDefs/spiral.geom").scale(-.25)
+		};
+		Random rand = new Random(1);
+		ArrayList<GameObject> objects = new ArrayList<GameObject>();
+		for (int i = 0; i < 1000; i++){
+			objects.add(Piece.obtain(geoms[i % geoms.length], rand.nextDouble() * 800, rand.nextDouble() * 600, 5000));
+		}
+
+		int frames = 200;
+		for (int i = 0; i < frames; i++) frame(objects);
+		long before = threads.getThreadAllocatedBytes(thread);
+		for (int i = 0; i < frames; i++) frame(objects);
+		long bytes = threads.getThreadAllocatedBytes(thread) - before;
+
+		System.out.printf("%d objects, %d frames, %.3f bytes allocated per render()%n", objects.size(), frames, 
+				bytes / (double)(frames * objects.size()));
+	}
+
+	private static void frame(ArrayList<GameObject> objects){
+		for (int i = 0; i < objects.size(); i++) objects.get(i).render();
+		Draw.clear();
+	}
+}
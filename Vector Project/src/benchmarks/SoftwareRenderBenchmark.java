@@ -0,0 +1,198 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import main.GeometryAssets;
+import main.SoftwareRenderer;
+import main.StrokeBatch;
+import main.StrokeMesh;
+import main.Transform;
+import main.VectorGeometry;
+import main.Workers;
+
+/**
+ * Measures how drawing 800x600 frames with the SoftwareRenderer scales with the number of threads, for a
+ * frame with the full geomStressTest player and a screen full of enemies. Each frame is cleared, filled
+ * and drawn. Prints how many times faster than real time each thread count draws at 60 frames a second,
+ * and a hash of the pixels, which should be the same for every thread count.
+ *
+ * Options:
+ * --enemies n     enemies drawn each frame, 200 by default
+ * --threads n     most threads to try, one a core by default
+ * --frames n      frames timed for each thread count, 100 by default
+ * --png file      write the last frame drawn to a PNG file
+ * --check         check the frame drawn with each thread count against a slow reference that tests the
+ *                 center of every pixel against every triangle, throws if a color differs by more than 1/255
+ * @author Henry
+ *
+ */
+public class SoftwareRenderBenchmark {
+
+	private static final int WIDTH = 800;
+	private static final int HEIGHT = 600;
+	private static final double REAL_TIME_FPS = 60;
+	//Most difference allowed between a color and the reference's, in 1/255ths, for rounding in the colors stepped across a row
+	private static final int CHECK_TOLERANCE = 1;
+
+	private static Transform transform = new Transform();
+
+	public static void main(String[] args) throws IOException {
+		int enemies = 200;
+		int maxThreads = Runtime.getRuntime().availableProcessors();
+		int frames = 100;
+		File png = null;
+		boolean check = false;
+		for (int i = 0; i < args.length; i++){
+			if (args[i].equals("--enemies")) enemies = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--threads")) maxThreads = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--frames")) frames = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--png")) png = new File(args[++i]);
+			else if (args[i].equals("--check")) check = true;
+			else throw new IllegalArgumentException("Unknown option " + args[i]);
+		}
+
+		GeometryAssets.preload();
+		VectorGeometry[] enemyGeoms = {
+				GeometryAssets.get("/geomDefs/ship.geom", -.5, -Math.PI/2),
+				GeometryAssets.get("/geomDefs/spikey.geom", -.5, 0),
+				GeometryAssets.get("/geomDefs/asteroid.geom"),
+				GeometryAssets.get("/geomDefs/spiral.geom", -.25, 0)
+		};
+		Random rand = new Random(enemies);
+		VectorGeometry[] geoms = new VectorGeometry[enemies + 1];
+		double[] xs = new double[enemies + 1];
+		double[] ys = new double[enemies + 1];
+		double[] rots = new double[enemies + 1];
+		for (int i = 0; i < enemies; i++){
+			geoms[i] = enemyGeoms[rand.nextInt(enemyGeoms.length)];
+			xs[i] = rand.nextDouble() * WIDTH;
+			ys[i] = rand.nextDouble() * HEIGHT;
+			rots[i] = rand.nextDouble() * 2 * Math.PI;
+		}
+		//Player last, so it is drawn on top
+		geoms[enemies] = GeometryAssets.get("/geomDefs/geomStressTest.geom", -.8, 0);
+		xs[enemies] = WIDTH / 2;
+		ys[enemies] = HEIGHT / 2;
+		StrokeBatch batch = new StrokeBatch();
+		SoftwareRenderer renderer = new SoftwareRenderer(WIDTH, HEIGHT);
+		int[] expected = null;
+		if (check){
+			frame(batch, renderer, geoms, xs, ys, rots);
+			expected = reference(batch);
+		}
+
+		System.out.println("threads\ttriangles\tframe (ms)\tframes/s\tx real time\tspeedup\tpixel hash");
+		double serial = 0;
+		for (int threads = 1; threads <= maxThreads; threads = threads == maxThreads ? threads + 1 : Math.min(threads * 2, maxThreads)){
+			Workers.setThreads(threads);
+			for (int i = 0; i < frames; i++) frame(batch, renderer, geoms, xs, ys, rots);
+
+			long start = System.nanoTime();
+			for (int i = 0; i < frames; i++) frame(batch, renderer, geoms, xs, ys, rots);
+			double frame = (System.nanoTime() - start) / 1e6 / frames;
+			if (threads == 1) serial = frame;
+			System.out.printf("%d\t%d\t%.3f\t%.0f\t%.1f\t%.2f\t%08x%n", threads, batch.getVertexCount() / 3, frame, 1000 / frame,
+					1000 / frame / REAL_TIME_FPS, serial / frame, Arrays.hashCode(renderer.getPixels()));
+			if (check) compare(renderer.getPixels(), expected, threads);
+		}
+		if (check) System.out.println("Every thread count is within " + CHECK_TOLERANCE + "/255 of the reference");
+		Workers.setThreads(1);
+		if (png != null){
+			renderer.writePng(png);
+			System.out.println("Last frame written to " + png);
+		}
+	}
+
+	private static void frame(StrokeBatch batch, SoftwareRenderer renderer, VectorGeometry[] geoms, double[] xs, double[] ys, double[] rots){
+		batch.clear();
+		for (int i = 0; i < geoms.length; i++){
+			VectorGeometry g = geoms[i];
+			batch.add(StrokeMesh.of(g), transform.set(xs[i], ys[i], rots[i]), g.getRed(), g.getGreen(), g.getBlue());
+		}
+		renderer.clear();
+		renderer.draw(batch, Workers.getPool());
+	}
+
+	/**
+	 * Throws if any color of any pixel differs from the reference by more than CHECK_TOLERANCE
+	 */
+	private static void compare(int[] pixels, int[] expected, int threads){
+		for (int p = 0; p < pixels.length; p++){
+			for (int shift = 0; shift < 24; shift += 8){
+				int difference = Math.abs(((pixels[p] >> shift) & 0xff) - ((expected[p] >> shift) & 0xff));
+				if (difference > CHECK_TOLERANCE){
+					throw new IllegalStateException(String.format("With %d threads pixel %d, %d is %06x, the reference is %06x",
+							threads, p % WIDTH, p / WIDTH, pixels[p] & 0xffffff, expected[p] & 0xffffff));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Draws a batch onto a black screen the slow way, as the SoftwareRenderer is meant to: every triangle
+	 * in order, testing the center of every pixel in its bounds against its three edges and working out
+	 * the color of each pixel from scratch. Vertices are snapped to the same sub-pixels and the same edges
+	 * own the centers on them.
+	 * @return The pixels, stored as SoftwareRenderer stores them
+	 */
+	private static int[] reference(StrokeBatch batch){
+		float[] data = batch.getData();
+		int[] pixels = new int[WIDTH * HEIGHT];
+		Arrays.fill(pixels, 0xff000000);
+		int[] x = new int[3];
+		int[] y = new int[3];
+		float[][] color = new float[3][4];
+		double[] weight = new double[3];
+		for (int t = 0; t < batch.getVertexCount() / 3; t++){
+			for (int k = 0; k < 3; k++){
+				int v = (t * 3 + k) * StrokeBatch.VERTEX_SIZE;
+				x[k] = Math.round(data[v] * 256);
+				y[k] = Math.round(((float)HEIGHT - data[v + 1]) * 256);
+				for (int c = 0; c < 4; c++) color[k][c] = Math.max(0, Math.min(1, data[v + 2 + c]));
+			}
+			long area = (long)(x[1] - x[0]) * (y[2] - y[0]) - (long)(y[1] - y[0]) * (x[2] - x[0]);
+			if (area == 0) continue;
+			//Vertices in the order that makes the area positive
+			int[] order = area > 0 ? new int[] {0, 1, 2} : new int[] {0, 2, 1};
+			area = Math.abs(area);
+
+			int left = Math.max(0, Math.min(x[0], Math.min(x[1], x[2])) >> 8);
+			int right = Math.min(WIDTH - 1, Math.max(x[0], Math.max(x[1], x[2])) >> 8);
+			int top = Math.max(0, Math.min(y[0], Math.min(y[1], y[2])) >> 8);
+			int bottom = Math.min(HEIGHT - 1, Math.max(y[0], Math.max(y[1], y[2])) >> 8);
+			for (int row = top; row <= bottom; row++){
+				pixel: for (int column = left; column <= right; column++){
+					long px = column * 256L + 128;
+					long py = row * 256L + 128;
+					for (int e = 0; e < 3; e++){
+						int a = order[(e + 1) % 3];
+						int b = order[(e + 2) % 3];
+						long dx = x[b] - x[a];
+						long dy = y[b] - y[a];
+						long edge = dx * (py - y[a]) - dy * (px - x[a]);
+						boolean owned = dy > 0 || (dy == 0 && dx < 0);
+						if (edge < 0 || (edge == 0 && !owned)) continue pixel;
+						weight[e] = (double)edge / area;
+					}
+					double[] c = new double[4];
+					for (int e = 0; e < 3; e++){
+						for (int i = 0; i < 4; i++) c[i] += weight[e] * color[order[e]][i];
+					}
+					if (c[3] <= 0) continue;
+					int dst = pixels[row * WIDTH + column];
+					int result = 0xff000000;
+					for (int i = 0; i < 3; i++){
+						int shift = 16 - 8 * i;
+						long value = Math.round(c[i] * c[3] * 255 + ((dst >> shift) & 0xff) * (1 - c[3]));
+						result |= Math.min(255, value) << shift;
+					}
+					pixels[row * WIDTH + column] = result;
+				}
+			}
+		}
+		return pixels;
+	}
+}
@@ -0,0 +1,75 @@
+package benchmarks;
+
+import java.util.Random;
+
+import main.StrokeBatch;
+import main.StrokeMesh;
+import main.Transform;
+import main.VectorGeometry;
+
+/**
+ * Measures the CPU cost of filling a StrokeBatch for a busy frame on one thread, and counts the OpenGL
+ * calls the frame would take in immediate mode compared to the batch. StrokeFillBenchmark measures
+ * filling on more threads.
+ * @author Henry
+ *
+ */
+public class StrokeBatchBenchmark {
+
+	private static Transform transform = new Transform();
+
+	public static void main(String[] args) {
+		VectorGeometry player = new VectorGeometry("/geomDefs/geomStressTest.geom").scale(-.8);
+		VectorGeometry[] enemies = {
+				new VectorGeometry("/geomDefs/ship.geom").scale(-.5).rotate(-Math.PI/2),
+				new VectorGeometry("/geomDefs/spikey.geom").scale(-.5),
+				new VectorGeometry("/geomDefs/asteroid.geom"),
+				new VectorGeometry("/geomDefs/spiral.geom").scale(-.25)
+		};
+		int[] counts = {100, 1000, 5000};
+		StrokeBatch batch = new StrokeBatch();
+
+		System.out.println("objects\tvertices\timmediate mode calls\tbatched calls\tfill (ms)");
+		for (int n : counts){
+			Random rand = new Random(n);
+			VectorGeometry[] geoms = new VectorGeometry[n + 1];
+			double[] xs = new double[n + 1];
+			double[] ys = new double[n + 1];
+			double[] rots = new double[n + 1];
+			geoms[0] = player;
+			for (int i = 1; i <= n; i++){
+				geoms[i] = enemies[rand.nextInt(enemies.length)];
+				xs[i] = rand.nextDouble() * 800;
+				ys[i] = rand.nextDouble() * 600;
+				rots[i] = rand.nextDouble() * 2 * Math.PI;
+			}
+
+			//OpenGL calls immediate mode made for the same frame, begin and end for each primitive and a color and vertex call per vertex
+			long immediateCalls = 0;
+			for (VectorGeometry g : geoms){
+				StrokeMesh mesh = StrokeMesh.of(g);
+				int triangles = mesh.getSegmentCount() - 1 + (mesh.isClosed() ? 1 : 0);
+				immediateCalls += 2 * (mesh.getSegmentCount() + triangles) + 2 * mesh.getVertexCount();
+			}
+
+			int iterations = 200;
+			for (int i = 0; i < iterations; i++) fill(batch, geoms, xs, ys, rots);
+			long start = System.nanoTime();
+			for (int i = 0; i < iterations; i++) fill(batch, geoms, xs, ys, rots);
+			double ms = (System.nanoTime() - start) / 1e6 / iterations;
+
+			//Bind, upload, 2 pointers, 2 enables, 2 disables, draw, unbind
+			int batchedCalls = 10;
+			System.out.printf("%d\t%d\t%d\t%d\t%.3f%n", n, batch.getVertexCount(), immediateCalls, batchedCalls, ms);
+		}
+	}
+
+	private static void fill(StrokeBatch batch, VectorGeometry[] geoms, double[] xs, double[] ys, double[] rots){
+		batch.clear();
+		for (int i = 0; i < geoms.length; i++){
+			VectorGeometry g = geoms[i];
+			batch.add(StrokeMesh.of(g), transform.set(xs[i], ys[i], rots[i]), g.getRed(), g.getGreen(), g.getBlue());
+		}
+		batch.fill(null);
+	}
+}
@@ -0,0 +1,98 @@
+package benchmarks;
+
+import java.util.Random;
+
+import main.GeometryAssets;
+import main.StrokeBatch;
+import main.StrokeMesh;
+import main.Transform;
+import main.VectorGeometry;
+import main.Workers;
+
+/**
+ * Measures how filling the StrokeBatch scales with the number of threads, for a frame with the full
+ * geomStressTest player and thousands of enemies. Adding the meshes is always done on one thread,
+ * filling in their vertices is split across the Workers pool.
+ *
+ * Options:
+ * --enemies n     enemies drawn each frame, 5000 by default
+ * --threads n     most threads to try, one a core by default
+ * --frames n      frames timed for each thread count, 200 by default
+ * @author Henry
+ *
+ */
+public class StrokeFillBenchmark {
+
+	private static Transform transform = new Transform();
+
+	public static void main(String[] args) {
+		int enemies = 5000;
+		int maxThreads = Runtime.getRuntime().availableProcessors();
+		int frames = 200;
+		for (int i = 0; i < args.length; i++){
+			if (args[i].equals("--enemies")) enemies = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--threads")) maxThreads = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--frames")) frames = Integer.parseInt(args[++i]);
+			else throw new IllegalArgumentException("Unknown option " + args[i]);
+		}
+
+		GeometryAssets.preload();
+		VectorGeometry[] enemyGeoms = {
+				GeometryAssets.get("/geomDefs/ship.geom", -.5, -Math.PI/2),
+				GeometryAssets.get("/geomDefs/spikey.geom", -.5, 0),
+				GeometryAssets.get("/geomDefs/asteroid.geom"),
+				GeometryAssets.get("/geomDefs/spiral.geom", -.25, 0)
+		};
+		Random rand = new Random(enemies);
+		VectorGeometry[] geoms = new VectorGeometry[enemies + 1];
+		double[] xs = new double[enemies + 1];
+		double[] ys = new double[enemies + 1];
+		double[] rots = new double[enemies + 1];
+		geoms[0] = GeometryAssets.get("/geomDefs/geomStressTest.geom", -.8, 0);
+		xs[0] = 400;
+		ys[0] = 300;
+		for (int i = 1; i <= enemies; i++){
+			geoms[i] = enemyGeoms[rand.nextInt(enemyGeoms.length)];
+			xs[i] = rand.nextDouble() * 800;
+			ys[i] = rand.nextDouble() * 600;
+			rots[i] = rand.nextDouble() * 2 * Math.PI;
+		}
+		StrokeBatch batch = new StrokeBatch();
+
+		System.out.println("threads\tvertices\tadd (ms)\tfill (ms)\tframe (ms)\tfill speedup");
+		double serialFill = 0;
+		for (int threads = 1; threads <= maxThreads; threads = threads == maxThreads ? threads + 1 : Math.min(threads * 2, maxThreads)){
+			Workers.setThreads(threads);
+			for (int i = 0; i < frames; i++) frame(batch, geoms, xs, ys, rots);
+
+			long addTime = 0;
+			long fillTime = 0;
+			for (int i = 0; i < frames; i++){
+				long start = System.nanoTime();
+				add(batch, geoms, xs, ys, rots);
+				long added = System.nanoTime();
+				batch.fill(Workers.getPool());
+				fillTime += System.nanoTime() - added;
+				addTime += added - start;
+			}
+			double add = addTime / 1e6 / frames;
+			double fill = fillTime / 1e6 / frames;
+			if (threads == 1) serialFill = fill;
+			System.out.printf("%d\t%d\t%.3f\t%.3f\t%.3f\t%.2f%n", threads, batch.getVertexCount(), add, fill, add + fill, serialFill / fill);
+		}
+		Workers.setThreads(1);
+	}
+
+	private static void frame(StrokeBatch batch, VectorGeometry[] geoms, double[] xs, double[] ys, double[] rots){
+		add(batch, geoms, xs, ys, rots);
+		batch.fill(Workers.getPool());
+	}
+
+	private static void add(StrokeBatch batch, VectorGeometry[] geoms, double[] xs, double[] ys, double[] rots){
+		batch.clear();
+		for (int i = 0; i < geoms.length; i++){
+			VectorGeometry g = geoms[i];
+			batch.add(StrokeMesh.of(g), transform.set(xs[i], ys[i], rots[i]), g.getRed(), g.getGreen(), g.getBlue());
+		}
+	}
+}
@@ -0,0 +1,241 @@
+package benchmarks;
+
+import gameObjects.GameObject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.TreeSet;
+
+import main.GeometryArchive;
+import main.StrokeMesh;
+import main.VectorGeometry;
+import main.Vertex;
+
+/**
+ * Checks that StrokeMesh builds the same stroke Draw.geometry used to build every frame, for every shipped
+ * geometry. The old tessellation is kept below as it was, emitting vertices instead of calling OpenGL.
+ * Throws if the vertex count, a vertex position or which vertices are lit differ.
+ *
+ * In local space the mesh must match vertex for vertex. The old code was also run on geometries that had
+ * been rotated and moved, and these can differ at joins where the line doubles back on itself or carries
+ * straight on through a vertex. Where it doubles back, the two outside points of a segment are the same
+ * distance from the point in the direction of the gap. Where it carries straight on, the direction of the
+ * gap is exactly a right angle from the segment, so either side could be the outside. Which point the old
+ * code picked came down to rounding in the rotated coordinates, while the mesh picks once in local space.
+ * Both choices give a triangle with no area, so nothing drawn changes. Differences in moved copies are
+ * only allowed at those ties, and only if the old and new triangles both have no area. They are counted
+ * and printed.
+ *
+ * The geometries checked are the ones in the archive on the classpath, each loaded from its text file.
+ * @author Henry
+ *
+ */
+public class StrokeMeshCheck {
+
+	//Largest difference allowed between a mesh vertex and the old vertex, in pixels
+	private static final double TOLERANCE = 1e-9;
+	//Rotations and offsets the moved copies are checked with
+	private static final double[] ROTATIONS = {0, 1.234, Math.PI / 2, 3};
+	private static final double OFFSET_X = 37.5;
+	private static final double OFFSET_Y = -12.25;
+
+	//Largest area of a join triangle that counts as having no area, in square pixels
+	private static final double NO_AREA = 1e-6;
+
+	//Vertices emitted by the old tessellation, with whether each was lit, whether it was picked from a tie
+	//and the index of the first vertex of its triangle
+	private static ArrayList<double[]> emitted = new ArrayList<double[]>();
+
+	public static void main(String[] args) throws IOException {
+		GeometryArchive archive = GeometryArchive.fromResource(GeometryArchive.RESOURCE);
+		if (archive == null) throw new IOException(GeometryArchive.RESOURCE + " is not on the classpath, run GeometryArchive first");
+
+		System.out.println("geometry\tvertices\tlocal error\tmoved error\ttie breaks");
+		int geometries = 0;
+		for (String path : new TreeSet<String>(archive.getPaths())){
+			VectorGeometry vg = new VectorGeometry(path);
+			StrokeMesh mesh = new StrokeMesh(vg);
+			double localError = 0;
+			double movedError = 0;
+			int ties = 0;
+			for (double rot : ROTATIONS){
+				boolean local = rot == 0;
+				emitted.clear();
+				oldGeometry(local ? vg : vg.rotate(rot).translate(OFFSET_X, OFFSET_Y));
+				if (emitted.size() != mesh.getVertexCount()){
+					throw new IllegalStateException(path + ": mesh has " + mesh.getVertexCount() + " vertices, old stroke had " + emitted.size());
+				}
+
+				double cos = Math.cos(rot);
+				double sin = Math.sin(rot);
+				for (int i = 0; i < emitted.size(); i++){
+					double[] old = emitted.get(i);
+					double x = local ? mesh.getX(i) : OFFSET_X + cos * mesh.getX(i) - sin * mesh.getY(i);
+					double y = local ? mesh.getY(i) : OFFSET_Y + sin * mesh.getX(i) + cos * mesh.getY(i);
+					double error = Math.max(Math.abs(x - old[0]), Math.abs(y - old[1]));
+					if ((old[2] == 1) != mesh.isLit(i)) throw new IllegalStateException(path + ": vertex " + i + " lit differs");
+					if (error > TOLERANCE){
+						if (local || old[3] == 0){
+							throw new IllegalStateException(path + ": vertex " + i + " is " + error + " from the old stroke at rotation " + rot);
+						}
+						int t = (int)old[4];
+						double oldArea = area(emitted.get(t), emitted.get(t + 1), emitted.get(t + 2));
+						double meshArea = area(mesh.getX(t), mesh.getY(t), mesh.getX(t + 1), mesh.getY(t + 1), mesh.getX(t + 2), mesh.getY(t + 2));
+						if (oldArea > NO_AREA || meshArea > NO_AREA){
+							throw new IllegalStateException(path + ": join at vertex " + t + " was a tie but draws a triangle at rotation " + rot);
+						}
+						ties++;
+						continue;
+					}
+					if (local) localError = Math.max(localError, error);
+					else movedError = Math.max(movedError, error);
+				}
+			}
+			System.out.printf("%s\t%d\t%.2e\t%.2e\t%d%n", path, mesh.getVertexCount(), localError, movedError, ties);
+			geometries++;
+		}
+		System.out.println(geometries + " geometries match the old stroke");
+	}
+
+	/**
+	 * Adds a vertex to the emitted list
+	 * @param tie whether the vertex was picked between two points that rounding could have swapped
+	 * @param triangle index of the first vertex of the join triangle the vertex is in, -1 for quads
+	 */
+	private static void emit(double x, double y, boolean lit, boolean tie, int triangle){
+		emitted.add(new double[]{x, y, lit ? 1 : 0, tie ? 1 : 0, triangle});
+	}
+
+	private static double area(double[] a, double[] b, double[] c){
+		return area(a[0], a[1], b[0], b[1], c[0], c[1]);
+	}
+	private static double area(double x1, double y1, double x2, double y2, double x3, double y3){
+		return Math.abs((x2 - x1) * (y3 - y1) - (y2 - y1) * (x3 - x1)) / 2;
+	}
+
+	/**
+	 * @return Whether two distances are close enough that rounding could decide which is smaller
+	 */
+	private static boolean tie(double a, double b){
+		return Math.abs(a - b) < TOLERANCE;
+	}
+
+	/**
+	 * Draw.geometry before StrokeMesh, emitting each vertex in the order it was passed to glVertex2d
+	 */
+	private static void oldGeometry(VectorGeometry vg){
+
+		//Values from the VectorGeometry
+		Vertex[] verts = vg.getVerts();
+		double weight = vg.getWeight();
+
+		//Store vertexes from previous rectangles to cover gaps between rectangles
+		Vertex lastp4 = null,lastp6=null, firstp3=null, firstp5 = null;
+
+		for (int i = 0; i < verts.length-1; i++){
+
+			//End points of the rectangle
+			Vertex p1 = verts[i];
+			Vertex p2 = verts[i+1];
+
+			//Get the angle that is perpendicular to the angle between the end points
+			double degree = GameObject.getAngle(p1.y-p2.y, p2.x - p1.x);
+
+			//Create the points on either side of the end points
+			Vertex p3,p4,p5,p6;
+			double dx,dy;
+
+			dx    = (double)Math.cos(degree)*weight/2;
+			dy    = (double)Math.sin(degree)*weight/2;
+			p3 = new Vertex(p1.x+dx, p1.y+dy);
+			p4 = new Vertex(p2.x+dx, p2.y+dy);
+			p5 = new Vertex(p1.x-dx, p1.y-dy);
+			p6 = new Vertex(p2.x-dx, p2.y-dy);
+
+			//Draw the rectangle
+			emit(p1.x, p1.y, true, false, -1);
+			emit(p2.x, p2.y, true, false, -1);
+			emit(p4.x, p4.y, false, false, -1);
+			emit(p3.x, p3.y, false, false, -1);
+
+			emit(p1.x, p1.y, true, false, -1);
+			emit(p2.x, p2.y, true, false, -1);
+			emit(p6.x, p6.y, false, false, -1);
+			emit(p5.x, p5.y, false, false, -1);
+
+			//If not on the first rectangle, cover the gap between this rectangle and the last rectangle
+			if (i!=0){
+
+				//Find the direction of the gap
+				double angle1 = GameObject.getAngle(p2.x - p1.x, p2.y - p1.y);
+				double angle2 = GameObject.getAngle(verts[i-1].x - p1.x, verts[i-1].y - p1.y);
+				if (angle1 < 0) angle1 += 2 * Math.PI;
+				if (angle2 < 0) angle2 += 2 * Math.PI;
+				double direction = (angle1 + angle2)/2;
+				boolean straight = tie(Math.abs(direction - angle1), Math.PI/2);
+				if (Math.abs(direction - angle1) < Math.PI/2) direction += Math.PI;
+				while (direction > Math.PI) direction -= 2 * Math.PI;
+				while (direction < -Math.PI) direction += 2 * Math.PI;
+
+				Vertex pa = null;
+				Vertex pb = null;
+
+				//Set pa and pb to the vertices closest to a point closest to a point created in the direction of the gap
+				Vertex d = new Vertex(p1.x + weight*Math.cos(direction), p1.y + weight*Math.sin(direction));
+				if (p3.distance(d) < p5.distance(d)) pa = p3;
+				else pa = p5;
+				if (lastp4.distance(d) < lastp6.distance(d)) pb = lastp4;
+				else pb = lastp6;
+
+				//Draw a triangle between the center, pa and pb to cover the gap
+				int triangle = emitted.size();
+				emit(p1.x, p1.y, true, false, triangle);
+				emit(pa.x, pa.y, false, straight || tie(p3.distance(d), p5.distance(d)), triangle);
+				emit(pb.x, pb.y, false, straight || tie(lastp4.distance(d), lastp6.distance(d)), triangle);
+			}
+
+			//Save last outside points for use on next iteration
+			lastp4 = p4;
+			lastp6 = p6;
+			//Save first points for use below
+			if (i==0){
+				firstp5 = p5;
+				firstp3 = p3;
+			}
+		}
+
+		//If the first Vertex is the same as the last vertex, cover the gap between them (same code as above)
+		//The length check is new, the old code threw on geometries with fewer than two vertices
+		if (verts.length > 1 && verts[0].equals(verts[verts.length-1])){
+
+			Vertex p1 = verts[0];
+			Vertex p2 = verts[1];
+
+			int i = verts.length-1;
+
+			double angle1 = GameObject.getAngle(p2.x - p1.x, p2.y - p1.y);
+			double angle2 = GameObject.getAngle(verts[i-1].x - p1.x, verts[i-1].y - p1.y);
+			if (angle1 < 0) angle1 += 2 * Math.PI;
+			if (angle2 < 0) angle2 += 2 * Math.PI;
+			double direction = (angle1 + angle2)/2;
+			boolean straight = tie(Math.abs(direction - angle1), Math.PI/2);
+			if (Math.abs(direction - angle1) < Math.PI/2) direction += Math.PI;
+			while (direction > Math.PI) direction -= 2 * Math.PI;
+			while (direction < -Math.PI) direction += 2 * Math.PI;
+
+			Vertex pa;
+			Vertex pb;
+
+			Vertex d = new Vertex(p1.x + weight*Math.cos(direction), p1.y + weight*Math.sin(direction));
+			if (firstp3.distance(d) < firstp5.distance(d)) pa = firstp3;
+			else pa = firstp5;
+			if (lastp4.distance(d) < lastp6.distance(d)) pb = lastp4;
+			else pb = lastp6;
+
+			int triangle = emitted.size();
+			emit(verts[0].x, verts[0].y, true, false, triangle);
+			emit(pa.x, pa.y, false, straight || tie(firstp3.distance(d), firstp5.distance(d)), triangle);
+			emit(pb.x, pb.y, false, straight || tie(lastp4.distance(d), lastp6.distance(d)), triangle);
+		}
+	}
+}
@@ -4,7 +4,6 @@ import org.newdawn.slick.Color;
 
 import main.Start;
 import main.VectorGeometry;
-import main.Vertex;
 
 /**
  * Represents a projectile fired by enemies or the player
@@ -18,9 +17,29 @@ public class Bullet extends GameObject {
 	//GameObject that the bullet was fired from, used to make sure that it does not collide with its firer
 	protected GameObject source;
 	
+	//Bullets that have been removed from the game, reused by obtain()
+	private static final Pool<Bullet> pool = new Pool<Bullet>(){
+		@Override
+		protected Bullet create(){
+			return new Bullet();
+		}
+	};
+	
+	//Values the current geometry was made from, a reused bullet keeps its geometry if they have not changed
+	private double geomScale;
+	private double geomR;
+	private double geomG;
+	private double geomB;
+	private double geomWeight;
+	
+	/**
+	 * Bullets are only created by the pool
+	 */
+	private Bullet(){
+	}
+	
 	/**
-	 * Depracted constructor, called inside the class only
-	 * @deprecated
+	 * Takes a bullet from the pool and fires it, replaces the old constructor
 	 * @param x initial x position
 	 * @param y initial y position
 	 * @param vx x component of velocity
@@ -30,36 +49,77 @@ public class Bullet extends GameObject {
 	 * @param c color of the bullet
 	 * @param weight width of the bullet
 	 * @param liveTime time before the bullet despawns, keeps them from collecting off screen
+	 * @return The bullet, which has not been added to the game
 	 */
-	public Bullet(double x, double y, double vx, double vy, double rot,  double scale, Color c, double weight, long liveTime) {
-		super(new VectorGeometry(new Vertex[] {new Vertex(-.5,0), new Vertex(.5,0)},weight , c.r, c.g, c.b).scaleX(scale), x, y);
-		this.rot = rot;
-		this.vx = vx;
-		this.vy = vy;
-		this.liveTime = liveTime;
+	public static Bullet obtain(double x, double y, double vx, double vy, double rot,  double scale, Color c, double weight, long liveTime) {
+		return obtain(x, y, vx, vy, rot, scale, c.r, c.g, c.b, weight, liveTime);
 	}
 	
 	/**
-	 * Prefered constructor, calls the depractated constructor using information from the given source
+	 * Takes a bullet from the pool and fires it, with the color given as red, green and blue values
+	 * so that no Color has to be created
+	 */
+	private static Bullet obtain(double x, double y, double vx, double vy, double rot,  double scale, double red, double green, double blue, double weight, long liveTime) {
+		Bullet b = pool.obtain();
+		b.reinit(b.geometry(scale, red, green, blue, weight), x, y);
+		b.setRot(rot);
+		b.setVX(vx);
+		b.setVY(vy);
+		b.liveTime = liveTime;
+		b.source = null;
+		return b;
+	}
+	
+	/**
+	 * Takes a bullet from the pool and fires it from the front of the given source
 	 * @param src GameObject that the bullet was fired from
 	 * @param scale size of the bullet
 	 * @param liveTime time before the bullet despawns
+	 * @return The bullet, which has not been added to the game
+	 */
+	public static Bullet obtain(GameObject src, double scale, long liveTime){
+		Bullet b = obtain(src.getX() + src.geom.getAverageRadius() * Math.cos(src.getRot()),src.getY() + src.geom.getAverageRadius() * Math.sin(src.getRot()),
+				480 * Math.cos(src.getRot()) + src.getVX(), 480 * Math.sin(src.getRot()) + src.getVY(), src.getRot(), scale, src.geom.getRed(), 
+				src.geom.getGreen(), src.geom.getBlue(), src.geom.getWeight(), liveTime);
+		b.source = src;
+		return b;
+	}
+	
+	/**
+	 * @return The pool bullets are taken from, for reading its counts
+	 */
+	public static Pool<Bullet> getPool(){
+		return pool;
+	}
+	
+	/**
+	 * @return A line of the given length, color and width, the current geometry if it already is one
 	 */
-	public Bullet(GameObject src, double scale, long liveTime){
-		this(src.x + src.geom.getAverageRadius() * Math.cos(src.rot),src.y + src.geom.getAverageRadius() * Math.sin(src.rot),
-				480 * Math.cos(src.rot) + src.vx, 480 * Math.sin(src.rot) + src.vy, src.rot, scale, src.geom.getColor(), 
-				src.geom.getWeight(), liveTime);
-		source = src;
+	private VectorGeometry geometry(double scale, double red, double green, double blue, double weight){
+		if (geom != null && geomScale == scale && geomR == red && geomG == green && geomB == blue && geomWeight == weight) return geom;
+		geomScale = scale;
+		geomR = red;
+		geomG = green;
+		geomB = blue;
+		geomWeight = weight;
+		return new VectorGeometry(new double[] {-.5,0, .5,0},weight , red, green, blue).scaleX(scale);
 	}
 	
+	/**
+	 * Goes back to the pool once removed, the firer is forgotten so it can be garbage collected
+	 */
+	@Override
+	protected void recycle(){
+		source = null;
+		pool.release(this);
+	}
 	
 	/**
-	 * Updates the bullet's state, updates despawn timer and calls the super class update method
+	 * Updates the bullet's state, updates despawn timer
 	 */
 	public void update(){
 		liveTime -= Start.deltaTime();
 		if (liveTime <= 0) GameObject.removeObject(this);
-		super.update();
 	}
 	
 	/**
@@ -70,5 +130,20 @@ public class Bullet extends GameObject {
 	public void collide(GameObject other){
 		if (!(other == source || other instanceof Bullet)) GameObject.removeObject(this);
 	}
-
+	
+	/**
+	 * Bullets are drawn over enemies
+	 */
+	@Override
+	public int getLayer(){
+		return RenderLayers.BULLETS;
+	}
+	
+	/**
+	 * Bullets only count down their own time
+	 */
+	@Override
+	protected boolean updatesInParallel(){
+		return true;
+	}
 }
@@ -0,0 +1,213 @@
+package gameObjects;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import main.GeometryAssets;
+import main.Input;
+import main.InputSource;
+import main.Sounds;
+import main.Start;
+import main.StrokeMesh;
+
+import org.lwjgl.input.Keyboard;
+
+/**
+ * Checks that culling never leaves out an object that would have drawn something on screen. Enemies of
+ * every kind are spawned on the ring around the player, where waves put them, and the game is run while
+ * the player walks and fires, so enemies, bullets and debris cross the edges of the screen. After every
+ * tick each object's stroke is tested against the screen quad by quad and triangle by triangle, and the
+ * check throws if any of it is on screen but isInView() says it is not. Kept in this package so it can
+ * read each object's geometry.
+ *
+ * Options:
+ * --ticks n       ticks run, 20000 by default
+ * --seed n        seed for where enemies enter and for the game, 1 by default
+ * @author Henry
+ *
+ */
+public class CullCheck {
+
+	//Size of the window, the screen is centered on the player
+	private static final int WIDTH = 800;
+	private static final int HEIGHT = 600;
+	//Ticks between enemies entering, one of each kind
+	private static final int SPAWN_TICKS = 60;
+
+	//Where the object being tested is drawn
+	private static double drawX;
+	private static double drawY;
+	private static double cos;
+	private static double sin;
+
+	public static void main(String[] args) {
+		int ticks = 20000;
+		long seed = 1;
+		for (int i = 0; i < args.length; i++){
+			if (args[i].equals("--ticks")) ticks = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--seed")) seed = Long.parseLong(args[++i]);
+			else throw new IllegalArgumentException("Unknown option " + args[i]);
+		}
+
+		Sounds.disable();
+		GeometryAssets.preload();
+		Walk walk = new Walk();
+		Input.setSource(walk);
+		Random rand = new Random(seed);
+		GameObject.setSeed(seed);
+		Player player = new Player(0, 0);
+		ArrayList<GameObject> start = new ArrayList<GameObject>();
+		start.add(player);
+		GameObject.initGameObjectList(start);
+
+		long visible = 0;
+		long culled = 0;
+		long kept = 0;
+		for (int t = 0; t < ticks; t++){
+			walk.tick = t;
+			if (t % SPAWN_TICKS == 0){
+				GameObject.addObject(new Follow(player, rand.nextDouble() * 2 * Math.PI));
+				GameObject.addObject(new Gravimetric(player, rand.nextDouble() * 2 * Math.PI));
+				GameObject.addObject(new Spiral(player, rand.nextDouble() * 2 * Math.PI));
+				GameObject.addObject(new Orbiter(player, rand.nextDouble() * 2 * Math.PI));
+			}
+			GameObject.saveState();
+			GameObject.updateQueue();
+			GameObject.updateObjects();
+			GameObject.integrate();
+			GameObject.checkCollisions();
+			GameObject.updateQueue();
+
+			double minX = player.getRenderX() - WIDTH / 2;
+			double minY = player.getRenderY() - HEIGHT / 2;
+			double maxX = minX + WIDTH;
+			double maxY = minY + HEIGHT;
+			for (int i = 0; i < GameObject.getObjectCount(); i++){
+				GameObject o = GameObject.getObject(i);
+				//The player draws more than its geometry, and is always in the middle of the screen
+				if (o == player || o.geom == null) continue;
+				boolean inView = o.isInView(minX, minY, maxX, maxY);
+				if (onScreen(o, minX, minY, maxX, maxY)){
+					if (!inView){
+						throw new IllegalStateException("Tick " + t + ": " + o.getClass().getSimpleName() + " at " + o.getRenderX() + ", " + o.getRenderY() + " is on screen but was culled");
+					}
+					visible++;
+				}
+				else if (inView) kept++;
+				else culled++;
+			}
+		}
+		GameObject.destroyGameObjectList();
+		System.out.println("objects on screen\tculled\toff screen but drawn");
+		System.out.println(visible + "\t" + culled + "\t" + kept);
+	}
+
+	/**
+	 * Whether any quad or triangle of an object's stroke, where it is drawn, overlaps the screen
+	 */
+	private static boolean onScreen(GameObject o, double minX, double minY, double maxX, double maxY){
+		StrokeMesh mesh = StrokeMesh.of(o.geom);
+		drawX = o.getRenderX();
+		drawY = o.getRenderY();
+		cos = Math.cos(o.getRenderRot());
+		sin = Math.sin(o.getRenderRot());
+		int i = 0;
+		for (int s = 0; s < mesh.getSegmentCount(); s++){
+			if (overlaps(mesh, i, 4, minX, minY, maxX, maxY) || overlaps(mesh, i + 4, 4, minX, minY, maxX, maxY)) return true;
+			i += 8;
+			if (s > 0){
+				if (overlaps(mesh, i, 3, minX, minY, maxX, maxY)) return true;
+				i += 3;
+			}
+		}
+		return mesh.isClosed() && overlaps(mesh, i, 3, minX, minY, maxX, maxY);
+	}
+
+	/**
+	 * Tests a convex polygon of the mesh against the screen by separating axes, the axes of the screen and
+	 * the normal of each edge of the polygon
+	 * @param first Index of the polygon's first vertex
+	 * @param n Number of vertices in the polygon
+	 */
+	private static boolean overlaps(StrokeMesh mesh, int first, int n, double minX, double minY, double maxX, double maxY){
+		double[] xs = new double[n];
+		double[] ys = new double[n];
+		double lowX = Double.MAX_VALUE, highX = -Double.MAX_VALUE, lowY = Double.MAX_VALUE, highY = -Double.MAX_VALUE;
+		for (int v = 0; v < n; v++){
+			double x = mesh.getX(first + v);
+			double y = mesh.getY(first + v);
+			xs[v] = drawX + cos * x - sin * y;
+			ys[v] = drawY + sin * x + cos * y;
+			lowX = Math.min(lowX, xs[v]);
+			highX = Math.max(highX, xs[v]);
+			lowY = Math.min(lowY, ys[v]);
+			highY = Math.max(highY, ys[v]);
+		}
+		if (highX < minX || lowX > maxX || highY < minY || lowY > maxY) return false;
+
+		double[] cornersX = {minX, maxX, maxX, minX};
+		double[] cornersY = {minY, minY, maxY, maxY};
+		for (int v = 0; v < n; v++){
+			double nx = ys[(v + 1) % n] - ys[v];
+			double ny = xs[v] - xs[(v + 1) % n];
+			double polyLow = Double.MAX_VALUE, polyHigh = -Double.MAX_VALUE, screenLow = Double.MAX_VALUE, screenHigh = -Double.MAX_VALUE;
+			for (int p = 0; p < n; p++){
+				double d = xs[p] * nx + ys[p] * ny;
+				polyLow = Math.min(polyLow, d);
+				polyHigh = Math.max(polyHigh, d);
+			}
+			for (int c = 0; c < 4; c++){
+				double d = cornersX[c] * nx + cornersY[c] * ny;
+				screenLow = Math.min(screenLow, d);
+				screenHigh = Math.max(screenHigh, d);
+			}
+			if (polyHigh < screenLow || polyLow > screenHigh) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Input that walks the player in a square and fires all the time, aiming around in a circle
+	 */
+	private static class Walk implements InputSource {
+
+		long tick;
+
+		@Override
+		public boolean isKeyDown(int key) {
+			//Change direction every 3 seconds of game time
+			int leg = (int)(tick * Start.deltaTime() / 3000) % 4;
+			switch (leg){
+			case 0: return key == Keyboard.KEY_W;
+			case 1: return key == Keyboard.KEY_D;
+			case 2: return key == Keyboard.KEY_S;
+			default: return key == Keyboard.KEY_A;
+			}
+		}
+
+		@Override
+		public boolean isButtonDown(int button) {
+			return button == 0;
+		}
+
+		@Override
+		public int getMouseX() {
+			return WIDTH/2 + (int)(100 * Math.cos(tick / 50.0));
+		}
+
+		@Override
+		public int getMouseY() {
+			return HEIGHT/2 + (int)(100 * Math.sin(tick / 50.0));
+		}
+
+		@Override
+		public int getWidth() {
+			return WIDTH;
+		}
+
+		@Override
+		public int getHeight() {
+			return HEIGHT;
+		}
+	}
+}
@@ -32,7 +32,7 @@ public class Enemy extends GameObject{
 		if (other instanceof Bullet && ((Bullet)other).source != this){
 			
 			//This object dies
-			this.split(other.vx, other.vy);
+			this.split(other.getVX(), other.getVY());
 			
 			//If the bullet's source was the player, and the player is not dead, add to the score.
 			if (((Bullet)other).source instanceof Player){ 
@@ -44,11 +44,18 @@ public class Enemy extends GameObject{
 		}
 		//Die if this object collides with the player, the player handles health loss
 		if (other instanceof Player){
-			this.split(other.vx, other.vy);
+			this.split(other.getVX(), other.getVY());
 		}
 		
 	}
 	
 	
-
+	
+	/**
+	 * Enemies only change themselves and read their target, the player, which does not update in parallel
+	 */
+	@Override
+	protected boolean updatesInParallel(){
+		return true;
+	}
 }
@@ -0,0 +1,224 @@
+package gameObjects;
+
+import java.util.Arrays;
+
+/**
+ * Holds the GameObjects in the game in one packed array. Each object in the store has a handle, made of
+ * a slot and the generation of that slot, so a handle to an object that has been removed is never
+ * mistaken for the object that reuses its slot.
+ *
+ * Adding and removing are deferred: add() and remove() only record the change, and apply() makes all of
+ * them at once, so the array never changes while it is being looped over. Removing moves the last object
+ * into the gap instead of shifting the array. The order is decided only by the order of the calls, so it
+ * is the same every time the same changes are made.
+ * @author Henry
+ *
+ */
+public class EntityStore {
+
+	//Bits of a handle used for the slot, the rest hold the generation
+	private static final int SLOT_BITS = 20;
+	private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+	private static final int MAX_GENERATION = (1 << (31 - SLOT_BITS)) - 1;
+
+	//Objects in the store, the first count are used
+	private GameObject[] objects;
+	private int count;
+
+	//Index in objects of the object in each slot, and the generation of each slot, bumped whenever it is freed
+	private int[] indexes;
+	private int[] generations;
+	private int numSlots;
+	//Slots that have been freed and can be used again
+	private int[] freeSlots;
+	private int numFree;
+
+	//Changes waiting for apply()
+	private GameObject[] added;
+	private int numAdded;
+	private GameObject[] removed;
+	private int numRemoved;
+
+	public EntityStore(){
+		this(256);
+	}
+
+	/**
+	 * @param capacity Number of objects to allocate memory for up front
+	 */
+	public EntityStore(int capacity){
+		objects = new GameObject[capacity];
+		indexes = new int[capacity];
+		generations = new int[capacity];
+		freeSlots = new int[capacity];
+		added = new GameObject[64];
+		removed = new GameObject[64];
+	}
+
+	/**
+	 * Adds an object at the next apply()
+	 */
+	public void add(GameObject o){
+		if (numAdded == added.length) added = Arrays.copyOf(added, numAdded * 2);
+		added[numAdded++] = o;
+	}
+
+	/**
+	 * Removes an object at the next apply(). Removing an object more than once, or one that is only waiting
+	 * to be added, is allowed.
+	 */
+	public void remove(GameObject o){
+		if (o.removing) return;
+		o.removing = true;
+		if (numRemoved == removed.length) removed = Arrays.copyOf(removed, numRemoved * 2);
+		removed[numRemoved++] = o;
+	}
+
+	/**
+	 * Makes every change waiting since the last call. Removed objects are taken out in the order they were
+	 * removed, then added objects are put on the end in the order they were added, except those that were
+	 * removed before they got in.
+	 * @param listener Told about each object that was added and then each object that was removed, in the order of the calls, may be null
+	 */
+	public void apply(Listener listener){
+		for (int i = 0; i < numRemoved; i++){
+			GameObject o = removed[i];
+			if (contains(o)) take(o);
+		}
+		for (int i = 0; i < numAdded; i++){
+			GameObject o = added[i];
+			added[i] = null;
+			if (!o.removing && !contains(o)){
+				put(o);
+				if (listener != null) listener.added(o);
+			}
+		}
+		numAdded = 0;
+
+		//Objects are told last, so a pooled object can be added again from the listener
+		int n = numRemoved;
+		numRemoved = 0;
+		for (int i = 0; i < n; i++){
+			GameObject o = removed[i];
+			removed[i] = null;
+			o.removing = false;
+			if (listener != null) listener.removed(o);
+		}
+	}
+
+	/**
+	 * Puts an object on the end of the array and gives it a handle
+	 */
+	private void put(GameObject o){
+		if (count == objects.length) objects = Arrays.copyOf(objects, count * 2);
+		int slot;
+		if (numFree > 0) slot = freeSlots[--numFree];
+		else {
+			if (numSlots == indexes.length){
+				indexes = Arrays.copyOf(indexes, numSlots * 2);
+				generations = Arrays.copyOf(generations, numSlots * 2);
+				freeSlots = Arrays.copyOf(freeSlots, numSlots * 2);
+			}
+			slot = numSlots++;
+		}
+		indexes[slot] = count;
+		o.handle = (generations[slot] << SLOT_BITS) | slot;
+		objects[count++] = o;
+	}
+
+	/**
+	 * Takes an object out of the array by moving the last object into its place, frees its handle
+	 */
+	private void take(GameObject o){
+		int slot = o.handle & SLOT_MASK;
+		int index = indexes[slot];
+		GameObject last = objects[--count];
+		objects[index] = last;
+		indexes[last.handle & SLOT_MASK] = index;
+		objects[count] = null;
+
+		generations[slot] = generations[slot] == MAX_GENERATION ? 0 : generations[slot] + 1;
+		freeSlots[numFree++] = slot;
+		o.handle = -1;
+	}
+
+	/**
+	 * @return Whether the object is in the store, not counting changes waiting for apply()
+	 */
+	public boolean contains(GameObject o){
+		return o.handle != -1 && get(o.handle) == o;
+	}
+
+	/**
+	 * @param handle A handle given to an object when it was added
+	 * @return The object, or null if it has been removed
+	 */
+	public GameObject get(int handle){
+		if (handle < 0) return null;
+		int slot = handle & SLOT_MASK;
+		if (slot >= numSlots || generations[slot] != handle >>> SLOT_BITS) return null;
+		return objects[indexes[slot]];
+	}
+
+	/**
+	 * @return The object at the given index of the array, from 0 to size() - 1
+	 */
+	public GameObject at(int index){
+		return objects[index];
+	}
+
+	/**
+	 * @return Number of objects in the store
+	 */
+	public int size(){
+		return count;
+	}
+
+	/**
+	 * Removes every object and drops every waiting change, handles given out before are no longer valid
+	 * @param listener Told once about each object in the store, waiting to be added or waiting to be removed, may be null
+	 */
+	public void clear(Listener listener){
+		//removing marks the objects that have been told about, so none is told twice
+		for (int i = 0; i < numRemoved; i++) removed[i].removing = false;
+		for (int i = 0; i < count; i++) tell(objects[i], listener);
+		for (int i = 0; i < numAdded; i++) tell(added[i], listener);
+		for (int i = 0; i < numRemoved; i++) tell(removed[i], listener);
+
+		for (int i = 0; i < count; i++){
+			objects[i].removing = false;
+			objects[i].handle = -1;
+			objects[i] = null;
+		}
+		for (int i = 0; i < numAdded; i++){
+			added[i].removing = false;
+			added[i] = null;
+		}
+		for (int i = 0; i < numRemoved; i++){
+			removed[i].removing = false;
+			removed[i] = null;
+		}
+		for (int slot = 0; slot < numSlots; slot++){
+			generations[slot] = generations[slot] == MAX_GENERATION ? 0 : generations[slot] + 1;
+		}
+		count = 0;
+		numAdded = 0;
+		numRemoved = 0;
+		numFree = 0;
+		for (int slot = numSlots - 1; slot >= 0; slot--) freeSlots[numFree++] = slot;
+	}
+
+	private static void tell(GameObject o, Listener listener){
+		if (o.removing) return;
+		o.removing = true;
+		if (listener != null) listener.removed(o);
+	}
+
+	/**
+	 * Told about objects added and removed by apply()
+	 */
+	public interface Listener {
+		public void added(GameObject o);
+		public void removed(GameObject o);
+	}
+}
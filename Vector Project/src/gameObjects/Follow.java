@@ -1,7 +1,7 @@
 package gameObjects;
 
+import main.GeometryAssets;
 import main.State_Game;
-import main.VectorGeometry;
 /**
  * Represents an enemy that follows its given target, generally the player
  * @author Henry
@@ -28,7 +28,7 @@ public class Follow extends Enemy {
 	 * @param target GameObject to follow
 	 */
 	public Follow(double x, double y, GameObject target) {
-		super(new VectorGeometry("/geomDefs/spikey.geom").scale(-.5), x, y);
+		super(GeometryAssets.get("/geomDefs/spikey.geom", -.5, 0), x, y);
 		this.target = target;
 		firstUpdate = true;
 	}
@@ -39,7 +39,7 @@ public class Follow extends Enemy {
 	 * @param entryAngle angle at which to enter the screen
 	 */
 	public Follow(Player player, double entryAngle) {
-		this(State_Game.spawnRadius * Math.cos(entryAngle) + player.x, State_Game.spawnRadius * Math.sin(entryAngle) + player.y, player);
+		this(State_Game.spawnRadius * Math.cos(entryAngle) + player.getX(), State_Game.spawnRadius * Math.sin(entryAngle) + player.getY(), player);
 		this.entryAngle = entryAngle;
 	}
 
@@ -47,21 +47,19 @@ public class Follow extends Enemy {
 	public void update(){
 		//If this is the first update, put the object back at its intended original position
 		if (firstUpdate){
-			x = State_Game.spawnRadius * Math.cos(entryAngle) + target.x;
-			y = State_Game.spawnRadius * Math.sin(entryAngle) + target.y;
+			setX(State_Game.spawnRadius * Math.cos(entryAngle) + target.getX());
+			setY(State_Game.spawnRadius * Math.sin(entryAngle) + target.getY());
 			firstUpdate = false;
 		}
 		//Calculate and set this objects rotation to be facing the player
-		double dx = target.x- this.x;
-		double dy =  target.y -this.y;
-		rot = GameObject.getAngle(dx, dy);
+		double dx = target.getX()- getX();
+		double dy =  target.getY() -getY();
+		double rot = GameObject.getAngle(dx, dy);
+		setRot(rot);
 		
 		//Update the velocity to be towards the player
-		vx = 120 * Math.cos(rot);
-		vy = 120 * Math.sin(rot);
-		
-		//Call GameObject update()
-		super.update();
+		setVX(120 * Math.cos(rot));
+		setVY(120 * Math.sin(rot));
 	}
 	
 	
@@ -1,9 +1,13 @@
 package gameObjects;
 
 import java.util.ArrayList;
+import java.util.Random;
 import java.util.Scanner;
 
+import main.Draw;
+import main.Profiler;
 import main.Start;
+import main.Workers;
 import main.Sounds;
 import main.VectorGeometry;
 
@@ -15,12 +19,43 @@ import main.VectorGeometry;
  */
 public abstract class GameObject {
 	
-	//List of all active GameObjects
-	private static ArrayList<GameObject> gameObjects;
-
-	//Queues to avoid adding or removing objects in the middle of an update sequence
-	private static ArrayList<GameObject> queue;
-	private static ArrayList<GameObject> removeQueue;
+	//All active GameObjects, objects are added and removed at the end of an update sequence
+	private static EntityStore gameObjects = new EntityStore();
+	//Whether a game is running, objects can only be added and removed while it is
+	private static boolean running;
+	//The same objects sorted into the layers they are drawn in
+	private static RenderLayers layers = new RenderLayers();
+	
+	//Moves objects in and out of the KinematicStore and pools as the EntityStore adds and removes them
+	private static EntityStore.Listener storeListener = new EntityStore.Listener(){
+		@Override
+		public void added(GameObject o){
+			kinematics.setActive(o.slot, true);
+			layers.add(o);
+		}
+		@Override
+		public void removed(GameObject o){
+			layers.remove(o);
+			kinematics.setActive(o.slot, false);
+			if (!o.released && !o.keepStateWhenRemoved()){
+				kinematics.release(o.slot);
+				o.released = true;
+				o.recycle();
+			}
+		}
+	};
+	
+	//Broadphase used to find colliding objects in checkCollisions()
+	private static SweepAndPrune broadphase = new SweepAndPrune();
+	
+	//Position, velocity and rotation of every GameObject
+	private static KinematicStore kinematics = new KinematicStore();
+	
+	//Updates the objects that can be updated in parallel on the Workers pool
+	private static ParallelUpdate parallelUpdate = new ParallelUpdate();
+	
+	//Random numbers used by the game, seeded so that a game can be played again exactly
+	private static Random random = new Random();
 	
 	//Stores the score for this game
 	protected static int score;
@@ -28,21 +63,34 @@ public abstract class GameObject {
 	//The geometry (shape) of this GameObject
 	protected VectorGeometry geom;
 	
-	//Position
-	protected double x;
-	protected double y;
+	/*
+	 * Color and alpha this object is drawn with. The color multiplies the geometry's color, so the
+	 * geometry can be shared and never has to be rebuilt to fade or tint one object.
+	 */
+	private double tintR = 1;
+	private double tintG = 1;
+	private double tintB = 1;
+	private double alpha = 1;
 	
-	//Velocity
-	protected double vx;
-	protected double vy;
+	/*
+	 * Slot holding this object's position, velocity, rotation and velocity of rotation in the
+	 * KinematicStore, read and written through the accessor methods below
+	 * 
+	 * released is set once the slot has been given back to the store. Pooled objects get a new slot
+	 * each time they are reused.
+	 */
+	protected int slot;
+	private boolean released;
 	
-	//Rotation and velocity of rotation
-	protected double rot;
-	protected double vRot;
+	//Handle in the EntityStore, -1 when not in it, and whether a removal is waiting to be made
+	int handle = -1;
+	boolean removing;
+	//Layer this object is drawn in and its index there, -1 when it is in no layer
+	int layer;
+	int layerIndex = -1;
 	
-	//Handles to OpenAL sound sources, used to play sound
+	//Handles to sound emitters, used to play sound
 	protected int shotSource;
-	protected int killedSource;
 	protected int hurtSource;
 
 	/**
@@ -52,13 +100,7 @@ public abstract class GameObject {
 	 * @param y Initial y position
 	 */
 	public GameObject(String geomPath, double x, double y){
-		geom = new VectorGeometry(new Scanner(this.getClass().getResourceAsStream(geomPath)));
-		this.x = x;
-		this.y = y;
-		this.vx = 0;
-		this.vy = 0;
-		rot = 0;
-		vRot = 0;
+		this(new VectorGeometry(new Scanner(GameObject.class.getResourceAsStream(geomPath))), x, y);
 	}
 	
 	/**
@@ -68,34 +110,105 @@ public abstract class GameObject {
 	 * @param y initial y position
 	 */
 	public GameObject(VectorGeometry g, double x, double y){
+		reinit(g, x, y);
+	}
+	
+	/**
+	 * Creates an object with no slot for a Pool, reinit() must be called before it is used
+	 */
+	protected GameObject(){
+		slot = -1;
+		released = true;
+	}
+	
+	/**
+	 * Resets this object as if it had just been created, used when an object is taken from a Pool
+	 * @param g pre-created VectorGeometry for this object
+	 * @param x initial x position
+	 * @param y initial y position
+	 */
+	protected void reinit(VectorGeometry g, double x, double y){
 		geom = g;
-		this.x = x;
-		this.y = y;
-		this.vx = 0;
-		this.vy = 0;
-		rot = 0;
-		vRot = 0;
+		slot = kinematics.allocate();
+		released = false;
+		kinematics.x[slot] = x;
+		kinematics.y[slot] = y;
+		shotSource = hurtSource = 0;
+		tintR = tintG = tintB = alpha = 1;
+	}
+	
+	/**
+	 * Called once this object has been removed from the game and its slot released, pooled objects
+	 * give themselves back to their Pool here. Does nothing unless overridden.
+	 */
+	protected void recycle(){
 	}
 	
 	/**
-	 * Updates the game object's state, modifies position and rotation according to velocity
+	 * Updates the game object's state. Position and rotation are moved according to velocity
+	 * for all objects at once by integrate(), after every object has been updated.
 	 */
 	public void update(){
-		x += vx * Start.deltaTime()/1000.0;
-		y += vy * Start.deltaTime()/1000.0;
-		rot += vRot * Start.deltaTime()/1000.0;
-		rot %= 2 * Math.PI;
 	}
 	
 	/**
-	 * Renders this GameObject with its current rotation and at its current position
+	 * Whether update() can run at the same time as other objects' updates, on another thread. Such an update
+	 * may only change this object's own state, read objects that do not update in parallel, and call
+	 * addObject(), removeObject() and requestSpawn(). It must not create objects or play sounds, that is
+	 * left to spawn(). Objects that do not update in parallel have all been updated before the first
+	 * parallel update starts, so what it reads is the same on any number of threads. It must not read
+	 * other objects that update in parallel, which may be moving themselves at the same time. False unless
+	 * overridden.
+	 */
+	protected boolean updatesInParallel(){
+		return false;
+	}
+	
+	/**
+	 * Asks for spawn() to be called once this object's update has finished. Called straight away when
+	 * updating on one thread, otherwise after every object has been updated, in the order the objects
+	 * were updated in.
+	 */
+	protected void requestSpawn(){
+		if (!ParallelUpdate.recordSpawn(this)) spawn();
+	}
+	
+	/**
+	 * Creates the objects and plays the sounds asked for by requestSpawn(), always called on the thread
+	 * that runs the game. Does nothing unless overridden.
+	 */
+	protected void spawn(){
+	}
+	
+	/**
+	 * Renders this GameObject between its position and rotation at the last two ticks
 	 */
 	public void render(){
 		if (geom == null){
 			GameObject.removeObject(this);
 			return;
 		}
-		geom.rotate(rot).render(x, y);
+		Draw.geometry(geom, getRenderX(), getRenderY(), getRenderRot(), tintR, tintG, tintB, alpha);
+	}
+	
+	/**
+	 * Whether any of this object could be drawn inside the given rectangle, tested with a circle around
+	 * the position it is drawn at. Objects with no geometry are always in view, so render() can remove them.
+	 */
+	public boolean isInView(double minX, double minY, double maxX, double maxY){
+		if (geom == null) return true;
+		double r = getCullRadius();
+		double x = getRenderX();
+		double y = getRenderY();
+		return x + r >= minX && x - r <= maxX && y + r >= minY && y - r <= maxY;
+	}
+	
+	/**
+	 * @return Radius around this object's position that everything it draws is inside, the geometry's
+	 * bounding radius plus half the width of the stroke unless overridden
+	 */
+	protected double getCullRadius(){
+		return geom.getBoundingRadius() + geom.getWeight() / 2;
 	}
 	
 	/**
@@ -103,14 +216,129 @@ public abstract class GameObject {
 	 * @return Current x position
 	 */
 	public double getX(){
-		return x;
+		return kinematics.x[slot];
 	}
 	/**
 	 * 
 	 * @return Current y position
 	 */
 	public double getY(){
-		return y;
+		return kinematics.y[slot];
+	}
+	/**
+	 * 
+	 * @return Current x velocity
+	 */
+	public double getVX(){
+		return kinematics.vx[slot];
+	}
+	/**
+	 * 
+	 * @return Current y velocity
+	 */
+	public double getVY(){
+		return kinematics.vy[slot];
+	}
+	/**
+	 * 
+	 * @return Current rotation in radians
+	 */
+	public double getRot(){
+		return kinematics.rot[slot];
+	}
+	/**
+	 * 
+	 * @return Current velocity of rotation in radians per second
+	 */
+	public double getVRot(){
+		return kinematics.vRot[slot];
+	}
+	
+	/**
+	 * 
+	 * @return x position to draw at, between the last two ticks
+	 */
+	public double getRenderX(){
+		return kinematics.lerpX(slot, Start.alpha());
+	}
+	/**
+	 * 
+	 * @return y position to draw at, between the last two ticks
+	 */
+	public double getRenderY(){
+		return kinematics.lerpY(slot, Start.alpha());
+	}
+	/**
+	 * 
+	 * @return Rotation to draw with, between the last two ticks
+	 */
+	public double getRenderRot(){
+		return kinematics.lerpRot(slot, Start.alpha());
+	}
+	
+	//Modify position, velocity and rotation
+	protected void setX(double x){
+		kinematics.x[slot] = x;
+	}
+	protected void setY(double y){
+		kinematics.y[slot] = y;
+	}
+	protected void setVX(double vx){
+		kinematics.vx[slot] = vx;
+	}
+	protected void setVY(double vy){
+		kinematics.vy[slot] = vy;
+	}
+	protected void setRot(double rot){
+		kinematics.rot[slot] = rot;
+	}
+	protected void setVRot(double vRot){
+		kinematics.vRot[slot] = vRot;
+	}
+	
+	/**
+	 * Sets the factors the geometry's color is multiplied by when this object is drawn, 1 for no change
+	 */
+	public void setTint(double r, double g, double b){
+		tintR = r;
+		tintG = g;
+		tintB = b;
+	}
+	public double getTintR(){
+		return tintR;
+	}
+	public double getTintG(){
+		return tintG;
+	}
+	public double getTintB(){
+		return tintB;
+	}
+	
+	/**
+	 * Sets how opaque this object is drawn, from 0 for invisible to 1
+	 */
+	public void setAlpha(double a){
+		alpha = a;
+	}
+	public double getAlpha(){
+		return alpha;
+	}
+	
+	/**
+	 * The layer this object is drawn in, read once when it is added to the game
+	 * @return One of the RenderLayers constants, ENEMIES unless overridden
+	 */
+	public int getLayer(){
+		return RenderLayers.ENEMIES;
+	}
+	
+	/**
+	 * Whether this object's position and velocity are still needed after it has been removed from the game.
+	 * If not, its slot in the KinematicStore is given to another object.
+	 * @return false unless overridden
+	 */
+	protected boolean keepStateWhenRemoved(){
+		return false;
 	}
 	
 	/**
@@ -126,37 +354,30 @@ public abstract class GameObject {
 	 */
 	public void split(double impactVX, double impactVY){
 		//Play killed sound
-		killedSource = Sounds.genSource(Sounds.KILLED, this.x, this.y, this.vx, this.vy);
-		Sounds.playSound(killedSource);
+		double x = getX();
+		double y = getY();
+		double vx = getVX();
+		double vy = getVY();
+		double rot = getRot();
+		Sounds.playOnce(Sounds.KILLED, x, y, vx, vy);
 		
-		//Free memory used by sound sources
+		//Free the sound emitters, sounds they are playing finish first
 		Sounds.deleteSource(shotSource);
 		Sounds.deleteSource(hurtSource);
 		
 		//Split this object's geometry into pieces and create Piece objects
 		ArrayList<GameObject> peices = new ArrayList<GameObject>();
-		VectorGeometry[] geoms = geom.split();
-		
-		/* Attach the handle to the killed sound to one of the peices so that it will finish 
-		 * playing before being destroyed to clear memory
-		 * 
-		 */
-		Piece peice = new Piece(geoms[0], x, y, 5000, killedSource);
-		//Add some variation in velocity to the Piece
-		peice.vx = vx + impactVX/2 + Math.random() * 20;
-		peice.vy = vy + impactVY/2 + Math.random() * 20;
-		peice.rot = rot;
-		peices.add(peice);
+		VectorGeometry[] geoms = geom.split(random);
 		
 		/*
 		 * Create a Piece using each element of geoms, which is an array of
 		 * the pieces of this object's original geometry
 		 */
-		for (int i = 1; i < geoms.length; i++){
-			peice = new Piece(geoms[i], x, y, 5000);
-			peice.vx = vx + impactVX/2 + Math.random() * 20;
-			peice.vy = vy + impactVY/2 + Math.random() * 20;
-			peice.rot = rot;
+		for (int i = 0; i < geoms.length; i++){
+			Piece peice = Piece.obtain(geoms[i], x, y, 5000);
+			peice.setVX(vx + impactVX/2 + random.nextDouble() * 20);
+			peice.setVY(vy + impactVY/2 + random.nextDouble() * 20);
+			peice.setRot(rot);
 			peices.add(peice);
 		}
 		//Add all the peices, remove this object
@@ -171,9 +392,8 @@ public abstract class GameObject {
 	 * @return Whether the object was sucessfully added
 	 */
 	public static boolean addObject(GameObject o){
-		if (gameObjects == null) return false;
-		
-		queue.add(o);
+		if (!running) return false;
+		if (!ParallelUpdate.recordAdd(o)) gameObjects.add(o);
 		return true;
 	}
 	
@@ -184,83 +404,184 @@ public abstract class GameObject {
 	 * @return Whether the objects were successfully added
 	 */
 	public static boolean addAllObjects(ArrayList<GameObject> os){
-		if(gameObjects == null) return false;
-		return queue.addAll(os);
+		if (!running) return false;
+		for (int i = 0; i < os.size(); i++) addObject(os.get(i));
+		return true;
 	}
 	
 	/**
-	 * Initialize the GameObject list and queues when the game starts
-	 * @param gos Reference to the list of GameObjects
+	 * Initialize the GameObject list when the game starts
+	 * @param gos The objects the game starts with
 	 */
 	public static void initGameObjectList(ArrayList<GameObject> gos){
-		gameObjects = gos;
-		queue = new ArrayList<GameObject>();
-		removeQueue = new ArrayList<GameObject>();
+		gameObjects.clear(null);
+		layers.clear();
+		running = true;
+		addAllObjects(gos);
+		gameObjects.apply(storeListener);
 		score = 0;
 	}
 	
 	/**
-	 * Finds the last index of a Piece in the GameObject list so that other objects
-	 * can be added on top
-	 * @return index of the last Piece in the GameObject list
-	 */
-	public static int lastPeiceIndex(){
-		for (int i = gameObjects.size()-1; i >= 0; i--){
-			if (gameObjects.get(i) instanceof Piece) return i;
-		}
-		return -1;
-	}
-	
-	/**
-	 * Destroy the GameObject lists when the game ends
+	 * Destroy the GameObject lists when the game ends, frees the state of every GameObject and
+	 * gives pooled objects back to their pools
 	 */
 	public static void destroyGameObjectList(){
-		gameObjects = null;
-		queue = null;
-		removeQueue = null;
+		if (running) gameObjects.clear(storeListener);
+		layers.clear();
+		running = false;
+		kinematics.clear();
 	}
 	
 	/**
-	 * Add all of the objects in the queue to the GameObject list, remove
-	 * all objects in the removeQueue from the list of GameObjects
+	 * Add all of the objects waiting to be added to the GameObject list, remove all of the
+	 * objects waiting to be removed, in one pass
 	 */
 	public static void updateQueue() {
-		queue.removeAll(removeQueue);
-		if (queue.size() > 0 && queue.get(0) instanceof Piece) gameObjects.addAll(lastPeiceIndex()+1, queue);
-		else gameObjects.addAll(gameObjects.size()-1,queue);
-		queue.clear();
-		gameObjects.removeAll(removeQueue);
-		removeQueue.clear();
+		gameObjects.apply(storeListener);
 	}
 	
 	/**
-	 * Add an object to the removeQueue to be removed from the GameObject
+	 * Add an object to the queue to be removed from the GameObject
 	 * list when this update sequence ends
 	 * @param o object to be removed
 	 * @return Whether the object was successfully added to the queue
 	 */
 	public static boolean removeObject(GameObject o){
-		if (gameObjects == null) return false;
-		removeQueue.add(o);
+		if (!running) return false;
+		if (!ParallelUpdate.recordRemove(o)) gameObjects.remove(o);
 		return true;
 	}
 	
 	/**
-	 * Check for and handle collisions between objects
+	 * Updates every GameObject. Objects that can't be updated in parallel are updated first, in order on
+	 * this thread, then the rest are split between the Workers threads. The result is the same for any
+	 * number of threads.
+	 */
+	public static void updateObjects(){
+		for (int i = 0; i < gameObjects.size(); i++){
+			GameObject ob = gameObjects.at(i);
+			if (ob.updatesInParallel()){
+				parallelUpdate.add(ob);
+				continue;
+			}
+			long objectStart = Profiler.start();
+			ob.update();
+			Profiler.stopUpdate(ob, objectStart);
+		}
+		parallelUpdate.run();
+	}
+	
+	/**
+	 * Seeds the random numbers used by the game, a game played with the same seed and input plays out the same
+	 */
+	public static void setSeed(long seed){
+		random.setSeed(seed);
+	}
+	
+	/**
+	 * @return Random numbers used by the game, only to be used on the thread that runs the game
+	 */
+	public static Random getRandom(){
+		return random;
+	}
+	
+	/**
+	 * @return Number of GameObjects in the game
+	 */
+	public static int getObjectCount(){
+		return gameObjects.size();
+	}
+	
+	/**
+	 * Objects are in the order they were added, except that removing an object moves the last object into its place.
+	 * This is the order objects are updated in, use getInLayer() for the order they are drawn in.
+	 * @param i Index from 0 to getObjectCount() - 1
+	 * @return The GameObject at the given index
+	 */
+	public static GameObject getObject(int i){
+		return gameObjects.at(i);
+	}
+	
+	/**
+	 * @return Number of GameObjects drawn in the given layer
+	 */
+	public static int getLayerSize(int layer){
+		return layers.size(layer);
+	}
+	
+	/**
+	 * @param layer One of the RenderLayers constants
+	 * @param i Index from 0 to getLayerSize(layer) - 1
+	 * @return The GameObject at the given index of the layer
+	 */
+	public static GameObject getInLayer(int layer, int i){
+		return layers.get(layer, i);
+	}
+	
+	/**
+	 * @return Handle of this object in the list of GameObjects, -1 if it is not in the game. Stays valid
+	 * until the object is removed, after which getObject(int handle) can tell that it is gone.
+	 */
+	public int getHandle(){
+		return handle;
+	}
+	
+	/**
+	 * @param handle Handle of an object, from getHandle()
+	 * @return The object, or null if it has been removed from the game
+	 */
+	public static GameObject getByHandle(int handle){
+		return gameObjects.get(handle);
+	}
+	
+	/**
+	 * Remembers where every object is at the start of a tick, so rendering can interpolate from there
+	 */
+	public static void saveState(){
+		kinematics.saveState();
+	}
+	
+	/**
+	 * Moves every object in the game according to its velocity and velocity of rotation
+	 */
+	public static void integrate(){
+		kinematics.integrate(Start.deltaTime());
+	}
+	
+	/**
+	 * Check for and handle collisions between objects. Every colliding pair is found first, on the Workers
+	 * threads, then the pairs are handled on this thread in the order of the all pairs loop.
 	 */
 	public static void checkCollisions(){
-		if (gameObjects == null) return;
+		if (!running) return;
+		broadphase.build(gameObjects);
+		int numPairs = broadphase.findPairs(Workers.getPool());
+		for (int i = 0; i < numPairs; i++){
+			GameObject g1 = broadphase.first(i);
+			GameObject g2 = broadphase.second(i);
+			g1.collide(g2);
+			g2.collide(g1);
+		}
+		broadphase.clear();
+	}
+	
+	/**
+	 * Check for and handle collisions by testing every pair of objects, gives the same result as
+	 * checkCollisions(), kept to compare against the broadphase
+	 */
+	public static void checkCollisionsBruteForce(){
+		if (!running) return;
 		for (int i = 0; i < gameObjects.size()-1; i++){
 			for (int j = i+1; j < gameObjects.size(); j++){
-				GameObject g1 = gameObjects.get(i);
-				GameObject g2 = gameObjects.get(j);
+				GameObject g1 = gameObjects.at(i);
+				GameObject g2 = gameObjects.at(j);
 				
 				//If either object is a Piece, ignore the collision
 				if (!(g1 instanceof Piece || g2 instanceof Piece)){
 					
 					//If the distance between the object is less than the sum of radiuses of their geometries, do a collision
-					double dist = Math.sqrt(Math.pow(g1.x - g2.x, 2) + Math.pow(g1.y - g2.y, 2));
-					if (dist < g1.geom.getAverageRadius() + g2.geom.getAverageRadius()){
+					if (overlaps(g1.getX(), g1.getY(), g1.geom.getAverageRadius(), g2.getX(), g2.getY(), g2.geom.getAverageRadius())){
 						g1.collide(g2);
 						g2.collide(g1);
 					}
@@ -269,6 +590,17 @@ public abstract class GameObject {
 		}
 	}
 	
+	/**
+	 * Collision test between two circles
+	 * @return Whether the distance between the centers is less than the sum of the radii
+	 */
+	static boolean overlaps(double x1, double y1, double r1, double x2, double y2, double r2){
+		double dx = x1 - x2;
+		double dy = y1 - y2;
+		double r = r1 + r2;
+		return dx * dx + dy * dy < r * r;
+	}
+	
 	/**
 	 * Utility method to find the angle between two points
 	 * @param dx distance between the points on the x axis
@@ -304,4 +636,18 @@ public abstract class GameObject {
 	public static int getScore() {
 		return score * 10;
 	}
+	
+	/**
+	 * 
+	 * @param type A kind of GameObject
+	 * @return Number of objects of that kind in the game
+	 */
+	public static int count(Class<? extends GameObject> type){
+		if (!running) return 0;
+		int count = 0;
+		for (int i = 0; i < gameObjects.size(); i++){
+			if (type.isInstance(gameObjects.at(i))) count++;
+		}
+		return count;
+	}
 }
@@ -1,8 +1,8 @@
 package gameObjects;
 
+import main.GeometryAssets;
 import main.Start;
 import main.State_Game;
-import main.VectorGeometry;
 import main.Vertex;
 /**
  * Represents an enemy which accelerates towards the player
@@ -26,8 +26,8 @@ public class Gravimetric extends Enemy {
 	 * @param entryAngle angle at which to enter the screen
 	 */
 	public Gravimetric(Player p, double entryAngle) {
-		super(new VectorGeometry("/geomDefs/asteroid.geom"), State_Game.spawnRadius * Math.cos(entryAngle) + p.x,
-				State_Game.spawnRadius * Math.sin(entryAngle) + p.y);
+		super(GeometryAssets.get("/geomDefs/asteroid.geom"), State_Game.spawnRadius * Math.cos(entryAngle) + p.getX(),
+				State_Game.spawnRadius * Math.sin(entryAngle) + p.getY());
 		center = p;
 		firstUpdate = true;
 		this.entryAngle = entryAngle;
@@ -40,21 +40,19 @@ public class Gravimetric extends Enemy {
 	public void update(){
 		//Reset the objects posion on first update
 		if (firstUpdate){
-			x = State_Game.spawnRadius * Math.cos(entryAngle) + center.x;
-			y = State_Game.spawnRadius * Math.sin(entryAngle) + center.y;
+			setX(State_Game.spawnRadius * Math.cos(entryAngle) + center.getX());
+			setY(State_Game.spawnRadius * Math.sin(entryAngle) + center.getY());
 			firstUpdate = false;
 		}
 		//Find angle and distance to player
-		double angleToPlayer = GameObject.getAngle(center.x - this.x, center.y - this.y);
-		double distance = new Vertex(center.x, center.y).distance(new Vertex(this.x, this.y));
+		double angleToPlayer = GameObject.getAngle(center.getX() - getX(), center.getY() - getY());
+		double distance = new Vertex(center.getX(), center.getY()).distance(new Vertex(getX(), getY()));
 		
 		//Accelerate towards the player, accelerate more if the player is further away
-		vx += Start.deltaTime() * GRAV_FACTOR * distance * Math.cos(angleToPlayer);
-		vy += Start.deltaTime() * GRAV_FACTOR * distance * Math.sin(angleToPlayer);
+		setVX(getVX() + Start.deltaTime() * GRAV_FACTOR * distance * Math.cos(angleToPlayer));
+		setVY(getVY() + Start.deltaTime() * GRAV_FACTOR * distance * Math.sin(angleToPlayer));
 		
-		rot = angleToPlayer;
-		
-		super.update();
+		setRot(angleToPlayer);
 	}
 
 }
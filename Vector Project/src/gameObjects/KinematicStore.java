@@ -0,0 +1,214 @@
+package gameObjects;
+
+import java.util.Arrays;
+
+/**
+ * Stores the position, velocity and rotation of every GameObject in parallel arrays, indexed by
+ * a slot given to each object when it is created. Velocities of all active objects are integrated
+ * in one loop by integrate(). Positions and rotations from the start of the last tick are kept so
+ * rendering can interpolate between ticks.
+ * @author Henry
+ *
+ */
+public class KinematicStore {
+
+	//Position
+	double[] x;
+	double[] y;
+
+	//Velocity
+	double[] vx;
+	double[] vy;
+
+	//Rotation and velocity of rotation
+	double[] rot;
+	double[] vRot;
+
+	//Position and rotation at the start of the current tick, saved by saveState()
+	double[] prevX;
+	double[] prevY;
+	double[] prevRot;
+
+	//Whether a slot belongs to an object, and whether that object is in the game and should be integrated
+	private boolean[] allocated;
+	private boolean[] active;
+
+	//Slots that have been released and can be given out again
+	private int[] free;
+	private int numFree;
+
+	//Number of slots that have ever been given out, all allocated slots are below this
+	private int size;
+
+	public KinematicStore(){
+		this(256);
+	}
+
+	/**
+	 * @param capacity Number of slots to allocate memory for up front
+	 */
+	public KinematicStore(int capacity){
+		x = new double[capacity];
+		y = new double[capacity];
+		vx = new double[capacity];
+		vy = new double[capacity];
+		rot = new double[capacity];
+		vRot = new double[capacity];
+		prevX = new double[capacity];
+		prevY = new double[capacity];
+		prevRot = new double[capacity];
+		allocated = new boolean[capacity];
+		active = new boolean[capacity];
+		free = new int[capacity];
+		numFree = 0;
+		size = 0;
+	}
+
+	/**
+	 * Gives out a slot with everything set to 0, the slot starts inactive
+	 * @return The slot
+	 */
+	public int allocate(){
+		int slot;
+		if (numFree > 0) slot = free[--numFree];
+		else {
+			if (size == x.length) grow();
+			slot = size++;
+		}
+		x[slot] = y[slot] = vx[slot] = vy[slot] = rot[slot] = vRot[slot] = 0;
+		prevX[slot] = prevY[slot] = prevRot[slot] = 0;
+		allocated[slot] = true;
+		active[slot] = false;
+		return slot;
+	}
+
+	/**
+	 * Returns a slot so it can be given out again, does nothing if the slot is not allocated
+	 * @param slot Slot to release
+	 */
+	public void release(int slot){
+		if (!allocated[slot]) return;
+		allocated[slot] = false;
+		active[slot] = false;
+		free[numFree++] = slot;
+	}
+
+	/**
+	 * Sets everything stored in the given slot
+	 */
+	public void set(int slot, double x, double y, double vx, double vy, double rot, double vRot){
+		this.x[slot] = x;
+		this.y[slot] = y;
+		this.vx[slot] = vx;
+		this.vy[slot] = vy;
+		this.rot[slot] = rot;
+		this.vRot[slot] = vRot;
+	}
+
+	/**
+	 * Sets whether the given slot is moved by integrate(). A slot that becomes active starts its
+	 * interpolation from where it is now, so it does not appear to move from where it was created.
+	 */
+	public void setActive(int slot, boolean isActive){
+		if (isActive && !active[slot]){
+			prevX[slot] = x[slot];
+			prevY[slot] = y[slot];
+			prevRot[slot] = rot[slot];
+		}
+		active[slot] = isActive;
+	}
+
+	/**
+	 * Remembers the position and rotation of every slot, called at the start of each tick
+	 */
+	public void saveState(){
+		System.arraycopy(x, 0, prevX, 0, size);
+		System.arraycopy(y, 0, prevY, 0, size);
+		System.arraycopy(rot, 0, prevRot, 0, size);
+	}
+
+	/**
+	 * @param alpha Fraction of a tick since the last tick, between 0 and 1
+	 * @return x coordinate of the slot between its saved and current position
+	 */
+	public double lerpX(int slot, double alpha){
+		return prevX[slot] + (x[slot] - prevX[slot]) * alpha;
+	}
+
+	/**
+	 * @param alpha Fraction of a tick since the last tick, between 0 and 1
+	 * @return y coordinate of the slot between its saved and current position
+	 */
+	public double lerpY(int slot, double alpha){
+		return prevY[slot] + (y[slot] - prevY[slot]) * alpha;
+	}
+
+	/**
+	 * Interpolates the rotation the short way around, rotations wrap at 2 PI
+	 * @param alpha Fraction of a tick since the last tick, between 0 and 1
+	 * @return Rotation of the slot between its saved and current rotation
+	 */
+	public double lerpRot(int slot, double alpha){
+		double d = rot[slot] - prevRot[slot];
+		if (d > Math.PI) d -= 2 * Math.PI;
+		else if (d < -Math.PI) d += 2 * Math.PI;
+		return prevRot[slot] + d * alpha;
+	}
+
+	/**
+	 * Releases every slot
+	 */
+	public void clear(){
+		Arrays.fill(allocated, 0, size, false);
+		Arrays.fill(active, 0, size, false);
+		numFree = 0;
+		size = 0;
+	}
+
+	/**
+	 * Moves every active slot according to its velocity
+	 * @param deltaTime Time to move for, in milliseconds
+	 */
+	public void integrate(double deltaTime){
+		double[] x = this.x;
+		double[] y = this.y;
+		double[] vx = this.vx;
+		double[] vy = this.vy;
+		double[] rot = this.rot;
+		double[] vRot = this.vRot;
+		boolean[] active = this.active;
+		for (int i = 0; i < size; i++){
+			if (!active[i]) continue;
+			x[i] += vx[i] * deltaTime/1000.0;
+			y[i] += vy[i] * deltaTime/1000.0;
+			rot[i] += vRot[i] * deltaTime/1000.0;
+			rot[i] %= 2 * Math.PI;
+		}
+	}
+
+	/**
+	 * @return Number of slots currently given out
+	 */
+	public int getCount(){
+		return size - numFree;
+	}
+
+	/**
+	 * Doubles the size of the arrays
+	 */
+	private void grow(){
+		int capacity = x.length * 2;
+		x = Arrays.copyOf(x, capacity);
+		y = Arrays.copyOf(y, capacity);
+		vx = Arrays.copyOf(vx, capacity);
+		vy = Arrays.copyOf(vy, capacity);
+		rot = Arrays.copyOf(rot, capacity);
+		vRot = Arrays.copyOf(vRot, capacity);
+		prevX = Arrays.copyOf(prevX, capacity);
+		prevY = Arrays.copyOf(prevY, capacity);
+		prevRot = Arrays.copyOf(prevRot, capacity);
+		allocated = Arrays.copyOf(allocated, capacity);
+		active = Arrays.copyOf(active, capacity);
+		free = Arrays.copyOf(free, capacity);
+	}
+}
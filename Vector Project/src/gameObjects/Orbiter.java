@@ -1,9 +1,9 @@
 package gameObjects;
 
+import main.GeometryAssets;
 import main.Start;
 import main.Sounds;
 import main.State_Game;
-import main.VectorGeometry;
 
 /**
  * Represents an enemy that orbits and shoots at the player
@@ -38,7 +38,7 @@ public class Orbiter extends Enemy {
 	 * @param entryAngle Angle to enter the screen at in radians
 	 */
 	public Orbiter(GameObject center, double radius, double velocity, double fireRate, double entryAngle) {
-		super(new VectorGeometry("/geomDefs/ship.geom").scale(-.5).rotate(-Math.PI/2), 0, 0);
+		super(GeometryAssets.get("/geomDefs/ship.geom", -.5, -Math.PI/2), 0, 0);
 		c = center;
 		
 		this.velocity = velocity / 1000;
@@ -49,7 +49,7 @@ public class Orbiter extends Enemy {
 		fireDelay = fireRate;
 		this.fireRate = fireRate;
 		
-		shotSource = Sounds.genSource(Sounds.SHOT, x, y, vx, vy);
+		shotSource = Sounds.genSource(Sounds.SHOT, getX(), getY(), getVX(), getVY());
 	
 	}
 
@@ -68,8 +68,8 @@ public class Orbiter extends Enemy {
 	@Override
 	public void update() {
 		//Set the position according to a parametric equation
-		x = radius * Math.cos(time * velocity / radius + offSet) + c.getX();
-		y = radius * Math.sin(time * velocity / radius + offSet) + c.getY();
+		setX(radius * Math.cos(time * velocity / radius + offSet) + c.getX());
+		setY(radius * Math.sin(time * velocity / radius + offSet) + c.getY());
 		
 		//If the radius is at the target radius, set the radius to the target radius
 		if (radius <= targetRadius) radius = targetRadius;
@@ -81,18 +81,26 @@ public class Orbiter extends Enemy {
 		time %= 2 * Math.PI * radius / velocity;
 		
 		//Set the rotation to be facing the player
-		rot = GameObject.getAngle(c.x - this.x, c.y - this.y);
+		setRot(GameObject.getAngle(c.getX() - getX(), c.getY() - getY()));
 		
-		//If the object can fire, create a new bullet and play the firing sound
+		//If the object can fire, ask for a bullet to be fired once this update is over
 		if (fireDelay <= 0){
-			GameObject.addObject(new Bullet(this, 10, 3000));
+			requestSpawn();
 			fireDelay = fireRate;
-			Sounds.updateSource(shotSource, x, y, c.vx, c.vy);
-			Sounds.playSound(shotSource);
 		}
 		//Update the fire timer
 		fireDelay -= Start.deltaTime();
 		
 	}
+	
+	/**
+	 * Creates a new bullet and plays the firing sound
+	 */
+	@Override
+	protected void spawn(){
+		GameObject.addObject(Bullet.obtain(this, 10, 3000));
+		Sounds.updateSource(shotSource, getX(), getY(), c.getVX(), c.getVY());
+		Sounds.playSound(shotSource);
+	}
 
 }
@@ -0,0 +1,210 @@
+package gameObjects;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import main.Profiler;
+import main.Workers;
+
+/**
+ * Updates the GameObjects that can be updated in parallel, split into chunks of consecutive objects that
+ * run on the Workers pool. While a chunk is running, addObject(), removeObject() and requestSpawn() are
+ * recorded in the chunk's own buffer instead of being made. Once every chunk has finished the buffers are
+ * played back on the calling thread in chunk order, so the game sees the same calls in the same order as
+ * if the objects had been updated one after another on one thread.
+ *
+ * Small numbers of objects are updated as a single chunk on the calling thread, through the same buffers.
+ * @author Henry
+ *
+ */
+class ParallelUpdate {
+
+	//Fewest objects given to a chunk, fewer than two chunks' worth are updated on the calling thread
+	private static final int MIN_CHUNK = 256;
+
+	//Calls recorded in a buffer
+	private static final int ADD = 0;
+	private static final int REMOVE = 1;
+	private static final int SPAWN = 2;
+
+	//Chunk running on each thread, only set while chunks are running
+	private static final ThreadLocal<Chunk> current = new ThreadLocal<Chunk>();
+	//Whether chunks are running, so calls made at any other time skip looking up the chunk
+	private static boolean running;
+
+	//Objects to update this tick, the first count are used
+	private GameObject[] objects = new GameObject[256];
+	private int count;
+
+	private Chunk[] chunks = {new Chunk()};
+	private int numChunks;
+
+	//Forks every chunk but the first, runs the first itself and then waits for the others
+	private final RecursiveAction root = new RecursiveAction(){
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected void compute(){
+			for (int i = 1; i < numChunks; i++){
+				chunks[i].reinitialize();
+				chunks[i].fork();
+			}
+			chunks[0].update();
+			for (int i = numChunks - 1; i > 0; i--) chunks[i].join();
+		}
+	};
+
+	/**
+	 * Adds an object to be updated by the next run(), objects are updated in the order they are added
+	 */
+	public void add(GameObject o){
+		if (count == objects.length) objects = Arrays.copyOf(objects, count * 2);
+		objects[count++] = o;
+	}
+
+	/**
+	 * Updates every object added since the last run, then makes the calls they recorded
+	 */
+	public void run(){
+		if (count == 0) return;
+		//Up to 4 chunks a thread, so threads that finish early can take work from the others
+		ForkJoinPool pool = Workers.getPool();
+		numChunks = pool == null ? 1 : Math.max(1, Math.min(pool.getParallelism() * 4, count / MIN_CHUNK));
+		if (numChunks > chunks.length){
+			int old = chunks.length;
+			chunks = Arrays.copyOf(chunks, numChunks);
+			for (int i = old; i < numChunks; i++) chunks[i] = new Chunk();
+		}
+		for (int i = 0; i < numChunks; i++){
+			chunks[i].from = (int)((long)count * i / numChunks);
+			chunks[i].to = (int)((long)count * (i + 1) / numChunks);
+		}
+		running = true;
+		try {
+			//A single chunk runs on the calling thread without the pool
+			if (numChunks == 1) chunks[0].update();
+			else {
+				root.reinitialize();
+				pool.invoke(root);
+			}
+		} finally {
+			running = false;
+		}
+
+		for (int i = 0; i < numChunks; i++) chunks[i].playBack();
+		Arrays.fill(objects, 0, count, null);
+		count = 0;
+	}
+
+	/**
+	 * Records a call in the buffer of the chunk running on this thread
+	 * @return Whether it was recorded, false if no chunk is running on this thread and the call should be made now
+	 */
+	private static boolean record(int call, GameObject o){
+		if (!running) return false;
+		Chunk c = current.get();
+		if (c == null) return false;
+		c.record(call, o);
+		return true;
+	}
+	static boolean recordAdd(GameObject o){
+		return record(ADD, o);
+	}
+	static boolean recordRemove(GameObject o){
+		return record(REMOVE, o);
+	}
+	static boolean recordSpawn(GameObject o){
+		return record(SPAWN, o);
+	}
+
+	/**
+	 * A range of the objects to update, with the calls they made
+	 */
+	private class Chunk extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		int from;
+		int to;
+
+		//Calls recorded while updating and the object each was made with
+		private int[] calls = new int[16];
+		private GameObject[] args = new GameObject[16];
+		private int numCalls;
+
+		//Kinds of object updated while the Profiler is on, with the time spent updating each and how many were
+		//updated, added to the Profiler by playBack() because it can only be used on one thread
+		private Class<?>[] types = new Class<?>[8];
+		private long[] typeTimes = new long[8];
+		private long[] typeCounts = new long[8];
+		private int numTypes;
+
+		@Override
+		protected void compute(){
+			update();
+		}
+
+		void update(){
+			current.set(this);
+			try {
+				boolean timed = Profiler.isEnabled();
+				for (int i = from; i < to; i++){
+					GameObject o = objects[i];
+					long start = timed ? System.nanoTime() : 0;
+					o.update();
+					if (timed) time(o.getClass(), System.nanoTime() - start);
+				}
+			} finally {
+				current.set(null);
+			}
+		}
+
+		/**
+		 * Adds the time taken to update an object to the total for its kind
+		 */
+		private void time(Class<?> c, long time){
+			int type = 0;
+			while (type < numTypes && types[type] != c) type++;
+			if (type == numTypes){
+				if (numTypes == types.length){
+					types = Arrays.copyOf(types, numTypes * 2);
+					typeTimes = Arrays.copyOf(typeTimes, numTypes * 2);
+					typeCounts = Arrays.copyOf(typeCounts, numTypes * 2);
+				}
+				types[numTypes++] = c;
+			}
+			typeTimes[type] += time;
+			typeCounts[type]++;
+		}
+
+		void record(int call, GameObject o){
+			if (numCalls == calls.length){
+				calls = Arrays.copyOf(calls, numCalls * 2);
+				args = Arrays.copyOf(args, numCalls * 2);
+			}
+			calls[numCalls] = call;
+			args[numCalls++] = o;
+		}
+
+		/**
+		 * Makes every recorded call in the order it was recorded, then empties the buffer. Adds the update
+		 * times of each kind of object to the Profiler.
+		 */
+		void playBack(){
+			for (int i = 0; i < numTypes; i++){
+				Profiler.addUpdates(types[i], typeTimes[i], typeCounts[i]);
+				typeTimes[i] = typeCounts[i] = 0;
+			}
+			for (int i = 0; i < numCalls; i++){
+				switch (calls[i]){
+				case ADD: GameObject.addObject(args[i]); break;
+				case REMOVE: GameObject.removeObject(args[i]); break;
+				case SPAWN: args[i].spawn(); break;
+				}
+				args[i] = null;
+			}
+			numCalls = 0;
+		}
+	}
+}
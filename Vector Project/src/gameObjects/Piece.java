@@ -1,7 +1,6 @@
 package gameObjects;
 
 import main.Start;
-import main.Sounds;
 import main.VectorGeometry;
 /**
  * Represents a Piece of debris
@@ -12,55 +11,57 @@ public class Piece extends GameObject {
 
 	//Factor by which the piece darkens over time
 	double darkFactor;
-	//Handle to the killed sound
-	int killedSound;
-	//has the source represented by killedSound been deleted
-	boolean deleted;
+	//Fraction of the geometry's color the piece is drawn with, lowered by darkFactor every update
+	double brightness;
+	
+	//Pieces that have been removed from the game, reused by obtain()
+	private static final Pool<Piece> pool = new Pool<Piece>(){
+		@Override
+		protected Piece create(){
+			return new Piece();
+		}
+	};
 	
 	/**
-	 * General constructor
+	 * Pieces are only created by the pool
+	 */
+	private Piece(){
+	}
+	
+	/**
+	 * Takes a piece from the pool, replaces the old general constructor
 	 * @param g Geometry of this Piece
 	 * @param x Initial x position
 	 * @param y Initial y position
 	 * @param timeOut Time before the piece is deleted
+	 * @return The piece, which has not been added to the game
 	 */
-	public Piece(VectorGeometry g, double x, double y, long timeOut) {
-		super(g, x, y);
-		if (g == null) GameObject.removeObject(this);
+	public static Piece obtain(VectorGeometry g, double x, double y, long timeOut) {
+		Piece p = pool.obtain();
+		p.reinit(g, x, y);
+		if (g == null) GameObject.removeObject(p);
 		
 		//Sets the darken factor so that the piece fades out after timeOut milliseconds
-		darkFactor = 1 - Math.pow(.01, 1.0/timeOut);
-		deleted = true;
+		p.darkFactor = 1 - Math.pow(.01, 1.0/timeOut);
+		p.brightness = 1;
+		return p;
 	}
 	
 	/**
-	 * Constructor used if a sound source needs to be attached
-	 * @param vectorGeometry Geometry of this object
-	 * @param x Initial x position
-	 * @param y Initial y position
-	 * @param timeOut Time before the Piece is deleted
-	 * @param killedSource Handle to a killed sound to be deleted when it is done playing
+	 * @return The pool pieces are taken from, for reading its counts
 	 */
-	public Piece(VectorGeometry vectorGeometry, double x, double y, int timeOut, int killedSource) {
-		this(vectorGeometry, x, y, timeOut);
-		killedSound = killedSource;
-		deleted = false;
+	public static Pool<Piece> getPool(){
+		return pool;
 	}
 
 	/**
 	 * Update the state of this object
 	 */
 	public void update(){
-		this.geom = geom.darken(darkFactor * Start.deltaTime());
-		if (geom.getColor().r < .01 && geom.getColor().g < .01 && geom.getColor().b < .01) GameObject.removeObject(this);
-		super.update();
-		if (!deleted){
-			if (!Sounds.isPlaying(killedSound)){ 
-				Sounds.deleteSource(killedSound); 
-				deleted = true;
-			}
-		}
-		
+		//Darken by changing the tint, the geometry is shared with the other pieces of the split
+		brightness *= 1 - darkFactor * Start.deltaTime();
+		setTint(brightness, brightness, brightness);
+		if (geom.getRed() * brightness < .01 && geom.getGreen() * brightness < .01 && geom.getBlue() * brightness < .01) GameObject.removeObject(this);
 	}
 
 	/**
@@ -70,5 +71,29 @@ public class Piece extends GameObject {
 	public void collide(GameObject other) {
 	}
 	
-
+	/**
+	 * Goes back to the pool once removed, the geometry is dropped so it can be garbage collected
+	 */
+	@Override
+	protected void recycle(){
+		geom = null;
+		pool.release(this);
+	}
+	
+	
+	/**
+	 * Debris is drawn behind everything else
+	 */
+	@Override
+	public int getLayer(){
+		return RenderLayers.DEBRIS;
+	}
+	
+	/**
+	 * Pieces only fade themselves
+	 */
+	@Override
+	protected boolean updatesInParallel(){
+		return true;
+	}
 }
@@ -1,12 +1,13 @@
 package gameObjects;
 
+import main.Draw;
+import main.GeometryAssets;
+import main.Input;
 import main.Start;
+import main.Transform;
 import main.Sounds;
-import main.VectorGeometry;
 
 import org.lwjgl.input.Keyboard;
-import org.lwjgl.input.Mouse;
-import org.lwjgl.opengl.Display;
 
 public class Player extends GameObject {
 
@@ -21,20 +22,24 @@ public class Player extends GameObject {
 	double health;
 	boolean dead;
 	
+	//Reused to deform the player when it is drawn
+	private Transform transform;
+	
 	/**
 	 * Creates a player at the position (x,y)
 	 * @param x Initial x position
 	 * @param y Initial y position
 	 */
 	public Player(double x, double y){
-		super (new VectorGeometry("/geomDefs/geomStressTest.geom").scale(-.8),x,y);
+		super (GeometryAssets.get("/geomDefs/geomStressTest.geom", -.8, 0),x,y);
 		fireRate = 200;
 		fireDelay = fireRate;
 		health = 10000;
 		dead = false;
+		transform = new Transform();
 		
-		shotSource = Sounds.genSource(Sounds.SHOT, this.x, this.y, this.vx, this.vy);
-		hurtSource = Sounds.genSource(Sounds.HURT, x, y,vx, vy);
+		shotSource = Sounds.genSource(Sounds.SHOT, x, y, getVX(), getVY());
+		hurtSource = Sounds.genSource(Sounds.HURT, x, y, getVX(), getVY());
 	}
 	
 	/**
@@ -42,9 +47,12 @@ public class Player extends GameObject {
 	 */
 	@Override
 	public void update(){
+		double vx = getVX();
+		double vy = getVY();
+		
 		//If the player is pressing W or S accelerate to a maximum velocity in the y component of velocity
-		if (Keyboard.isKeyDown(Keyboard.KEY_W) && vy < 240) vy+=Start.deltaTime()/1000.0 * 480;
-		else if (Keyboard.isKeyDown(Keyboard.KEY_S) && vy > -240) vy-=Start.deltaTime()/1000.0 * 480;
+		if (Input.isKeyDown(Keyboard.KEY_W) && vy < 240) vy+=Start.deltaTime()/1000.0 * 480;
+		else if (Input.isKeyDown(Keyboard.KEY_S) && vy > -240) vy-=Start.deltaTime()/1000.0 * 480;
 		//Otherwise decelerate to 0 velocity on the y component of velocity
 		else{
 			if (vy < -5) vy += Start.deltaTime()/1000.0 * 480;
@@ -53,8 +61,8 @@ public class Player extends GameObject {
 					}
 		
 		//If the player is pressing A or D accelerate to a maximum velocity in the x component of velocity
-		if (Keyboard.isKeyDown(Keyboard.KEY_D) && vx < 240) vx+=Start.deltaTime()/1000.0 * 480;
-		else if (Keyboard.isKeyDown(Keyboard.KEY_A) && vx > -240) vx-=Start.deltaTime()/1000.0 * 480;
+		if (Input.isKeyDown(Keyboard.KEY_D) && vx < 240) vx+=Start.deltaTime()/1000.0 * 480;
+		else if (Input.isKeyDown(Keyboard.KEY_A) && vx > -240) vx-=Start.deltaTime()/1000.0 * 480;
 		//Otherwise decelerate to 0 velocity on the x component of velocity
 		else{
 			if (vx < -5) vx += Start.deltaTime()/1000.0 * 480;
@@ -63,18 +71,20 @@ public class Player extends GameObject {
 		}
 		
 		//Get mouse position relative to the center of the screen
-		int mouseX = Mouse.getX() - Display.getWidth()/2;
-		int mouseY = Mouse.getY() - Display.getHeight()/2;
+		int mouseX = Input.getMouseX() - Input.getWidth()/2;
+		int mouseY = Input.getMouseY() - Input.getHeight()/2;
 		//Set the player to face to mouse
-		rot = GameObject.getAngle(mouseX, mouseY);
+		setRot(GameObject.getAngle(mouseX, mouseY));
+		setVX(vx);
+		setVY(vy);
 
 		//Update the position of the sound source
-		Sounds.updateSource(shotSource, x, y, vx, vy);
-		Sounds.updateSource(hurtSource, x, y, vx, vy);
+		Sounds.updateSource(shotSource, getX(), getY(), vx, vy);
+		Sounds.updateSource(hurtSource, getX(), getY(), vx, vy);
 		
 		//If the player is pressing the left mouse button, try to fire
-		if (Mouse.isButtonDown(0) && fireDelay <=0){
-			GameObject.addObject(new Bullet(this,10, 2000));
+		if (Input.isButtonDown(0) && fireDelay <=0){
+			GameObject.addObject(Bullet.obtain(this, 10, 2000));
 			fireDelay = fireRate;
 			
 			Sounds.playSound(shotSource);
@@ -86,8 +96,6 @@ public class Player extends GameObject {
 		time += Start.deltaTime();
 		time %= Math.PI * Math.PI * 120;
 		
-		super.update();
-		
 		//Update health
 		if (health <= 0){ 
 			dead = true;
@@ -104,7 +112,25 @@ public class Player extends GameObject {
 	 */
 	@Override
 	public void render(){
-		geom.scaleX((10000-health)/10000 * .25 * Math.sin(time / Math.PI / 60) + .25).scaleY((10000-health)/10000 * .25 * Math.cos(time / Math.PI / 60) + .25).rotate(rot).render(x, y);
+		double scaleX = (10000-health)/10000 * .25 * Math.sin(time / Math.PI / 60) + 1.25;
+		double scaleY = (10000-health)/10000 * .25 * Math.cos(time / Math.PI / 60) + 1.25;
+		Draw.geometry(geom, transform.set(getRenderX(), getRenderY(), getRenderRot(), scaleX, scaleY), getTintR(), getTintG(), getTintB(), getAlpha());
+	}
+	
+	/**
+	 * The player is stretched by up to 1.5 times when it is drawn
+	 */
+	@Override
+	protected double getCullRadius(){
+		return geom.getBoundingRadius() * 1.5 + geom.getWeight() / 2;
+	}
+	
+	/**
+	 * Enemies and the camera keep following the player after it dies
+	 */
+	@Override
+	protected boolean keepStateWhenRemoved(){
+		return true;
 	}
 	
 	/**
@@ -131,10 +157,12 @@ public class Player extends GameObject {
 	public double getHealth(){
 		return health;
 	}
-	public double getVX() {
-		return vx;
-	}
-	public double getVY() {
-		return vy;
+	
+	/**
+	 * The player is drawn over every other object
+	 */
+	@Override
+	public int getLayer(){
+		return RenderLayers.PLAYER;
 	}
 }
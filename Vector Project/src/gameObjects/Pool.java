@@ -0,0 +1,109 @@
+package gameObjects;
+
+import java.util.Arrays;
+
+/**
+ * Keeps objects that have been removed from the game so they can be used again instead of creating new ones.
+ * Counts how many objects are in use at once, so the number created up front can be sized from a real game.
+ * @author Henry
+ *
+ * @param <T> Kind of object pooled
+ */
+public abstract class Pool<T> {
+
+	//Objects waiting to be used again
+	private Object[] free;
+	private int numFree;
+
+	//Objects currently in use, the most that have been in use at once, and totals since the pool was made
+	private int inUse;
+	private int highWater;
+	private long created;
+	private long reused;
+
+	public Pool(){
+		free = new Object[16];
+	}
+
+	/**
+	 * Creates a new object when the pool is empty
+	 */
+	protected abstract T create();
+
+	/**
+	 * Gives out an object that is not in use, the caller must reset everything about it
+	 * @return An object from the pool, or a new one if the pool is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public T obtain(){
+		T o;
+		if (numFree > 0){
+			o = (T)free[--numFree];
+			free[numFree] = null;
+			reused++;
+		}
+		else {
+			o = create();
+			created++;
+		}
+		inUse++;
+		if (inUse > highWater) highWater = inUse;
+		return o;
+	}
+
+	/**
+	 * Puts an object given out by obtain() back in the pool. It must not be used again until it is given out again.
+	 * @param o The object
+	 */
+	public void release(T o){
+		if (numFree == free.length) free = Arrays.copyOf(free, free.length * 2);
+		free[numFree++] = o;
+		if (inUse > 0) inUse--;
+	}
+
+	/**
+	 * Creates objects until the pool holds at least count of them
+	 */
+	public void fill(int count){
+		while (numFree < count){
+			if (numFree == free.length) free = Arrays.copyOf(free, free.length * 2);
+			free[numFree++] = create();
+			created++;
+		}
+	}
+
+	/**
+	 * @return Number of objects given out and not yet released
+	 */
+	public int getInUse(){
+		return inUse;
+	}
+
+	/**
+	 * @return Most objects that have been given out at once
+	 */
+	public int getHighWater(){
+		return highWater;
+	}
+
+	/**
+	 * @return Number of objects waiting in the pool
+	 */
+	public int getFree(){
+		return numFree;
+	}
+
+	/**
+	 * @return Number of objects the pool has created
+	 */
+	public long getCreated(){
+		return created;
+	}
+
+	/**
+	 * @return Number of times an object was given out again instead of being created
+	 */
+	public long getReused(){
+		return reused;
+	}
+}
@@ -0,0 +1,95 @@
+package gameObjects;
+
+import java.util.ArrayList;
+
+import main.Sounds;
+import main.VectorGeometry;
+
+import org.newdawn.slick.Color;
+
+/**
+ * Checks that a pooled object comes back from its Pool with none of the state it was last used with. A
+ * Bullet and a Piece are each taken from their pool, changed every way the game changes them, removed and
+ * recycled through updateQueue(), then taken again. Throws unless the same instance comes back with its
+ * defaults. Kept in this package so it can change and read the fields the game sets directly.
+ * @author Henry
+ *
+ */
+public class PoolCheck {
+
+	public static void main(String[] args) {
+		Sounds.disable();
+		GameObject.initGameObjectList(new ArrayList<GameObject>());
+		VectorGeometry line = new VectorGeometry(new double[] {0,0, 1,0, 1,1}, 2, 1, 0, 0);
+		Piece firer = Piece.obtain(line, 0, 0, 1000);
+
+		//Bullet
+		Bullet b = Bullet.obtain(0, 0, 0, 0, 0, 10, new Color(1f, 1f, 1f), 2, 500);
+		GameObject.addObject(b);
+		GameObject.updateQueue();
+		b.setTint(.1, .2, .3);
+		b.setAlpha(.5);
+		b.setVX(3);
+		b.setVY(4);
+		b.setRot(1);
+		b.setVRot(2);
+		b.source = firer;
+		b.liveTime = 1;
+		recycle(b);
+		if (b.source != null) throw new IllegalStateException("Recycled bullet still holds its firer");
+
+		Bullet reused = Bullet.obtain(5, 6, 0, 0, 0, 10, new Color(1f, 1f, 1f), 2, 500);
+		if (reused != b) throw new IllegalStateException("Bullet pool made a new bullet instead of reusing the recycled one");
+		checkDefaults(reused, 5, 6);
+		if (reused.source != null) throw new IllegalStateException("Reused bullet kept its source");
+		if (reused.liveTime != 500) throw new IllegalStateException("Reused bullet has liveTime " + reused.liveTime + ", expected 500");
+
+		//Piece
+		Piece p = Piece.obtain(line, 0, 0, 1000);
+		GameObject.addObject(p);
+		GameObject.updateQueue();
+		p.setTint(.1, .2, .3);
+		p.setAlpha(.5);
+		p.setVX(3);
+		p.setVY(4);
+		p.setRot(1);
+		p.setVRot(2);
+		p.brightness = .25;
+		recycle(p);
+		if (p.geom != null) throw new IllegalStateException("Recycled piece still holds its geometry");
+
+		Piece reusedPiece = Piece.obtain(line, 5, 6, 4000);
+		if (reusedPiece != p) throw new IllegalStateException("Piece pool made a new piece instead of reusing the recycled one");
+		checkDefaults(reusedPiece, 5, 6);
+		if (reusedPiece.brightness != 1) throw new IllegalStateException("Reused piece has brightness " + reusedPiece.brightness + ", expected 1");
+		if (reusedPiece.darkFactor != 1 - Math.pow(.01, 1.0/4000)) throw new IllegalStateException("Reused piece darkens for the old time out");
+
+		GameObject.destroyGameObjectList();
+		System.out.println("Bullet and Piece come back from their pools with default state");
+	}
+
+	/**
+	 * Removes an object, makes sure it is recycled once however often it is removed, and that it was
+	 * given back to its pool
+	 */
+	private static void recycle(GameObject o){
+		Pool<?> pool = o instanceof Bullet ? Bullet.getPool() : Piece.getPool();
+		int free = pool.getFree();
+		GameObject.removeObject(o);
+		GameObject.removeObject(o);
+		GameObject.updateQueue();
+		if (pool.getFree() != free + 1) throw new IllegalStateException(o.getClass().getSimpleName() + " was given back to its pool " + (pool.getFree() - free) + " times");
+	}
+
+	/**
+	 * Throws unless an object's tint, alpha, position, velocity and rotation are as a new object's would be
+	 */
+	private static void checkDefaults(GameObject o, double x, double y){
+		String name = o.getClass().getSimpleName();
+		if (o.getTintR() != 1 || o.getTintG() != 1 || o.getTintB() != 1) throw new IllegalStateException("Reused " + name + " kept its tint");
+		if (o.getAlpha() != 1) throw new IllegalStateException("Reused " + name + " kept its alpha");
+		if (o.getX() != x || o.getY() != y) throw new IllegalStateException("Reused " + name + " is at " + o.getX() + ", " + o.getY());
+		if (o.getVX() != 0 || o.getVY() != 0) throw new IllegalStateException("Reused " + name + " kept its velocity");
+		if (o.getRot() != 0 || o.getVRot() != 0) throw new IllegalStateException("Reused " + name + " kept its rotation");
+	}
+}
@@ -0,0 +1,79 @@
+package gameObjects;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the GameObjects in the game sorted into the layers they are drawn in, each in its own list.
+ * Layers are drawn from DEBRIS up to PLAYER, then the game state draws the HUD on top. The order of
+ * objects within a layer is not kept, removing an object moves the last one in its layer into its place.
+ * @author Henry
+ *
+ */
+public class RenderLayers {
+
+	//Layers, in the order they are drawn
+	public static final int DEBRIS = 0;
+	public static final int ENEMIES = 1;
+	public static final int BULLETS = 2;
+	public static final int PLAYER = 3;
+	public static final int COUNT = 4;
+
+	//Objects in each layer, the first sizes[layer] are used
+	private GameObject[][] layers = new GameObject[COUNT][64];
+	private int[] sizes = new int[COUNT];
+
+	/**
+	 * Puts an object on the end of the layer it returns from getLayer()
+	 */
+	public void add(GameObject o){
+		int layer = o.getLayer();
+		if (sizes[layer] == layers[layer].length) layers[layer] = Arrays.copyOf(layers[layer], sizes[layer] * 2);
+		o.layer = layer;
+		o.layerIndex = sizes[layer];
+		layers[layer][sizes[layer]++] = o;
+	}
+
+	/**
+	 * Takes an object out of its layer, does nothing if it is not in one
+	 */
+	public void remove(GameObject o){
+		if (!contains(o)) return;
+		GameObject[] objects = layers[o.layer];
+		GameObject last = objects[--sizes[o.layer]];
+		objects[o.layerIndex] = last;
+		last.layerIndex = o.layerIndex;
+		objects[sizes[o.layer]] = null;
+		o.layerIndex = -1;
+	}
+
+	public boolean contains(GameObject o){
+		return o.layerIndex >= 0 && o.layerIndex < sizes[o.layer] && layers[o.layer][o.layerIndex] == o;
+	}
+
+	/**
+	 * @return Number of objects in the layer
+	 */
+	public int size(int layer){
+		return sizes[layer];
+	}
+
+	/**
+	 * @return The object at the given index of the layer, from 0 to size(layer) - 1
+	 */
+	public GameObject get(int layer, int index){
+		return layers[layer][index];
+	}
+
+	/**
+	 * Takes every object out of every layer
+	 */
+	public void clear(){
+		for (int layer = 0; layer < COUNT; layer++){
+			for (int i = 0; i < sizes[layer]; i++){
+				layers[layer][i].layerIndex = -1;
+				layers[layer][i] = null;
+			}
+			sizes[layer] = 0;
+		}
+	}
+}
@@ -1,8 +1,8 @@
 package gameObjects;
 
+import main.GeometryAssets;
 import main.Start;
 import main.State_Game;
-import main.VectorGeometry;
 /**
  * Represents an enemy which spirals in towards the player
  * @author Henry
@@ -31,13 +31,13 @@ public class Spiral extends Enemy{
 	 * @param stagger angle by which the object is staggered and enters the screen
 	 */
 	public Spiral(GameObject center, double timeIn, double rotSpeed, double stagger) {
-		super(new VectorGeometry("/geomDefs/spiral.geom").scale(-.25), State_Game.spawnRadius * Math.cos(stagger) + center.x, State_Game.spawnRadius * Math.sin(stagger) + center.y);
+		super(GeometryAssets.get("/geomDefs/spiral.geom", -.25, 0), State_Game.spawnRadius * Math.cos(stagger) + center.getX(), State_Game.spawnRadius * Math.sin(stagger) + center.getY());
 		c = center;
 		radius = State_Game.spawnRadius;
 		time = 0;
 		period = 2 * Math.PI/rotSpeed;
 		dRadius = 1000.0/timeIn;
-		vRot = 4 * Math.PI;
+		setVRot(4 * Math.PI);
 		offset = stagger;
 		scoreValue = 3;
 	}
@@ -61,9 +61,8 @@ public class Spiral extends Enemy{
 		radius -= Start.deltaTime()*dRadius;
 		
 		//Set x and y position according to parametric equation
-		x = radius * Math.cos((time) * period + offset) + c.x;
-		y = radius * Math.sin((time) * period + offset) + c.y;
-		super.update();
+		setX(radius * Math.cos((time) * period + offset) + c.getX());
+		setY(radius * Math.sin((time) * period + offset) + c.getY());
 	}
 
 	
@@ -0,0 +1,228 @@
+package gameObjects;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Sweep and prune broadphase for collision detection. Each object covers an interval along the x axis,
+ * the intervals are sorted by their start and each object is only tested against the objects whose
+ * intervals start before its own ends. Rebuilt every update from the current positions.
+ *
+ * The sweep is split into ranges of the sorted objects that can run on a fork-join pool. Each range keeps
+ * the pairs it finds in its own buffer, and the buffers are merged and sorted, so the pairs are the same
+ * and in the same order on any number of threads.
+ * @author Henry
+ *
+ */
+public class SweepAndPrune {
+
+	//Fewest objects swept by one task, fewer than two tasks' worth are swept on the calling thread
+	private static final int MIN_CHUNK = 512;
+
+	//Objects being tested with their positions and collision radii, cached when the intervals are built
+	private GameObject[] objects;
+	private double[] xs;
+	private double[] ys;
+	private double[] radii;
+	//End of each object's interval, rounded up to a float so rounding can never lose a pair
+	private float[] ends;
+	private int count;
+
+	/*
+	 * Start of each interval rounded down to a float, with the object's index in the low 32 bits, so that
+	 * sorting the keys sorts the objects by the start of their interval. After sorting, sorted holds the
+	 * indexes and starts holds the starts in the same order.
+	 */
+	private long[] keys;
+	private int[] sorted;
+	private float[] starts;
+
+	//Pairs found by the last call to findPairs(), the first object's index in the high 32 bits and the second's in the low
+	private long[] pairs;
+	private int numPairs;
+
+	//Ranges of the sorted objects swept by each task
+	private Sweep[] sweeps = {new Sweep()};
+	private int numSweeps;
+
+	//Forks every sweep but the first, runs the first itself and then waits for the others
+	private final RecursiveAction root = new RecursiveAction(){
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected void compute(){
+			for (int i = 1; i < numSweeps; i++){
+				sweeps[i].reinitialize();
+				sweeps[i].fork();
+			}
+			sweeps[0].sweep();
+			for (int i = numSweeps - 1; i > 0; i--) sweeps[i].join();
+		}
+	};
+
+	public SweepAndPrune(){
+		objects = new GameObject[64];
+		xs = new double[64];
+		ys = new double[64];
+		radii = new double[64];
+		ends = new float[64];
+		keys = new long[64];
+		sorted = new int[64];
+		starts = new float[64];
+		pairs = new long[64];
+	}
+
+	/**
+	 * Rebuilds and sorts the intervals from the given objects. Pieces never collide, so they are left out.
+	 * @param store objects to test, in update order
+	 */
+	public void build(EntityStore store){
+		count = 0;
+		for (int i = 0; i < store.size(); i++){
+			GameObject o = store.at(i);
+			if (o instanceof Piece || o.geom == null) continue;
+			if (count == objects.length) grow();
+			objects[count] = o;
+			xs[count] = o.getX();
+			ys[count] = o.getY();
+			radii[count] = o.geom.getAverageRadius();
+			ends[count] = Math.nextUp((float)(xs[count] + radii[count]));
+			keys[count] = key(Math.nextAfter((float)(xs[count] - radii[count]), Double.NEGATIVE_INFINITY), count);
+			count++;
+		}
+
+		Arrays.sort(keys, 0, count);
+		for (int i = 0; i < count; i++){
+			sorted[i] = (int)keys[i];
+			starts[i] = start(keys[i]);
+		}
+	}
+
+	/**
+	 * Finds every colliding pair of objects. Each pair is found once and pairs are ordered the same way as
+	 * the all pairs loop, by the index of the first object and then the second.
+	 * @param pool Pool to sweep on, null to sweep on the calling thread
+	 * @return The number of pairs found
+	 */
+	public int findPairs(ForkJoinPool pool){
+		numSweeps = pool == null ? 1 : Math.max(1, Math.min(pool.getParallelism() * 4, count / MIN_CHUNK));
+		if (numSweeps > sweeps.length){
+			int old = sweeps.length;
+			sweeps = Arrays.copyOf(sweeps, numSweeps);
+			for (int i = old; i < numSweeps; i++) sweeps[i] = new Sweep();
+		}
+		for (int i = 0; i < numSweeps; i++){
+			sweeps[i].from = (int)((long)count * i / numSweeps);
+			sweeps[i].to = (int)((long)count * (i + 1) / numSweeps);
+		}
+		if (numSweeps == 1) sweeps[0].sweep();
+		else {
+			root.reinitialize();
+			pool.invoke(root);
+		}
+
+		numPairs = 0;
+		for (int i = 0; i < numSweeps; i++) numPairs += sweeps[i].numFound;
+		if (numPairs > pairs.length) pairs = new long[Math.max(pairs.length * 2, numPairs)];
+		int n = 0;
+		for (int i = 0; i < numSweeps; i++){
+			System.arraycopy(sweeps[i].found, 0, pairs, n, sweeps[i].numFound);
+			n += sweeps[i].numFound;
+		}
+		Arrays.sort(pairs, 0, numPairs);
+		return numPairs;
+	}
+
+	/**
+	 * @param pair index of a pair found by the last call to findPairs()
+	 * @return The first object of the pair
+	 */
+	public GameObject first(int pair){
+		return objects[(int)(pairs[pair] >>> 32)];
+	}
+
+	/**
+	 * @param pair index of a pair found by the last call to findPairs()
+	 * @return The second object of the pair
+	 */
+	public GameObject second(int pair){
+		return objects[(int)pairs[pair]];
+	}
+
+	/**
+	 * Drops references to the objects so they can be garbage collected
+	 */
+	public void clear(){
+		Arrays.fill(objects, 0, count, null);
+		count = 0;
+		numPairs = 0;
+	}
+
+	/**
+	 * @return A key that sorts by start and then by index, negative floats have their bits flipped so they sort as signed ints
+	 */
+	private static long key(float start, int index){
+		int bits = Float.floatToIntBits(start);
+		bits ^= (bits >> 31) & 0x7fffffff;
+		return ((long)bits << 32) | index;
+	}
+
+	/**
+	 * @return The start a key was made from
+	 */
+	private static float start(long key){
+		int bits = (int)(key >> 32);
+		bits ^= (bits >> 31) & 0x7fffffff;
+		return Float.intBitsToFloat(bits);
+	}
+
+	/**
+	 * Doubles the size of the per object arrays
+	 */
+	private void grow(){
+		int size = objects.length * 2;
+		objects = Arrays.copyOf(objects, size);
+		xs = Arrays.copyOf(xs, size);
+		ys = Arrays.copyOf(ys, size);
+		radii = Arrays.copyOf(radii, size);
+		ends = Arrays.copyOf(ends, size);
+		keys = Arrays.copyOf(keys, size);
+		sorted = Arrays.copyOf(sorted, size);
+		starts = Arrays.copyOf(starts, size);
+	}
+
+	/**
+	 * Sweeps a range of the sorted objects, testing each against the objects after it until their intervals stop overlapping
+	 */
+	private class Sweep extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		int from;
+		int to;
+
+		//Pairs found, in the same form as pairs
+		long[] found = new long[64];
+		int numFound;
+
+		@Override
+		protected void compute(){
+			sweep();
+		}
+
+		void sweep(){
+			numFound = 0;
+			for (int s = from; s < to; s++){
+				int i = sorted[s];
+				float end = ends[i];
+				for (int t = s + 1; t < count && starts[t] <= end; t++){
+					int j = sorted[t];
+					if (!GameObject.overlaps(xs[i], ys[i], radii[i], xs[j], ys[j], radii[j])) continue;
+					if (numFound == found.length) found = Arrays.copyOf(found, numFound * 2);
+					found[numFound++] = i < j ? (long)i << 32 | j : (long)j << 32 | i;
+				}
+			}
+		}
+	}
+}
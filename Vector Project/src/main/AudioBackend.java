@@ -0,0 +1,47 @@
+package main;
+
+/**
+ * The calls the sound system makes on an audio library. Sources and buffers are handles given out by
+ * the library. Implemented by OpenALBackend, and by stand-ins that record calls or fake their cost.
+ * @author Henry
+ *
+ */
+public interface AudioBackend {
+
+	/**
+	 * Makes a new source
+	 * @return Handle to the source, or -1 if no more can be made
+	 */
+	public int genSource();
+
+	public void deleteSource(int source);
+
+	/**
+	 * Sets the sound played by a source and how loud it is
+	 */
+	public void setSound(int source, int buffer, float gain);
+
+	/**
+	 * Moves a source, in the library's units
+	 */
+	public void setPosition(int source, float x, float y, float vx, float vy);
+
+	/**
+	 * Plays a source from the start, even if it is already playing
+	 */
+	public void play(int source);
+
+	public void stop(int source);
+
+	public boolean isPlaying(int source);
+
+	/**
+	 * Moves the listener, in the library's units
+	 */
+	public void setListener(float x, float y, float vx, float vy);
+
+	/**
+	 * Clears any error the library has recorded
+	 */
+	public void clearErrors();
+}
@@ -0,0 +1,113 @@
+package main;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded queue of commands for a VoicePool, written by one thread and read by another without locks.
+ * Commands are stored in preallocated arrays, so adding one never allocates. When the queue is nearly full
+ * new commands are dropped rather than making the writer wait, except for CREATE and DELETE. A dropped
+ * create would leave the pool playing an emitter with an old sound, and a dropped delete would leave a
+ * voice following an emitter after it was freed, so a quarter of the queue is kept for them. If even
+ * that fills, the writer waits for the reader to make room.
+ * @author Henry
+ *
+ */
+public class AudioQueue {
+
+	//Capacity is a power of 2 so positions can be turned into indexes with a mask
+	private final int capacity;
+	private final int mask;
+	//Entries only CREATE and DELETE can use
+	private final int reserved;
+
+	//Command, emitter handle and sound of each entry, with 4 values (x, y, vx, vy) per entry
+	private final int[] commands;
+	private final int[] handles;
+	private final int[] sounds;
+	private final float[] values;
+
+	//Number of commands ever added and ever taken, an entry is only reused once it has been taken
+	private final AtomicLong tail = new AtomicLong();
+	private final AtomicLong head = new AtomicLong();
+	//Last value of head seen by the writer, so it does not have to read head for every command
+	private long cachedHead;
+
+	//Commands dropped because the queue was nearly full, only written by the writer
+	private volatile long dropped;
+
+	/**
+	 * @param capacity Most commands waiting at once, rounded up to a power of 2
+	 */
+	public AudioQueue(int capacity){
+		int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+		this.capacity = size;
+		mask = size - 1;
+		reserved = Math.max(size / 4, 1);
+		commands = new int[size];
+		handles = new int[size];
+		sounds = new int[size];
+		values = new float[size * 4];
+	}
+
+	/**
+	 * Adds a command, called only by the writing thread
+	 * @param command One of the VoicePool commands
+	 * @return false if the queue was full and the command was dropped, never for CREATE and DELETE
+	 */
+	public boolean offer(int command, int handle, int sound, float x, float y, float vx, float vy){
+		long t = tail.get();
+		boolean lifecycle = command == VoicePool.CREATE || command == VoicePool.DELETE;
+		int limit = lifecycle ? capacity : capacity - reserved;
+		if (t - cachedHead >= limit){
+			cachedHead = head.get();
+			while (t - cachedHead >= limit){
+				if (!lifecycle){
+					dropped++;
+					return false;
+				}
+				Thread.yield();
+				cachedHead = head.get();
+			}
+		}
+		int i = (int)(t & mask);
+		commands[i] = command;
+		handles[i] = handle;
+		sounds[i] = sound;
+		values[i * 4] = x;
+		values[i * 4 + 1] = y;
+		values[i * 4 + 2] = vx;
+		values[i * 4 + 3] = vy;
+		//Publishes the entry, the writes above are seen by the reader before the new tail
+		tail.lazySet(t + 1);
+		return true;
+	}
+
+	/**
+	 * Runs every waiting command on the pool in the order they were added, called only by the reading thread
+	 * @return Number of commands run
+	 */
+	public int drainTo(VoicePool pool){
+		long h = head.get();
+		long t = tail.get();
+		for (long p = h; p < t; p++){
+			int i = (int)(p & mask);
+			pool.execute(commands[i], handles[i], sounds[i], values[i * 4], values[i * 4 + 1], values[i * 4 + 2], values[i * 4 + 3]);
+			head.lazySet(p + 1);
+		}
+		return (int)(t - h);
+	}
+
+	/**
+	 * @return Whether there are no commands waiting, can be called from either thread
+	 */
+	public boolean isEmpty(){
+		return head.get() == tail.get();
+	}
+
+	/**
+	 * @return Number of commands dropped because the queue was nearly full
+	 */
+	public long getDropped(){
+		return dropped;
+	}
+}
@@ -0,0 +1,49 @@
+package main;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs the commands in an AudioQueue on a VoicePool, so calls to the audio library happen off the game
+ * thread. Sleeps for a short time whenever the queue is empty.
+ * @author Henry
+ *
+ */
+public class AudioThread extends Thread {
+
+	//Time to sleep when there is nothing to do, in nanoseconds
+	private static final long IDLE_WAIT = 1000000;
+
+	private final AudioQueue queue;
+	private final VoicePool pool;
+	private volatile boolean running = true;
+
+	public AudioThread(AudioQueue queue, VoicePool pool){
+		super("Audio");
+		this.queue = queue;
+		this.pool = pool;
+		setDaemon(true);
+	}
+
+	@Override
+	public void run(){
+		while (running){
+			if (queue.drainTo(pool) == 0) LockSupport.parkNanos(IDLE_WAIT);
+		}
+		//Run what was queued before the thread was stopped, then free the voices
+		queue.drainTo(pool);
+		pool.destroy();
+	}
+
+	/**
+	 * Stops the thread once the commands already queued have run, and waits for it to finish
+	 */
+	public void shutdown(){
+		running = false;
+		LockSupport.unpark(this);
+		try {
+			join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -1,152 +1,207 @@
 package main;
 import static org.lwjgl.opengl.GL11.*;
-import gameObjects.GameObject;
 
-import org.newdawn.slick.Color;
+import java.nio.FloatBuffer;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GLContext;
 /**
- * Draws VectorGeometries 
+ * Draws VectorGeometries. Strokes are collected into a batch and drawn together when flush() is called,
+ * flush() must be called before changing the OpenGL matrix or drawing anything else on top. Geometries
+ * drawn small are drawn with one of their simplified levels of detail.
+ *
+ * If a SoftwareRenderer is set, the batch is drawn into it instead of with OpenGL, and translate() and
+ * loadIdentity() move it instead of the OpenGL matrix.
  * @author Henry
  *
  */
 public class Draw {
+
+	//Strokes drawn since the last flush
+	private static StrokeBatch batch = new StrokeBatch();
 	
+	//Reused for draws that are given a position and rotation
+	private static Transform transform = new Transform();
+	
+	//Most error in pixels allowed by drawing a simplified geometry, 0 to always draw the full geometry
+	private static double lodBudget = .5;
+
+	//Renderer the batch is drawn into instead of OpenGL, null to draw with OpenGL
+	private static SoftwareRenderer renderer;
+
+	//Buffer the batch is copied into for OpenGL
+	private static FloatBuffer buffer;
+
+	//Handle to the vertex buffer object, 0 before it is created
+	private static int vbo = 0;
+	//Whether vertex buffer objects are available, null until the first flush
+	private static Boolean useBuffers;
+
 	/**
 	 * Draws the given VectorGeometry to the screen using rectangles of width 'weight'
 	 * between each vertex in 'verts'
 	 * @param vg VectorGeometry to draw
 	 */
 	public static void geometry(VectorGeometry vg){
-		
-		//Values from the VectorGeometry
-		Vertex[] verts = vg.getVerts();
-		Color color = vg.getColor();
-		double weight = vg.getWeight();
-		double r = color.r;
-		double g = color.g;
-		double b = color.b;
-		
-		//Store vertexes from previous rectangles to cover gaps between rectangles
-		Vertex lastp4 = null,lastp6=null, firstp3=null, firstp5 = null;
-		
-		for (int i = 0; i < verts.length-1; i++){
-			
-			//End points of the rectangle
-			Vertex p1 = verts[i];
-			Vertex p2 = verts[i+1];
-			
-			//Get the angle that is perpendicular to the angle between the end points
-			double degree = GameObject.getAngle(p1.y-p2.y, p2.x - p1.x);
-			
-			//Create the points on either side of the end points
-			Vertex p3,p4,p5,p6;
-			double dx,dy;
-				
-			dx    = (double)Math.cos(degree)*weight/2;
-			dy    = (double)Math.sin(degree)*weight/2;
-			p3 = new Vertex(p1.x+dx, p1.y+dy);
-			p4 = new Vertex(p2.x+dx, p2.y+dy);
-			p5 = new Vertex(p1.x-dx, p1.y-dy);
-			p6 = new Vertex(p2.x-dx, p2.y-dy);
-			
-			
-			//Draw the rectangle
-			glBegin(GL_QUADS);
-				glColor3d(r,g,b);
-				glVertex2d(p1.x,p1.y);
-				glVertex2d(p2.x,p2.y);
-				glColor4d(0,0,0,0);
-				glVertex2d(p4.x,p4.y);
-				glVertex2d(p3.x,p3.y);
-				
-				glColor3d(r,g,b);
-				glVertex2d(p1.x,p1.y);
-				glVertex2d(p2.x,p2.y);
-				glColor4d(0,0,0,0);
-				glVertex2d(p6.x,p6.y);
-				glVertex2d(p5.x,p5.y);
-				
-			glEnd();
-			
-			//If not on the first rectangle, cover the gap between this rectangle and the last rectangle
-			if (i!=0){
-			
-				//Find the direction of the gap
-				double angle1 = GameObject.getAngle(p2.x - p1.x, p2.y - p1.y);
-				double angle2 = GameObject.getAngle(verts[i-1].x - p1.x, verts[i-1].y - p1.y);
-				if (angle1 < 0) angle1 += 2 * Math.PI;
-				if (angle2 < 0) angle2 += 2 * Math.PI;
-				double direction = (angle1 + angle2)/2;
-				if (Math.abs(direction - angle1) < Math.PI/2) direction += Math.PI;
-				while (direction > Math.PI) direction -= 2 * Math.PI;
-				while (direction < -Math.PI) direction += 2 * Math.PI; 
-
-				Vertex pa = null;
-				Vertex pb = null;
-				
-				//Set pa and pb to the vertices closest to a point closest to a point created in the direction of the gap
-				Vertex d = new Vertex(p1.x + weight*Math.cos(direction), p1.y + weight*Math.sin(direction));
-				if (p3.distance(d) < p5.distance(d)) pa = p3;
-				else pa = p5;
-				if (lastp4.distance(d) < lastp6.distance(d)) pb = lastp4;
-				else pb = lastp6;
-				
-				//Draw a triangle between the center, pa and pb to cover the gap
-				glBegin(GL_TRIANGLES);
-				glColor3d(r,g,b);
-				glVertex2d(p1.x, p1.y);
-				glColor4d(0,0,0,0);
-				glVertex2d(pa.x, pa.y);
-				glVertex2d(pb.x, pb.y);
-				glEnd();
-
-				
-			}
-			
-			//Save last outside points for use on next iteration
-			lastp4 = p4;
-			lastp6 = p6;
-			//Save first points for use below
-			if (i==0){
-				firstp5 = p5;
-				firstp3 = p3;
-			}
-			
+		geometry(vg, 0, 0, 0);
+	}
+
+	/**
+	 * Draws the given VectorGeometry rotated about (0,0) and then moved to (x,y). The stroke is
+	 * built once per geometry by StrokeMesh, so drawing only has to move its vertices into place.
+	 * @param vg VectorGeometry to draw
+	 * @param x x coordinate to draw at
+	 * @param y y coordinate to draw at
+	 * @param rot rotation in radians
+	 */
+	public static void geometry(VectorGeometry vg, double x, double y, double rot){
+		geometry(vg, transform.set(x, y, rot));
+	}
+	
+	/**
+	 * Draws the given VectorGeometry moved into place by a transform, the geometry is not copied
+	 * @param vg VectorGeometry to draw
+	 * @param t Transform to apply
+	 */
+	public static void geometry(VectorGeometry vg, Transform t){
+		batch.add(StrokeMesh.of(vg.getLod(t.getMaxScale(), lodBudget)), t, vg.getRed(), vg.getGreen(), vg.getBlue());
+	}
+	
+	/**
+	 * Draws the given VectorGeometry rotated about (0,0) and then moved to (x,y), with its color changed
+	 * for this draw only
+	 * @param vg VectorGeometry to draw
+	 * @param x x coordinate to draw at
+	 * @param y y coordinate to draw at
+	 * @param rot rotation in radians
+	 * @param r factor the geometry's red value is multiplied by
+	 * @param g factor the geometry's green value is multiplied by
+	 * @param b factor the geometry's blue value is multiplied by
+	 * @param a alpha value of the stroke, 1 is opaque
+	 */
+	public static void geometry(VectorGeometry vg, double x, double y, double rot, double r, double g, double b, double a){
+		geometry(vg, transform.set(x, y, rot), r, g, b, a);
+	}
+	
+	/**
+	 * Draws the given VectorGeometry moved into place by a transform, with its color changed for this
+	 * draw only. The geometry is shared and never changed, so fading and tinting cost nothing.
+	 * @param vg VectorGeometry to draw
+	 * @param t Transform to apply
+	 * @param r factor the geometry's red value is multiplied by
+	 * @param g factor the geometry's green value is multiplied by
+	 * @param b factor the geometry's blue value is multiplied by
+	 * @param a alpha value of the stroke, 1 is opaque
+	 */
+	public static void geometry(VectorGeometry vg, Transform t, double r, double g, double b, double a){
+		batch.add(StrokeMesh.of(vg.getLod(t.getMaxScale(), lodBudget)), t, vg.getRed() * r, vg.getGreen() * g, vg.getBlue() * b, a);
+	}
+	
+	/**
+	 * Sets how far a simplified geometry may look from the full geometry. Geometries are drawn with the
+	 * simplest level of detail whose error at the size they are drawn is within the budget.
+	 * @param pixels Most error in pixels, 0 to always draw the full geometry
+	 */
+	public static void setLodBudget(double pixels){
+		lodBudget = pixels;
+	}
+	public static double getLodBudget(){
+		return lodBudget;
+	}
+
+	/**
+	 * Sets a renderer to draw into instead of OpenGL, so that frames can be drawn without a display
+	 * @param r Renderer to draw into, null to draw with OpenGL
+	 */
+	public static void setRenderer(SoftwareRenderer r){
+		renderer = r;
+	}
+	public static SoftwareRenderer getRenderer(){
+		return renderer;
+	}
+
+	/**
+	 * Moves everything drawn after this call, flush() must be called first
+	 */
+	public static void translate(double x, double y){
+		if (renderer != null) renderer.translate(x, y);
+		else glTranslated(x, y, 0);
+	}
+
+	/**
+	 * Stops moving what is drawn, flush() must be called first
+	 */
+	public static void loadIdentity(){
+		if (renderer != null) renderer.loadIdentity();
+		else glLoadIdentity();
+	}
+
+	/**
+	 * Draws everything in the batch with a single draw call and empties it. Uses a vertex buffer object
+	 * if OpenGL 1.5 is available, otherwise draws the batch in immediate mode.
+	 */
+	public static void flush(){
+		int numVerts = batch.getVertexCount();
+		if (numVerts == 0) return;
+		if (renderer != null){
+			renderer.draw(batch);
+			batch.clear();
+			return;
 		}
-		
-		//If the first Vertex is the same as the last vertex, cover the gap between them (same code as above)
-		if (verts[0].equals(verts[verts.length-1])){
-
-			Vertex p1 = verts[0];
-			Vertex p2 = verts[1];
-			
-			int i = verts.length-1;
-			
-			double angle1 = GameObject.getAngle(p2.x - p1.x, p2.y - p1.y);
-			double angle2 = GameObject.getAngle(verts[i-1].x - p1.x, verts[i-1].y - p1.y);
-			if (angle1 < 0) angle1 += 2 * Math.PI;
-			if (angle2 < 0) angle2 += 2 * Math.PI;
-			double direction = (angle1 + angle2)/2;
-			if (Math.abs(direction - angle1) < Math.PI/2) direction += Math.PI;
-			while (direction > Math.PI) direction -= 2 * Math.PI;
-			while (direction < -Math.PI) direction += 2 * Math.PI; 
-
-			Vertex pa;
-			Vertex pb;
-			
-			Vertex d = new Vertex(p1.x + weight*Math.cos(direction), p1.y + weight*Math.sin(direction));
-			if (firstp3.distance(d) < firstp5.distance(d)) pa = firstp3;
-			else pa = firstp5;
-			if (lastp4.distance(d) < lastp6.distance(d)) pb = lastp4;
-			else pb = lastp6;
-			
-			glBegin(GL_TRIANGLES);
-			glColor3d(r,g,b);
-			glVertex2d(verts[0].x, verts[0].y);
-			glColor4d(0,0,0,0);
-			glVertex2d(pa.x, pa.y);
-			glVertex2d(pb.x, pb.y);
-			glEnd();
-			
+
+		//Work out every vertex on the worker threads, this thread only uploads and draws
+		batch.fill(Workers.getPool());
+		if (useBuffers == null) useBuffers = GLContext.getCapabilities().OpenGL15;
+		if (useBuffers) drawBuffered(numVerts);
+		else drawImmediate(numVerts);
+
+		batch.clear();
+	}
+
+	/**
+	 * Throws away everything drawn since the last flush without drawing it
+	 */
+	public static void clear(){
+		batch.clear();
+	}
+
+	/**
+	 * Uploads the batch to the vertex buffer object and draws it
+	 * @param numVerts number of vertices in the batch
+	 */
+	private static void drawBuffered(int numVerts){
+		int stride = StrokeBatch.VERTEX_SIZE * 4;
+		//Leave room to grow so the buffer is not reallocated every time the batch gets bigger
+		if (buffer == null || buffer.capacity() < numVerts * StrokeBatch.VERTEX_SIZE){
+			buffer = BufferUtils.createFloatBuffer(numVerts * 2 * StrokeBatch.VERTEX_SIZE);
+		}
+		if (vbo == 0) vbo = GL15.glGenBuffers();
+		batch.writeTo(buffer);
+
+		GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vbo);
+		GL15.glBufferData(GL15.GL_ARRAY_BUFFER, buffer, GL15.GL_STREAM_DRAW);
+		glEnableClientState(GL_VERTEX_ARRAY);
+		glEnableClientState(GL_COLOR_ARRAY);
+		glVertexPointer(2, GL_FLOAT, stride, 0);
+		glColorPointer(4, GL_FLOAT, stride, 2 * 4);
+		glDrawArrays(GL_TRIANGLES, 0, numVerts);
+		glDisableClientState(GL_COLOR_ARRAY);
+		glDisableClientState(GL_VERTEX_ARRAY);
+		GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, 0);
+	}
+
+	/**
+	 * Draws the batch one vertex at a time, used when vertex buffer objects are missing
+	 * @param numVerts number of vertices in the batch
+	 */
+	private static void drawImmediate(int numVerts){
+		float[] data = batch.getData();
+		glBegin(GL_TRIANGLES);
+		for (int i = 0; i < numVerts * StrokeBatch.VERTEX_SIZE; i += StrokeBatch.VERTEX_SIZE){
+			glColor4f(data[i + 2], data[i + 3], data[i + 4], data[i + 5]);
+			glVertex2f(data[i], data[i + 1]);
 		}
+		glEnd();
 	}
 }
@@ -0,0 +1,222 @@
+package main;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Scanner;
+import java.util.Set;
+
+/**
+ * A set of geometry definitions compiled into one binary file, so they can be read without parsing text.
+ * The archive is read with one read from the classpath or memory mapped from a file, and each geometry is
+ * decoded from the buffer the first time it is asked for.
+ *
+ * The format is the magic number, a version and the number of entries, followed by each entry's path
+ * (as written by DataOutputStream.writeUTF), its red, green, blue and weight as floats, its number of
+ * vertices and then the coordinates of the vertices as float x,y pairs. Everything is big endian.
+ *
+ * Running main() compiles the text definitions under a directory into an archive.
+ * @author Henry
+ *
+ */
+public class GeometryArchive {
+
+	//Classpath location of the archive built from /geomDefs
+	public static final String RESOURCE = "/geomDefs.bin";
+
+	private static final int MAGIC = 0x5647454F;
+	private static final int VERSION = 1;
+
+	//Contents of the archive
+	private ByteBuffer data;
+	//Position of each entry's color in data, keyed by path
+	private HashMap<String, Integer> entries;
+
+	/**
+	 * Reads the index of an archive, the geometries are decoded by get()
+	 * @param data Contents of an archive
+	 * @throws IOException If data is not an archive
+	 */
+	public GeometryArchive(ByteBuffer data) throws IOException{
+		this.data = data;
+		entries = new HashMap<String, Integer>();
+		if (data.getInt() != MAGIC || data.getInt() != VERSION) throw new IOException("Not a geometry archive");
+		int count = data.getInt();
+		for (int i = 0; i < count; i++){
+			String path = readUTF(data);
+			entries.put(path, data.position());
+			//Skip the color and weight to the vertex count, then skip the vertices
+			data.position(data.position() + 16);
+			int numVerts = data.getInt();
+			data.position(data.position() + numVerts * 8);
+		}
+	}
+
+	/**
+	 * Loads the archive from the classpath with a single read
+	 * @param resource Classpath location of the archive
+	 * @return The archive, or null if there is no archive at resource
+	 * @throws IOException If the archive could not be read
+	 */
+	public static GeometryArchive fromResource(String resource) throws IOException{
+		InputStream in = GeometryArchive.class.getResourceAsStream(resource);
+		if (in == null) return null;
+		try {
+			byte[] bytes = new byte[1 << 14];
+			int length = 0;
+			int read;
+			while ((read = in.read(bytes, length, bytes.length - length)) != -1){
+				length += read;
+				if (length == bytes.length){
+					byte[] larger = new byte[bytes.length * 2];
+					System.arraycopy(bytes, 0, larger, 0, length);
+					bytes = larger;
+				}
+			}
+			return new GeometryArchive(ByteBuffer.wrap(bytes, 0, length));
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Memory maps an archive file
+	 * @param file The archive
+	 * @return The archive
+	 * @throws IOException If the file could not be mapped or is not an archive
+	 */
+	public static GeometryArchive fromFile(File file) throws IOException{
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			//The mapping stays valid after the channel is closed
+			return new GeometryArchive(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Decodes a geometry from the archive
+	 * @param path Path of the text definition the geometry was compiled from
+	 * @return A new geometry, or null if path is not in the archive
+	 */
+	public VectorGeometry get(String path){
+		Integer position = entries.get(path);
+		if (position == null) return null;
+		//Read through a duplicate so get() does not move the shared buffer
+		ByteBuffer in = data.duplicate();
+		in.position(position);
+		float r = in.getFloat();
+		float g = in.getFloat();
+		float b = in.getFloat();
+		float weight = in.getFloat();
+		double[] coords = new double[in.getInt() * 2];
+		for (int i = 0; i < coords.length; i++) coords[i] = in.getFloat();
+		return new VectorGeometry(coords, weight, r, g, b);
+	}
+
+	/**
+	 * @param path Path of a text definition
+	 * @return Whether the archive has a geometry compiled from path
+	 */
+	public boolean contains(String path){
+		return entries.containsKey(path);
+	}
+
+	/**
+	 * @return Paths of the geometries in the archive
+	 */
+	public Set<String> getPaths(){
+		return Collections.unmodifiableSet(entries.keySet());
+	}
+
+	/**
+	 * @return Number of geometries in the archive
+	 */
+	public int size(){
+		return entries.size();
+	}
+
+	/**
+	 * Compiles every .geom file under a directory into an archive. Each geometry is stored under the path
+	 * it would be loaded from, the given prefix followed by its path relative to the directory.
+	 * @param dir Directory of text definitions, searched recursively
+	 * @param prefix Classpath location of dir, such as /geomDefs
+	 * @param out File to write the archive to
+	 * @return The number of geometries written
+	 * @throws IOException If a definition could not be read or the archive could not be written
+	 */
+	public static int compile(File dir, String prefix, File out) throws IOException{
+		ArrayList<String> paths = new ArrayList<String>();
+		findDefinitions(dir, "", paths);
+		Collections.sort(paths);
+
+		DataOutputStream data = new DataOutputStream(new FileOutputStream(out));
+		try {
+			data.writeInt(MAGIC);
+			data.writeInt(VERSION);
+			data.writeInt(paths.size());
+			for (String path : paths){
+				//Parse with the text loader so both formats always agree
+				VectorGeometry vg = new VectorGeometry(new Scanner(new File(dir, path)));
+				data.writeUTF(prefix + "/" + path);
+				data.writeFloat((float)vg.getRed());
+				data.writeFloat((float)vg.getGreen());
+				data.writeFloat((float)vg.getBlue());
+				data.writeFloat((float)vg.getWeight());
+				data.writeInt(vg.getVertexCount());
+				for (int i = 0; i < vg.getVertexCount(); i++){
+					data.writeFloat((float)vg.getX(i));
+					data.writeFloat((float)vg.getY(i));
+				}
+			}
+		} finally {
+			data.close();
+		}
+		return paths.size();
+	}
+
+	/**
+	 * Adds the path of every .geom file under dir to paths
+	 * @param relative Path of dir relative to the directory being compiled
+	 */
+	private static void findDefinitions(File dir, String relative, ArrayList<String> paths){
+		File[] files = dir.listFiles();
+		if (files == null) return;
+		for (File f : files){
+			if (f.isDirectory()) findDefinitions(f, relative + f.getName() + "/", paths);
+			else if (f.getName().endsWith(".geom")) paths.add(relative + f.getName());
+		}
+	}
+
+	/**
+	 * Reads a string written by DataOutputStream.writeUTF, which matches UTF-8 for paths
+	 */
+	private static String readUTF(ByteBuffer in){
+		byte[] bytes = new byte[in.getShort() & 0xFFFF];
+		in.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Compiles the text geometry definitions into an archive, run when the definitions change
+	 * @param args The directory to compile, src/geomDefs by default, and the archive to write,
+	 * src/geomDefs.bin by default
+	 */
+	public static void main(String[] args) throws IOException{
+		File dir = new File(args.length > 0 ? args[0] : "src/geomDefs");
+		File out = new File(args.length > 1 ? args[1] : "src/geomDefs.bin");
+		int count = compile(dir, "/" + dir.getName(), out);
+		System.out.println("Compiled " + count + " geometries into " + out);
+	}
+}
@@ -0,0 +1,210 @@
+package main;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * Loads each geometry definition under /geomDefs once and keeps it for the rest of the game, along with
+ * the scaled and rotated copies that game objects are built from. The levels of detail of each are built
+ * as it is loaded. Creating a game object only looks its geometry up instead of reading and parsing the
+ * file again.
+ *
+ * Geometries are decoded from the compiled archive at GeometryArchive.RESOURCE when it has them, and parsed
+ * from their text definitions otherwise. Run GeometryArchive.main() after changing a definition.
+ * @author Henry
+ *
+ */
+public class GeometryAssets {
+
+	//Geometry definitions loaded by preload()
+	private static final String[] FILES = {
+		"/geomDefs/asteroid.geom",
+		"/geomDefs/geomStressTest.geom",
+		"/geomDefs/play.geom",
+		"/geomDefs/scores.geom",
+		"/geomDefs/ship.geom",
+		"/geomDefs/spikey.geom",
+		"/geomDefs/spiral.geom",
+		"/geomDefs/vectrix.geom"
+	};
+	//Characters with a definition in /geomDefs/characters
+	static final String CHARACTERS = "abcdefghijklmnopqrstuvwxyz0123456789";
+
+	//Geometries as loaded from file, keyed by path
+	private static HashMap<String, VectorGeometry> files = new HashMap<String, VectorGeometry>();
+	//Scaled and rotated copies of loaded geometries
+	private static HashMap<Prototype, VectorGeometry> prototypes = new HashMap<Prototype, VectorGeometry>();
+
+	//Compiled definitions, null if there is no archive on the classpath
+	private static GeometryArchive archive;
+	private static boolean archiveLoaded = false;
+	private static long archiveTime;
+
+	//Paths in the order they were loaded, the time each took to load and which came from the archive, for the report
+	private static ArrayList<String> loadOrder = new ArrayList<String>();
+	private static HashMap<String, Long> loadTimes = new HashMap<String, Long>();
+	private static HashSet<String> compiled = new HashSet<String>();
+
+	/**
+	 * Loads every geometry definition used by the game so nothing is read from file during play
+	 */
+	public static void preload(){
+		for (String path : FILES) get(path);
+		for (int i = 0; i < CHARACTERS.length(); i++) get(character(CHARACTERS.charAt(i)));
+	}
+
+	/**
+	 * Finds the geometry loaded from the given path, loading it if it has not been used before
+	 * @param path Path to a geometry definition
+	 * @return The geometry, shared with every other caller and never changed
+	 */
+	public static VectorGeometry get(String path){
+		VectorGeometry vg = files.get(path);
+		if (vg == null){
+			if (!archiveLoaded) loadArchive();
+			long start = System.nanoTime();
+			if (archive != null && archive.contains(path)){
+				vg = archive.get(path);
+				compiled.add(path);
+			}
+			else vg = new VectorGeometry(path);
+			vg.buildLods();
+			loadTimes.put(path, System.nanoTime() - start);
+			loadOrder.add(path);
+			files.put(path, vg);
+		}
+		return vg;
+	}
+
+	/**
+	 * Reads the compiled archive from the classpath, falls back to the text definitions if it is missing or unreadable
+	 */
+	private static void loadArchive(){
+		archiveLoaded = true;
+		long start = System.nanoTime();
+		try {
+			archive = GeometryArchive.fromResource(GeometryArchive.RESOURCE);
+		} catch (IOException e) {
+			e.printStackTrace();
+			archive = null;
+		}
+		archiveTime = System.nanoTime() - start;
+	}
+
+	/**
+	 * Finds the geometry loaded from the given path scaled and then rotated about (0,0), creating
+	 * the copy the first time it is asked for
+	 * @param path Path to a geometry definition
+	 * @param scale Factor passed to VectorGeometry.scale(), 0 for no scale
+	 * @param rotation Angle passed to VectorGeometry.rotate(), 0 for no rotation
+	 * @return The scaled and rotated geometry, shared with every other caller and never changed
+	 */
+	public static VectorGeometry get(String path, double scale, double rotation){
+		if (scale == 0 && rotation == 0) return get(path);
+		Prototype key = new Prototype(path, scale, rotation);
+		VectorGeometry vg = prototypes.get(key);
+		if (vg == null){
+			vg = get(path);
+			if (scale != 0) vg = vg.scale(scale);
+			if (rotation != 0) vg = vg.rotate(rotation);
+			vg.buildLods();
+			prototypes.put(key, vg);
+		}
+		return vg;
+	}
+
+	/**
+	 * @param c A character
+	 * @return Path to the definition of c
+	 */
+	public static String character(char c){
+		return "/geomDefs/characters/" + c + ".geom";
+	}
+
+	/**
+	 * Estimates the memory used by a geometry, counting the object and its packed arrays, and the same for
+	 * each of its levels of detail that is not shared with the level before it. The levels are built if
+	 * they have not been.
+	 * @param vg A geometry
+	 * @return Approximate size in bytes
+	 */
+	public static long estimateBytes(VectorGeometry vg){
+		//The geometry, then the array holding its levels
+		long bytes = shapeBytes(vg) + 16 + VectorGeometry.LOD_TOLERANCES.length * 8;
+		VectorGeometry previous = vg;
+		for (double tolerance : VectorGeometry.LOD_TOLERANCES){
+			VectorGeometry level = vg.getLod(1, tolerance);
+			if (level != previous) bytes += shapeBytes(level);
+			previous = level;
+		}
+		return bytes;
+	}
+
+	/**
+	 * @return Approximate size in bytes of one geometry's object and packed arrays, without its levels of detail
+	 */
+	private static long shapeBytes(VectorGeometry vg){
+		int verts = vg.getVertexCount();
+		int segments = Math.max(verts - 1, 0);
+		//Object header and fields, then the coordinates, segment lengths and normals, each with an array header
+		return 96 + (16 + verts * 16) + (16 + segments * 8) + (16 + segments * 16);
+	}
+
+	/**
+	 * Prints the load time, size and vertices at each level of detail of every loaded geometry, and the
+	 * number of prototypes created
+	 * @param out Stream to print to
+	 */
+	public static void printReport(PrintStream out){
+		long totalTime = archiveTime;
+		long totalBytes = 0;
+		if (archive != null) out.printf("%s\t%d entries\t%.3f%n", GeometryArchive.RESOURCE, archive.size(), archiveTime / 1e6);
+		out.print("asset\tvertices\tsource\tload (ms)\tbytes");
+		for (double tolerance : VectorGeometry.LOD_TOLERANCES) out.print("\tlod " + tolerance);
+		out.println();
+		for (String path : loadOrder){
+			VectorGeometry vg = files.get(path);
+			long time = loadTimes.get(path);
+			long bytes = estimateBytes(vg);
+			totalTime += time;
+			totalBytes += bytes;
+			out.printf("%s\t%d\t%s\t%.3f\t%d", path, vg.getVertexCount(), compiled.contains(path) ? "binary" : "text", time / 1e6, bytes);
+			for (int i = 0; i < VectorGeometry.LOD_TOLERANCES.length; i++) out.print("\t" + vg.getLodVertexCount(i));
+			out.println();
+		}
+		for (VectorGeometry vg : prototypes.values()) totalBytes += estimateBytes(vg);
+		out.printf("%d files in %.3f ms, %d prototypes, %d bytes total%n", loadOrder.size(), totalTime / 1e6, prototypes.size(), totalBytes);
+	}
+
+	/**
+	 * Key for a scaled and rotated copy of a loaded geometry
+	 */
+	private static class Prototype {
+
+		private final String path;
+		private final double scale;
+		private final double rotation;
+
+		public Prototype(String path, double scale, double rotation){
+			this.path = path;
+			this.scale = scale;
+			this.rotation = rotation;
+		}
+
+		@Override
+		public boolean equals(Object o){
+			if (!(o instanceof Prototype)) return false;
+			Prototype p = (Prototype)o;
+			return path.equals(p.path) && Double.compare(scale, p.scale) == 0 && Double.compare(rotation, p.rotation) == 0;
+		}
+
+		@Override
+		public int hashCode(){
+			long bits = Double.doubleToLongBits(scale) * 31 + Double.doubleToLongBits(rotation);
+			return path.hashCode() * 31 + (int)(bits ^ (bits >>> 32));
+		}
+	}
+}
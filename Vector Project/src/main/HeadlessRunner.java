@@ -0,0 +1,254 @@
+package main;
+
+import gameObjects.Bullet;
+import gameObjects.Enemy;
+import gameObjects.GameObject;
+import gameObjects.Piece;
+import gameObjects.Pool;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.lwjgl.input.Keyboard;
+
+/**
+ * Runs State_Game without a window, input devices or sound, for measuring the game's logic on machines
+ * with no display. The player is steered by scripted input and the game is restarted whenever the player
+ * dies. Nothing is drawn unless asked, then every tick is drawn by a SoftwareRenderer. Prints the tick
+ * rate, number of objects and time spent in each phase of the update at regular intervals of game time.
+ * A run with the same options, seed and tick rate plays out exactly the same on any number of threads,
+ * the checksum printed at the end can be compared.
+ *
+ * Options:
+ * --ticks n      number of updates to run, 36000 by default
+ * --rate hz      updates per game second, 60 by default
+ * --speed x      game seconds per real second, 0 for as fast as possible (the default)
+ * --report s     game seconds between reports, 10 by default
+ * --hard         play in hard mode
+ * --idle         give no input, the player sits still and never fires
+ * --threads n    threads to split updates and collisions across, one a core by default
+ * --seed n       seed for the game's random numbers, 1 by default
+ * --render       draw every tick into an 800x600 SoftwareRenderer and report the time taken
+ * --frames dir   draw every tick and write the frame at every report to dir as a PNG
+ * @author Henry
+ *
+ */
+public class HeadlessRunner {
+
+	private static final int WIDTH = 800;
+	private static final int HEIGHT = 600;
+
+	public static void main(String[] args) throws InterruptedException, IOException {
+		long ticks = 36000;
+		int rate = 60;
+		double speed = 0;
+		double reportInterval = 10;
+		boolean hard = false;
+		boolean idle = false;
+		int threads = Runtime.getRuntime().availableProcessors();
+		long seed = 1;
+		boolean render = false;
+		File frames = null;
+		for (int i = 0; i < args.length; i++){
+			if (args[i].equals("--ticks")) ticks = Long.parseLong(args[++i]);
+			else if (args[i].equals("--rate")) rate = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--speed")) speed = Double.parseDouble(args[++i]);
+			else if (args[i].equals("--report")) reportInterval = Double.parseDouble(args[++i]);
+			else if (args[i].equals("--hard")) hard = true;
+			else if (args[i].equals("--idle")) idle = true;
+			else if (args[i].equals("--threads")) threads = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--seed")) seed = Long.parseLong(args[++i]);
+			else if (args[i].equals("--render")) render = true;
+			else if (args[i].equals("--frames")){
+				frames = new File(args[++i]);
+				render = true;
+			}
+			else throw new IllegalArgumentException("Unknown option " + args[i]);
+		}
+
+		Sounds.disable();
+		Autopilot autopilot = new Autopilot(idle);
+		Input.setSource(autopilot);
+		Start.setTickRate(rate);
+		Workers.setThreads(threads);
+		GameObject.setSeed(seed);
+		GeometryAssets.preload();
+		Profiler.reset();
+		Profiler.setEnabled(true);
+		SoftwareRenderer renderer = null;
+		if (render){
+			renderer = new SoftwareRenderer(WIDTH, HEIGHT);
+			Draw.setRenderer(renderer);
+		}
+		if (frames != null && !frames.isDirectory() && !frames.mkdirs()) throw new IOException("Can't create " + frames);
+
+		long reportTicks = Math.max(1, Math.round(reportInterval * Start.getTickRate()));
+		System.out.printf("headless: %d ticks at %d Hz, %s, %s, %d update threads, seed %d%s%n", ticks, Start.getTickRate(),
+				speed > 0 ? speed + "x real time" : "unthrottled", hard ? "hard mode" : "normal mode", threads, seed,
+				render ? ", drawing " + WIDTH + "x" + HEIGHT : "");
+		System.out.print("game time (s)\tticks/s\tobjects\tenemies\tbullets\tpieces\tqueued\tdifficulty\tgames");
+		for (int p = 0; p < Profiler.getPhaseCount(); p++){
+			if (reported(p, render)) System.out.print("\t" + Profiler.getName(p) + " (us/tick)");
+		}
+		System.out.println();
+
+		State_Game game = new State_Game(hard);
+		int games = 1;
+		long start = System.nanoTime();
+		long reportStart = start;
+		long[] phaseStart = new long[Profiler.getPhaseCount()];
+		for (long tick = 1; tick <= ticks; tick++){
+			autopilot.advance();
+			long tickStart = Profiler.start();
+			game.update();
+			Profiler.stop(Profiler.TICK, tickStart);
+			if (render){
+				long renderStart = Profiler.start();
+				renderer.clear();
+				renderer.loadIdentity();
+				game.render();
+				Draw.flush();
+				Profiler.stop(Profiler.RENDER, renderStart);
+			}
+			if (game.isOver()){
+				game.destroy();
+				game = new State_Game(hard);
+				games++;
+			}
+
+			//Wait until real time catches up with game time
+			if (speed > 0){
+				long due = start + (long)(tick * Start.deltaTime() * 1e6 / speed);
+				long wait = due - System.nanoTime();
+				if (wait > 0) Thread.sleep(wait / 1000000, (int)(wait % 1000000));
+			}
+
+			if (tick % reportTicks == 0 || tick == ticks){
+				long now = System.nanoTime();
+				long ticksInReport = tick % reportTicks == 0 ? reportTicks : tick % reportTicks;
+				System.out.printf("%.1f\t%.0f\t%d\t%d\t%d\t%d\t%d\t%d\t%d", tick * Start.deltaTime() / 1000,
+						ticksInReport / ((now - reportStart) / 1e9), GameObject.count(GameObject.class), GameObject.count(Enemy.class),
+						GameObject.count(Bullet.class), GameObject.count(Piece.class), game.getQueuedEnemies(), game.getDifficulty(), games);
+				for (int p = 0; p < Profiler.getPhaseCount(); p++){
+					if (!reported(p, render)) continue;
+					System.out.printf("\t%.1f", (Profiler.getTotal(p) - phaseStart[p]) / 1e3 / ticksInReport);
+					phaseStart[p] = Profiler.getTotal(p);
+				}
+				System.out.println();
+				if (frames != null) renderer.writePng(new File(frames, String.format("frame%08d.png", tick)));
+				reportStart = now;
+			}
+		}
+		long checksum = checksum();
+		int objects = GameObject.getObjectCount();
+		game.destroy();
+		Draw.setRenderer(null);
+
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("%d ticks in %.2f s, %.0f ticks/s, %d games%n", ticks, seconds, ticks / seconds, games);
+		System.out.printf("final state: score %d, %d objects, checksum %016x%n", GameObject.getScore(), objects, checksum);
+		System.out.println("phase\ttotal (s)\tmean (us/tick)\tp50 (us)\tp99 (us)\tmax (us)");
+		for (int p = 0; p < Profiler.getPhaseCount(); p++){
+			if (!reported(p, render)) continue;
+			Histogram h = Profiler.getHistogram(p);
+			System.out.printf("%s\t%.3f\t%.1f\t%.1f\t%.1f\t%.1f%n", Profiler.getName(p), Profiler.getTotal(p) / 1e9, Profiler.getTotal(p) / 1e3 / ticks,
+					h.percentile(.5) / 1e3, h.percentile(.99) / 1e3, h.getMax() / 1e3);
+		}
+		System.out.println("pool\thigh water\tcreated\treused\tfree");
+		printPool("bullet", Bullet.getPool());
+		printPool("piece", Piece.getPool());
+	}
+
+	/**
+	 * @return Whether a phase is measured, frames are never run and drawing only when asked
+	 */
+	private static boolean reported(int phase, boolean render){
+		return phase != Profiler.FRAME && (phase != Profiler.RENDER || render);
+	}
+
+	/**
+	 * @return Hash of the score and the position and velocity of every object in the order they are updated in
+	 */
+	private static long checksum(){
+		long hash = GameObject.getScore();
+		for (int i = 0; i < GameObject.getObjectCount(); i++){
+			GameObject o = GameObject.getObject(i);
+			hash = hash * 31 + Double.doubleToLongBits(o.getX());
+			hash = hash * 31 + Double.doubleToLongBits(o.getY());
+			hash = hash * 31 + Double.doubleToLongBits(o.getVX());
+			hash = hash * 31 + Double.doubleToLongBits(o.getVY());
+		}
+		return hash;
+	}
+
+	private static void printPool(String name, Pool<?> pool){
+		System.out.printf("%s\t%d\t%d\t%d\t%d%n", name, pool.getHighWater(), pool.getCreated(), pool.getReused(), pool.getFree());
+	}
+
+	/**
+	 * Scripted input that holds the fire button, sweeps the aim around the player and walks in a square
+	 */
+	private static class Autopilot implements InputSource {
+
+		//Whether to give no input at all
+		private final boolean idle;
+		//Number of ticks run
+		private long tick;
+
+		public Autopilot(boolean idle){
+			this.idle = idle;
+		}
+
+		/**
+		 * Moves the script on by one tick
+		 */
+		public void advance(){
+			tick++;
+		}
+
+		@Override
+		public boolean isKeyDown(int key) {
+			if (idle) return false;
+			//Change direction every 2 seconds of game time
+			int leg = (int)(tick * Start.deltaTime() / 2000) % 4;
+			switch (leg){
+			case 0: return key == Keyboard.KEY_W;
+			case 1: return key == Keyboard.KEY_D;
+			case 2: return key == Keyboard.KEY_S;
+			default: return key == Keyboard.KEY_A;
+			}
+		}
+
+		@Override
+		public boolean isButtonDown(int button) {
+			return !idle && button == 0;
+		}
+
+		@Override
+		public int getMouseX() {
+			return WIDTH/2 + (int)(100 * Math.cos(aim()));
+		}
+
+		@Override
+		public int getMouseY() {
+			return HEIGHT/2 + (int)(100 * Math.sin(aim()));
+		}
+
+		@Override
+		public int getWidth() {
+			return WIDTH;
+		}
+
+		@Override
+		public int getHeight() {
+			return HEIGHT;
+		}
+
+		/**
+		 * @return Angle to aim at, one turn every 3 seconds of game time
+		 */
+		private double aim(){
+			return idle ? 0 : tick * Start.deltaTime() / 3000 * 2 * Math.PI;
+		}
+	}
+}
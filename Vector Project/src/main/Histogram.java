@@ -0,0 +1,94 @@
+package main;
+
+import java.util.Arrays;
+
+/**
+ * Counts how often each duration was recorded, in buckets that are exact below 8 nanoseconds and then
+ * 8 to every power of 2, so percentiles are within 12.5% of the true value. Recording is a few
+ * operations on a fixed array and never allocates.
+ * @author Henry
+ *
+ */
+public class Histogram {
+
+	//Number of bits of each value that pick the bucket within its power of 2
+	private static final int SUB_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+	private final long[] counts = new long[64 << SUB_BITS];
+	private long count;
+	private long total;
+	private long max;
+
+	/**
+	 * Adds a value to the histogram
+	 * @param value Duration in nanoseconds, negative values are counted as 0
+	 */
+	public void record(long value){
+		if (value < 0) value = 0;
+		counts[bucket(value)]++;
+		count++;
+		total += value;
+		if (value > max) max = value;
+	}
+
+	/**
+	 * @param p Fraction of values, between 0 and 1
+	 * @return The value that fraction p of the recorded values are at or below, rounded up to the
+	 * end of its bucket. 0 if nothing has been recorded.
+	 */
+	public long percentile(double p){
+		if (count == 0) return 0;
+		long target = Math.max(1, (long)Math.ceil(p * count));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++){
+			seen += counts[i];
+			if (seen >= target) return Math.min(upperBound(i), max);
+		}
+		return max;
+	}
+
+	public long getCount(){
+		return count;
+	}
+	public long getTotal(){
+		return total;
+	}
+	public long getMax(){
+		return max;
+	}
+
+	/**
+	 * @return Mean of the recorded values, 0 if nothing has been recorded
+	 */
+	public double getMean(){
+		return count == 0 ? 0 : (double)total / count;
+	}
+
+	/**
+	 * Removes every recorded value
+	 */
+	public void reset(){
+		Arrays.fill(counts, 0);
+		count = 0;
+		total = 0;
+		max = 0;
+	}
+
+	private static int bucket(long value){
+		if (value < SUB_BUCKETS) return (int)value;
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int)(value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return ((exponent - SUB_BITS + 1) << SUB_BITS) | sub;
+	}
+
+	/**
+	 * @return The largest value that goes in the given bucket
+	 */
+	private static long upperBound(int bucket){
+		if (bucket < SUB_BUCKETS) return bucket;
+		int exponent = (bucket >> SUB_BITS) + SUB_BITS - 1;
+		long lower = (long)(SUB_BUCKETS | (bucket & (SUB_BUCKETS - 1))) << (exponent - SUB_BITS);
+		return lower + (1L << (exponent - SUB_BITS)) - 1;
+	}
+}
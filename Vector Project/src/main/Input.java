@@ -0,0 +1,80 @@
+package main;
+
+import org.lwjgl.input.Keyboard;
+import org.lwjgl.input.Mouse;
+import org.lwjgl.opengl.Display;
+
+/**
+ * Input read during game updates. Reads the LWJGL keyboard, mouse and display unless another
+ * source is set, such as the scripted input of the headless runner.
+ * @author Henry
+ *
+ */
+public class Input {
+
+	//Where input is read from
+	private static InputSource source = new Devices();
+
+	/**
+	 * Sets where input is read from
+	 * @param s New source of input
+	 */
+	public static void setSource(InputSource s){
+		source = s;
+	}
+
+	public static boolean isKeyDown(int key){
+		return source.isKeyDown(key);
+	}
+	public static boolean isButtonDown(int button){
+		return source.isButtonDown(button);
+	}
+	public static int getMouseX(){
+		return source.getMouseX();
+	}
+	public static int getMouseY(){
+		return source.getMouseY();
+	}
+	public static int getWidth(){
+		return source.getWidth();
+	}
+	public static int getHeight(){
+		return source.getHeight();
+	}
+
+	/**
+	 * Input from the real keyboard, mouse and window, which must have been created
+	 */
+	private static class Devices implements InputSource {
+
+		@Override
+		public boolean isKeyDown(int key) {
+			return Keyboard.isKeyDown(key);
+		}
+
+		@Override
+		public boolean isButtonDown(int button) {
+			return Mouse.isButtonDown(button);
+		}
+
+		@Override
+		public int getMouseX() {
+			return Mouse.getX();
+		}
+
+		@Override
+		public int getMouseY() {
+			return Mouse.getY();
+		}
+
+		@Override
+		public int getWidth() {
+			return Display.getWidth();
+		}
+
+		@Override
+		public int getHeight() {
+			return Display.getHeight();
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package main;
+
+/**
+ * Provides the keyboard, mouse and screen state read by the game through Input
+ * @author Henry
+ *
+ */
+public interface InputSource {
+
+	/**
+	 * @param key Key code from org.lwjgl.input.Keyboard
+	 * @return Whether the key is held down
+	 */
+	public boolean isKeyDown(int key);
+
+	/**
+	 * @param button Mouse button, 0 for the left button
+	 * @return Whether the button is held down
+	 */
+	public boolean isButtonDown(int button);
+
+	/**
+	 * @return x coordinate of the mouse in the window
+	 */
+	public int getMouseX();
+
+	/**
+	 * @return y coordinate of the mouse in the window
+	 */
+	public int getMouseY();
+
+	/**
+	 * @return Width of the window
+	 */
+	public int getWidth();
+
+	/**
+	 * @return Height of the window
+	 */
+	public int getHeight();
+}
@@ -0,0 +1,75 @@
+package main;
+
+import static org.lwjgl.openal.AL10.*;
+
+import java.nio.FloatBuffer;
+
+import org.lwjgl.BufferUtils;
+
+/**
+ * Plays sound through OpenAL, OpenAL must already be created
+ * @author Henry
+ *
+ */
+public class OpenALBackend implements AudioBackend {
+
+	//Listener faces into the screen with y up, set with every listener move
+	private final FloatBuffer orientation;
+
+	public OpenALBackend(){
+		orientation = BufferUtils.createFloatBuffer(6).put(new float[] { 0.0f, 0.0f, -1.0f,  0.0f, 1.0f, 0.0f });
+		orientation.flip();
+	}
+
+	@Override
+	public int genSource() {
+		int source = alGenSources();
+		if (alGetError() != AL_NO_ERROR) return -1;
+		alSourcef(source, AL_PITCH, 1f);
+		return source;
+	}
+
+	@Override
+	public void deleteSource(int source) {
+		alDeleteSources(source);
+	}
+
+	@Override
+	public void setSound(int source, int buffer, float gain) {
+		alSourcei(source, AL_BUFFER, buffer);
+		alSourcef(source, AL_GAIN, gain);
+	}
+
+	@Override
+	public void setPosition(int source, float x, float y, float vx, float vy) {
+		alSource3f(source, AL_POSITION, x, y, 0);
+		alSource3f(source, AL_VELOCITY, vx, vy, 0);
+	}
+
+	@Override
+	public void play(int source) {
+		alSourcePlay(source);
+	}
+
+	@Override
+	public void stop(int source) {
+		alSourceStop(source);
+	}
+
+	@Override
+	public boolean isPlaying(int source) {
+		return alGetSourcei(source, AL_SOURCE_STATE) == AL_PLAYING;
+	}
+
+	@Override
+	public void setListener(float x, float y, float vx, float vy) {
+		alListener3f(AL_POSITION, x, y, 0);
+		alListener3f(AL_VELOCITY, vx, vy, 0);
+		alListener(AL_ORIENTATION, orientation);
+	}
+
+	@Override
+	public void clearErrors() {
+		alGetError();
+	}
+}
@@ -0,0 +1,267 @@
+package main;
+
+/**
+ * Measures the time spent in each phase of a frame, and the time spent updating and drawing each kind of
+ * game object. Does nothing until it is enabled, so the calls can stay in place while playing.
+ *
+ * Every timing goes into a histogram. endFrame() closes a window of about a second, publishing the
+ * percentiles of the window for the overlay and starting new histograms.
+ * @author Henry
+ *
+ */
+public class Profiler {
+
+	//Phases of a frame
+	public static final int QUEUE = 0;
+	public static final int UPDATE = 1;
+	public static final int INTEGRATE = 2;
+	public static final int COLLISIONS = 3;
+	public static final int WAVES = 4;
+	public static final int RENDER = 5;
+	//A whole update and a whole frame, which may run any number of updates
+	public static final int TICK = 6;
+	public static final int FRAME = 7;
+	private static final String[] NAMES = {"queue", "update", "integrate", "collisions", "waves", "render", "tick", "frame"};
+
+	//Most kinds of object that are timed separately
+	private static final int MAX_TYPES = 16;
+
+	//Length of the window percentiles are published for, in nanoseconds
+	private static final long WINDOW = 1000000000L;
+
+	private static boolean enabled = false;
+
+	//Total time spent in each phase in nanoseconds and the number of times it was timed
+	private static long[] totals = new long[NAMES.length];
+	private static long[] counts = new long[NAMES.length];
+	private static Histogram[] histograms = new Histogram[NAMES.length];
+
+	//Kinds of object seen, with their total update and render time and the number of times each was timed
+	private static Class<?>[] types = new Class<?>[MAX_TYPES];
+	private static String[] typeNames = new String[MAX_TYPES];
+	private static int numTypes;
+	private static long[] typeUpdate = new long[MAX_TYPES];
+	private static long[] typeRender = new long[MAX_TYPES];
+	private static long[] typeUpdates = new long[MAX_TYPES];
+
+	//Objects drawn and left out because they were off screen in the last frame
+	private static int drawn;
+	private static int culled;
+
+	//Start of the current window, ticks and frames run in it and values published at the end of the last window
+	private static long windowStart;
+	private static long windowTicks;
+	private static long windowFrames;
+	private static long[] p50 = new long[NAMES.length];
+	private static long[] p99 = new long[NAMES.length];
+	private static long[] max = new long[NAMES.length];
+	private static double[] typeUpdatePerTick = new double[MAX_TYPES];
+	private static double[] typeRenderPerFrame = new double[MAX_TYPES];
+	private static double[] typeObjectsPerTick = new double[MAX_TYPES];
+
+	static {
+		for (int i = 0; i < NAMES.length; i++) histograms[i] = new Histogram();
+	}
+
+	public static void setEnabled(boolean e){
+		if (e && !enabled){
+			reset();
+			windowStart = System.nanoTime();
+		}
+		enabled = e;
+	}
+	public static boolean isEnabled(){
+		return enabled;
+	}
+
+	/**
+	 * Marks the start of a phase
+	 * @return Time to pass to stop()
+	 */
+	public static long start(){
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Marks the end of a phase and adds the time since start to it
+	 * @param phase The phase that ended
+	 * @param start Value returned by start() when the phase began
+	 */
+	public static void stop(int phase, long start){
+		if (!enabled) return;
+		long time = System.nanoTime() - start;
+		totals[phase] += time;
+		counts[phase]++;
+		histograms[phase].record(time);
+		if (phase == TICK) windowTicks++;
+	}
+
+	/**
+	 * Adds the time since start to the update time of the kind of object o is
+	 * @param start Value returned by start() before o was updated
+	 */
+	public static void stopUpdate(Object o, long start){
+		if (!enabled) return;
+		addUpdates(o.getClass(), System.nanoTime() - start, 1);
+	}
+
+	/**
+	 * Adds updates timed elsewhere to the update time of a kind of object, for objects updated on other
+	 * threads, which time their updates themselves and add them here once they have finished
+	 * @param c The kind of object
+	 * @param time Total time spent updating them, in nanoseconds
+	 * @param updates Number of updates timed
+	 */
+	public static void addUpdates(Class<?> c, long time, long updates){
+		if (!enabled) return;
+		int type = type(c);
+		typeUpdate[type] += time;
+		typeUpdates[type] += updates;
+	}
+
+	/**
+	 * Adds the time since start to the render time of the kind of object o is
+	 * @param start Value returned by start() before o was drawn
+	 */
+	public static void stopRender(Object o, long start){
+		if (!enabled) return;
+		typeRender[type(o.getClass())] += System.nanoTime() - start;
+	}
+
+	/**
+	 * Records how many objects were drawn and how many were off screen and skipped this frame, counted
+	 * even when the Profiler is off
+	 */
+	public static void countDraws(int drawnObjects, int culledObjects){
+		drawn = drawnObjects;
+		culled = culledObjects;
+	}
+
+	/**
+	 * Publishes the percentiles of the current window if it has lasted long enough, called once a frame
+	 */
+	public static void endFrame(){
+		if (!enabled) return;
+		windowFrames++;
+		long now = System.nanoTime();
+		if (now - windowStart < WINDOW) return;
+		for (int i = 0; i < NAMES.length; i++){
+			p50[i] = histograms[i].percentile(.5);
+			p99[i] = histograms[i].percentile(.99);
+			max[i] = histograms[i].getMax();
+			histograms[i].reset();
+		}
+		for (int i = 0; i < numTypes; i++){
+			long ticks = Math.max(windowTicks, 1);
+			typeUpdatePerTick[i] = (double)typeUpdate[i] / ticks;
+			typeRenderPerFrame[i] = (double)typeRender[i] / windowFrames;
+			typeObjectsPerTick[i] = (double)typeUpdates[i] / ticks;
+			typeUpdate[i] = typeRender[i] = typeUpdates[i] = 0;
+		}
+		windowTicks = 0;
+		windowFrames = 0;
+		windowStart = now;
+	}
+
+	/**
+	 * Sets everything measured back to 0
+	 */
+	public static void reset(){
+		for (int i = 0; i < NAMES.length; i++){
+			totals[i] = 0;
+			counts[i] = 0;
+			histograms[i].reset();
+			p50[i] = p99[i] = max[i] = 0;
+		}
+		for (int i = 0; i < numTypes; i++){
+			typeUpdate[i] = typeRender[i] = typeUpdates[i] = 0;
+			typeUpdatePerTick[i] = typeRenderPerFrame[i] = typeObjectsPerTick[i] = 0;
+		}
+		windowTicks = 0;
+		windowFrames = 0;
+	}
+
+	/**
+	 * Finds the index of a kind of object, adding it the first time it is seen. Kinds past MAX_TYPES share the last index.
+	 */
+	private static int type(Class<?> c){
+		for (int i = 0; i < numTypes; i++){
+			if (types[i] == c) return i;
+		}
+		if (numTypes == MAX_TYPES) return MAX_TYPES - 1;
+		types[numTypes] = c;
+		typeNames[numTypes] = c.getSimpleName().toLowerCase();
+		return numTypes++;
+	}
+
+	/**
+	 * @return Number of phases
+	 */
+	public static int getPhaseCount(){
+		return NAMES.length;
+	}
+	public static String getName(int phase){
+		return NAMES[phase];
+	}
+
+	/**
+	 * @return Total time spent in the phase since the last reset, in nanoseconds
+	 */
+	public static long getTotal(int phase){
+		return totals[phase];
+	}
+
+	/**
+	 * @return Number of times the phase was timed since the last reset
+	 */
+	public static long getCount(int phase){
+		return counts[phase];
+	}
+
+	/**
+	 * @return Histogram of the current window of the phase, or of everything since the last reset if endFrame() is not called
+	 */
+	public static Histogram getHistogram(int phase){
+		return histograms[phase];
+	}
+
+	//Values published at the end of the last window, in nanoseconds
+	public static long getP50(int phase){
+		return p50[phase];
+	}
+	public static long getP99(int phase){
+		return p99[phase];
+	}
+	public static long getMax(int phase){
+		return max[phase];
+	}
+
+	//Counts recorded by countDraws() for the last frame
+	public static int getDrawn(){
+		return drawn;
+	}
+	public static int getCulled(){
+		return culled;
+	}
+
+	/**
+	 * @return Number of kinds of object that have been timed
+	 */
+	public static int getTypeCount(){
+		return numTypes;
+	}
+	public static String getTypeName(int type){
+		return typeNames[type];
+	}
+
+	//Values published at the end of the last window, averaged over the ticks or frames in it
+	public static double getTypeUpdatePerTick(int type){
+		return typeUpdatePerTick[type];
+	}
+	public static double getTypeRenderPerFrame(int type){
+		return typeRenderPerFrame[type];
+	}
+	public static double getTypeObjectsPerTick(int type){
+		return typeObjectsPerTick[type];
+	}
+}
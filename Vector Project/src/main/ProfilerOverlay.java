@@ -0,0 +1,83 @@
+package main;
+
+import org.lwjgl.opengl.GL11;
+
+/**
+ * Draws the times measured by the Profiler on top of the game: the median, 99th percentile and maximum of
+ * each phase over the last second, the update and render time of each kind of object, and the number of
+ * objects drawn and culled last frame. Showing the overlay turns the Profiler on, hiding it turns the
+ * Profiler off again.
+ * @author Henry
+ *
+ */
+public class ProfilerOverlay {
+
+	private static boolean visible = false;
+
+	//Left edge of each column and the top row
+	private static final double NAME_X = 500;
+	private static final double COLUMN_1 = 610;
+	private static final double COLUMN_2 = 670;
+	private static final double COLUMN_3 = 730;
+	private static final double TOP = 550;
+	private static final double ROW = 12;
+
+	/**
+	 * Shows the overlay if it is hidden and hides it if it is shown
+	 */
+	public static void toggle(){
+		visible = !visible;
+		Profiler.setEnabled(visible);
+	}
+
+	public static boolean isVisible(){
+		return visible;
+	}
+
+	/**
+	 * Draws the overlay in screen coordinates, drawing anything batched before it first
+	 */
+	public static void render(){
+		if (!visible) return;
+		Draw.flush();
+		GL11.glLoadIdentity();
+		VectorFont font = VectorFont.get(2);
+
+		//Phases in microseconds
+		double y = TOP;
+		font.render("phase", NAME_X, y);
+		font.render("p50", COLUMN_1, y);
+		font.render("p99", COLUMN_2, y);
+		font.render("max", COLUMN_3, y);
+		for (int i = 0; i < Profiler.getPhaseCount(); i++){
+			y -= ROW;
+			font.render(Profiler.getName(i), NAME_X, y);
+			font.render(Profiler.getP50(i) / 1000, 1, COLUMN_1, y);
+			font.render(Profiler.getP99(i) / 1000, 1, COLUMN_2, y);
+			font.render(Profiler.getMax(i) / 1000, 1, COLUMN_3, y);
+		}
+
+		//Kinds of object, update time per tick and render time per frame in microseconds
+		y -= ROW * 2;
+		font.render("object", NAME_X, y);
+		font.render("count", COLUMN_1, y);
+		font.render("update", COLUMN_2, y);
+		font.render("render", COLUMN_3, y);
+		for (int i = 0; i < Profiler.getTypeCount(); i++){
+			y -= ROW;
+			font.render(Profiler.getTypeName(i), NAME_X, y);
+			font.render(Math.round(Profiler.getTypeObjectsPerTick(i)), 1, COLUMN_1, y);
+			font.render(Math.round(Profiler.getTypeUpdatePerTick(i) / 1000), 1, COLUMN_2, y);
+			font.render(Math.round(Profiler.getTypeRenderPerFrame(i) / 1000), 1, COLUMN_3, y);
+		}
+
+		//Objects drawn and skipped for being off screen last frame
+		y -= ROW * 2;
+		font.render("drawn", NAME_X, y);
+		font.render(Profiler.getDrawn(), 1, COLUMN_1, y);
+		y -= ROW;
+		font.render("culled", NAME_X, y);
+		font.render(Profiler.getCulled(), 1, COLUMN_1, y);
+		Draw.flush();
+	}
+}
@@ -0,0 +1,485 @@
+package main;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Draws StrokeBatches into an int[] of pixels without OpenGL, for machines with no display. Draws the
+ * same triangles OpenGL is given, with their colors blended across each triangle and blended onto the
+ * pixels with the alpha of the stroke, like GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA.
+ *
+ * Coordinates are the same as the game's, (0,0) at the bottom left of the screen. Pixels are stored
+ * from the top row down as 0xRRGGBB with the top byte set, as BufferedImage.TYPE_INT_RGB stores them.
+ *
+ * The screen is cut into square tiles. Each triangle is added to the list of every tile it may touch,
+ * then ranges of tiles are drawn on the Workers pool. A tile draws its triangles in the order they were
+ * added, and a pixel is only ever drawn by one tile, so the picture is the same on any number of threads.
+ * @author Henry
+ *
+ */
+public class SoftwareRenderer {
+
+	//Side of a tile in pixels
+	private static final int TILE = 64;
+	//Bits of sub-pixel precision vertices are snapped to
+	private static final int SUBPIXEL_BITS = 8;
+	private static final int ONE = 1 << SUBPIXEL_BITS;
+	//Triangles with a vertex further than this many pixels from the screen are not drawn, so the edge sums can't overflow
+	private static final float LIMIT = 1 << 21;
+	//Fewest triangles in a tile list drawn by one task, fewer than two tasks' worth are drawn on the calling thread
+	private static final int MIN_RASTER = 2048;
+
+	private final int width;
+	private final int height;
+	private final int[] pixels;
+	private final int tilesX;
+	private final int tilesY;
+
+	//Offset added to every vertex, as glTranslated would
+	private double offsetX;
+	private double offsetY;
+
+	//Vertex data of the batch being drawn
+	private float[] data;
+
+	/*
+	 * Triangles that are on screen, with their vertices snapped to sub-pixels in pixel coordinates from the
+	 * top left, turned so they all wind the same way. first holds the index of the triangle's first vertex
+	 * in the batch, negative if its last two vertices were swapped to turn it.
+	 */
+	private int[] snapped = new int[6 * 1024];
+	private int[] first = new int[1024];
+	//First column, first row, last column and last row of the pixels each triangle may touch
+	private int[] bounds = new int[4 * 1024];
+	private int numTriangles;
+
+	//Index of the first entry of each tile in binned, with one extra entry for the end
+	private final int[] tileStart;
+	//Triangles in each tile's list, one tile after another
+	private int[] binned = new int[4096];
+
+	//Ranges of tiles drawn by each task
+	private Raster[] rasters = {new Raster()};
+	private int numRasters;
+
+	//Forks every range but the first, draws the first itself and then waits for the others
+	private final RecursiveAction root = new RecursiveAction(){
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected void compute(){
+			for (int i = 1; i < numRasters; i++){
+				rasters[i].reinitialize();
+				rasters[i].fork();
+			}
+			rasters[0].drawRange();
+			for (int i = numRasters - 1; i > 0; i--) rasters[i].join();
+		}
+	};
+
+	/**
+	 * @param width width of the screen in pixels
+	 * @param height height of the screen in pixels
+	 */
+	public SoftwareRenderer(int width, int height){
+		this.width = width;
+		this.height = height;
+		pixels = new int[width * height];
+		tilesX = (width + TILE - 1) / TILE;
+		tilesY = (height + TILE - 1) / TILE;
+		tileStart = new int[tilesX * tilesY + 1];
+		clear();
+	}
+
+	/**
+	 * Sets every pixel to black, like glClear with the clear color of the game
+	 */
+	public void clear(){
+		Arrays.fill(pixels, 0xff000000);
+	}
+
+	/**
+	 * Moves everything drawn after this call, like glTranslated
+	 */
+	public void translate(double x, double y){
+		offsetX += x;
+		offsetY += y;
+	}
+
+	/**
+	 * Stops moving what is drawn, like glLoadIdentity
+	 */
+	public void loadIdentity(){
+		offsetX = 0;
+		offsetY = 0;
+	}
+
+	/**
+	 * Draws every triangle in the batch on top of the pixels, in the order they were added. Meshes that
+	 * have not been filled in yet are filled on the Workers pool first. The batch is not changed.
+	 * @param batch Batch to draw
+	 */
+	public void draw(StrokeBatch batch){
+		draw(batch, Workers.getPool());
+	}
+
+	/**
+	 * Draws every triangle in the batch on top of the pixels, in the order they were added
+	 * @param batch Batch to draw
+	 * @param pool Pool to fill the batch and draw the tiles on, null to do everything on the calling thread
+	 */
+	public void draw(StrokeBatch batch, ForkJoinPool pool){
+		if (batch.getVertexCount() == 0) return;
+		batch.fill(pool);
+		data = batch.getData();
+		setUp(batch.getVertexCount() / 3);
+		int entries = bin();
+
+		int numTiles = tilesX * tilesY;
+		numRasters = pool == null ? 1 : Math.max(1, Math.min(Math.min(pool.getParallelism() * 4, numTiles), entries / MIN_RASTER));
+		if (numRasters > rasters.length){
+			int old = rasters.length;
+			rasters = Arrays.copyOf(rasters, numRasters);
+			for (int i = old; i < numRasters; i++) rasters[i] = new Raster();
+		}
+		//Cut the tiles into ranges with about the same number of triangles in each
+		int tile = 0;
+		for (int i = 0; i < numRasters; i++){
+			rasters[i].from = tile;
+			long end = (long)entries * (i + 1) / numRasters;
+			while (tile < numTiles && tileStart[tile + 1] <= end) tile++;
+			if (i == numRasters - 1) tile = numTiles;
+			rasters[i].to = tile;
+		}
+
+		if (numRasters == 1) rasters[0].drawRange();
+		else {
+			root.reinitialize();
+			pool.invoke(root);
+		}
+		data = null;
+	}
+
+	/**
+	 * Snaps the vertices of every triangle on screen and works out which pixels it may touch
+	 * @param count number of triangles in the batch
+	 */
+	private void setUp(int count){
+		if (count > first.length){
+			int size = Math.max(first.length * 2, count);
+			snapped = new int[size * 6];
+			first = new int[size];
+			bounds = new int[size * 4];
+		}
+		numTriangles = 0;
+		float ox = (float)offsetX;
+		float oy = (float)(height - offsetY);
+		for (int t = 0; t < count; t++){
+			int v = t * 3 * StrokeBatch.VERTEX_SIZE;
+			float x0 = data[v] + ox;
+			float y0 = oy - data[v + 1];
+			float x1 = data[v + StrokeBatch.VERTEX_SIZE] + ox;
+			float y1 = oy - data[v + StrokeBatch.VERTEX_SIZE + 1];
+			float x2 = data[v + 2 * StrokeBatch.VERTEX_SIZE] + ox;
+			float y2 = oy - data[v + 2 * StrokeBatch.VERTEX_SIZE + 1];
+
+			//Leave out triangles that are off screen or too far away to snap
+			float minX = Math.min(x0, Math.min(x1, x2));
+			float maxX = Math.max(x0, Math.max(x1, x2));
+			float minY = Math.min(y0, Math.min(y1, y2));
+			float maxY = Math.max(y0, Math.max(y1, y2));
+			if (maxX < 0 || maxY < 0 || minX > width || minY > height) continue;
+			if (minX < -LIMIT || minY < -LIMIT || maxX > LIMIT || maxY > LIMIT) continue;
+
+			int sx0 = Math.round(x0 * ONE);
+			int sy0 = Math.round(y0 * ONE);
+			int sx1 = Math.round(x1 * ONE);
+			int sy1 = Math.round(y1 * ONE);
+			int sx2 = Math.round(x2 * ONE);
+			int sy2 = Math.round(y2 * ONE);
+			long area = (long)(sx1 - sx0) * (sy2 - sy0) - (long)(sy1 - sy0) * (sx2 - sx0);
+			if (area == 0) continue;
+
+			//Pixels whose centers may be inside, clipped to the screen
+			int left = Math.max(0, Math.min(sx0, Math.min(sx1, sx2)) >> SUBPIXEL_BITS);
+			int top = Math.max(0, Math.min(sy0, Math.min(sy1, sy2)) >> SUBPIXEL_BITS);
+			int right = Math.min(width - 1, Math.max(sx0, Math.max(sx1, sx2)) >> SUBPIXEL_BITS);
+			int bottom = Math.min(height - 1, Math.max(sy0, Math.max(sy1, sy2)) >> SUBPIXEL_BITS);
+			if (left > right || top > bottom) continue;
+
+			int n = numTriangles++;
+			int s = n * 6;
+			snapped[s] = sx0;
+			snapped[s + 1] = sy0;
+			if (area > 0){
+				snapped[s + 2] = sx1;
+				snapped[s + 3] = sy1;
+				snapped[s + 4] = sx2;
+				snapped[s + 5] = sy2;
+				first[n] = t * 3;
+			} else {
+				snapped[s + 2] = sx2;
+				snapped[s + 3] = sy2;
+				snapped[s + 4] = sx1;
+				snapped[s + 5] = sy1;
+				first[n] = -t * 3 - 1;
+			}
+			bounds[n * 4] = left;
+			bounds[n * 4 + 1] = top;
+			bounds[n * 4 + 2] = right;
+			bounds[n * 4 + 3] = bottom;
+		}
+	}
+
+	/**
+	 * Adds every triangle set up to the list of each tile its bounds touch, keeping them in order
+	 * @return The number of entries in all of the lists
+	 */
+	private int bin(){
+		int numTiles = tilesX * tilesY;
+		Arrays.fill(tileStart, 0);
+		//Count the triangles in each tile, then turn the counts into where each list starts
+		for (int n = 0; n < numTriangles; n++){
+			int tx0 = bounds[n * 4] / TILE;
+			int ty0 = bounds[n * 4 + 1] / TILE;
+			int tx1 = bounds[n * 4 + 2] / TILE;
+			int ty1 = bounds[n * 4 + 3] / TILE;
+			for (int ty = ty0; ty <= ty1; ty++){
+				for (int tx = tx0; tx <= tx1; tx++) tileStart[ty * tilesX + tx + 1]++;
+			}
+		}
+		for (int i = 0; i < numTiles; i++) tileStart[i + 1] += tileStart[i];
+		int entries = tileStart[numTiles];
+		if (entries > binned.length) binned = new int[Math.max(binned.length * 2, entries)];
+
+		//Fill in the lists, moving each start along and then moving them back
+		for (int n = 0; n < numTriangles; n++){
+			int tx0 = bounds[n * 4] / TILE;
+			int ty0 = bounds[n * 4 + 1] / TILE;
+			int tx1 = bounds[n * 4 + 2] / TILE;
+			int ty1 = bounds[n * 4 + 3] / TILE;
+			for (int ty = ty0; ty <= ty1; ty++){
+				for (int tx = tx0; tx <= tx1; tx++) binned[tileStart[ty * tilesX + tx]++] = n;
+			}
+		}
+		for (int i = numTiles; i > 0; i--) tileStart[i] = tileStart[i - 1];
+		tileStart[0] = 0;
+		return entries;
+	}
+
+	/**
+	 * Draws the part of a triangle inside a rectangle of pixels. A pixel is drawn if its center is inside
+	 * the triangle. Centers on an edge are only drawn for the edges facing one way, so a pixel on the edge
+	 * two triangles share is drawn once, as OpenGL does.
+	 * @param n index of the triangle among those set up
+	 * @param left first column of the rectangle
+	 * @param top first row of the rectangle
+	 * @param right last column of the rectangle
+	 * @param bottom last row of the rectangle
+	 */
+	private void drawTriangle(int n, int left, int top, int right, int bottom){
+		int s = n * 6;
+		int ax = snapped[s], ay = snapped[s + 1];
+		int bx = snapped[s + 2], by = snapped[s + 3];
+		int cx = snapped[s + 4], cy = snapped[s + 5];
+
+		//Vertices in the batch, in the same order as the snapped vertices
+		int va, vb, vc;
+		if (first[n] >= 0){
+			va = first[n] * StrokeBatch.VERTEX_SIZE;
+			vb = va + StrokeBatch.VERTEX_SIZE;
+			vc = vb + StrokeBatch.VERTEX_SIZE;
+		} else {
+			va = (-first[n] - 1) * StrokeBatch.VERTEX_SIZE;
+			vc = va + StrokeBatch.VERTEX_SIZE;
+			vb = vc + StrokeBatch.VERTEX_SIZE;
+		}
+
+		/*
+		 * Each edge function is positive on the inside of its edge and 0 on it, and is area times the
+		 * weight of the vertex opposite the edge. Moving one pixel right adds stepX, one pixel down stepY.
+		 * The bias is -1 for edges whose centers are left out, so inside is always edge + bias >= 0.
+		 */
+		long px = ((long)left << SUBPIXEL_BITS) + ONE / 2;
+		long py = ((long)top << SUBPIXEL_BITS) + ONE / 2;
+		long rowA = edge(bx, by, cx, cy, px, py);
+		long rowB = edge(cx, cy, ax, ay, px, py);
+		long rowC = edge(ax, ay, bx, by, px, py);
+		long stepXA = (long)(by - cy) * ONE, stepYA = (long)(cx - bx) * ONE;
+		long stepXB = (long)(cy - ay) * ONE, stepYB = (long)(ax - cx) * ONE;
+		long stepXC = (long)(ay - by) * ONE, stepYC = (long)(bx - ax) * ONE;
+		int biasA = bias(cx - bx, cy - by);
+		int biasB = bias(ax - cx, ay - cy);
+		int biasC = bias(bx - ax, by - ay);
+		//Reciprocals of the steps, for finding where each row crosses the edges without dividing
+		double invXA = 1.0 / stepXA, invXB = 1.0 / stepXB, invXC = 1.0 / stepXC;
+		double invArea = 1.0 / ((long)(bx - ax) * (cy - ay) - (long)(by - ay) * (cx - ax));
+
+		//Colors of the vertices, clamped like glColor
+		float ra = clamp(data[va + 2]), ga = clamp(data[va + 3]), ba = clamp(data[va + 4]), aa = clamp(data[va + 5]);
+		float rb = clamp(data[vb + 2]), gb = clamp(data[vb + 3]), bb = clamp(data[vb + 4]), ab = clamp(data[vb + 5]);
+		float rc = clamp(data[vc + 2]), gc = clamp(data[vc + 3]), bc = clamp(data[vc + 4]), ac = clamp(data[vc + 5]);
+		//Change in each color for one pixel to the right
+		float drdx = (float)((stepXA * ra + stepXB * rb + stepXC * rc) * invArea);
+		float dgdx = (float)((stepXA * ga + stepXB * gb + stepXC * gc) * invArea);
+		float dbdx = (float)((stepXA * ba + stepXB * bb + stepXC * bc) * invArea);
+		float dadx = (float)((stepXA * aa + stepXB * ab + stepXC * ac) * invArea);
+
+		int columns = right - left;
+		for (int row = top; row <= bottom; row++, rowA += stepYA, rowB += stepYB, rowC += stepYC){
+			//Columns of this row inside all three edges, an edge going up to the right only limits the first
+			//column and any other edge only the last
+			int from = 0;
+			int to = columns;
+			if (stepXA > 0) from = Math.max(from, spanStart(rowA + biasA, stepXA, invXA, columns));
+			else to = Math.min(to, spanEnd(rowA + biasA, stepXA, invXA, columns));
+			if (stepXB > 0) from = Math.max(from, spanStart(rowB + biasB, stepXB, invXB, columns));
+			else to = Math.min(to, spanEnd(rowB + biasB, stepXB, invXB, columns));
+			if (stepXC > 0) from = Math.max(from, spanStart(rowC + biasC, stepXC, invXC, columns));
+			else to = Math.min(to, spanEnd(rowC + biasC, stepXC, invXC, columns));
+			if (from > to) continue;
+
+			double wa = (rowA + from * stepXA) * invArea;
+			double wb = (rowB + from * stepXB) * invArea;
+			double wc = (rowC + from * stepXC) * invArea;
+			float r = (float)(wa * ra + wb * rb + wc * rc);
+			float g = (float)(wa * ga + wb * gb + wc * gc);
+			float b = (float)(wa * ba + wb * bb + wc * bc);
+			float a = (float)(wa * aa + wb * ab + wc * ac);
+
+			blend(row * width + left + from, row * width + left + to, r, g, b, a, drdx, dgdx, dbdx, dadx);
+		}
+	}
+
+	/**
+	 * Blends a row of pixels with colors that change by the same amount from one pixel to the next,
+	 * each pixel becomes color * alpha + pixel * (1 - alpha)
+	 * @param p index of the first pixel
+	 * @param end index of the last pixel
+	 */
+	private void blend(int p, int end, float r, float g, float b, float a, float drdx, float dgdx, float dbdx, float dadx){
+		for (; p <= end; p++, r += drdx, g += dgdx, b += dbdx, a += dadx){
+			if (a <= 0) continue;
+			float keep = 1 - a;
+			int dst = pixels[p];
+			int red = Math.min(255, (int)((r * a * 255) + ((dst >> 16) & 0xff) * keep + .5f));
+			int green = Math.min(255, (int)((g * a * 255) + ((dst >> 8) & 0xff) * keep + .5f));
+			int blue = Math.min(255, (int)((b * a * 255) + (dst & 0xff) * keep + .5f));
+			pixels[p] = 0xff000000 | red << 16 | green << 8 | blue;
+		}
+	}
+
+	/**
+	 * @return Twice the signed area of the triangle a b p, positive when p is on the inside of the edge a b
+	 */
+	private static long edge(int ax, int ay, int bx, int by, long px, long py){
+		return (long)(bx - ax) * (py - ay) - (long)(by - ay) * (px - ax);
+	}
+
+	/**
+	 * @return 0 if centers on an edge going in the given direction are drawn, -1 if they are left out. Of an
+	 * edge and the same edge going the other way, exactly one is drawn.
+	 */
+	private static int bias(int dx, int dy){
+		return dy > 0 || (dy == 0 && dx < 0) ? 0 : -1;
+	}
+
+	/**
+	 * Finds the first column inside an edge. The column is estimated with the reciprocal of the step and
+	 * then moved until it is exact, so rounding can't change which pixels are drawn.
+	 * @param e edge function plus bias at the first column
+	 * @param step change in e for one column to the right
+	 * @param invStep 1 / step
+	 * @param columns last column
+	 * @return The first column inside the edge, past the last column if there are none
+	 */
+	private static int spanStart(long e, long step, double invStep, int columns){
+		if (e >= 0) return 0;
+		if (step <= 0) return columns + 1;
+		int k = (int)Math.min(columns + 1, Math.ceil(-e * invStep));
+		while (k <= columns && e + k * step < 0) k++;
+		while (k > 0 && e + (k - 1) * step >= 0) k--;
+		return k;
+	}
+
+	/**
+	 * Finds the last column inside an edge, the same way as spanStart()
+	 * @param e edge function plus bias at the first column
+	 * @param step change in e for one column to the right
+	 * @param invStep 1 / step
+	 * @param columns last column
+	 * @return The last column inside the edge, -1 if there are none
+	 */
+	private static int spanEnd(long e, long step, double invStep, int columns){
+		if (step >= 0) return e >= 0 || step > 0 ? columns : -1;
+		if (e < 0) return -1;
+		int k = (int)Math.min(columns, Math.floor(e * -invStep));
+		while (k >= 0 && e + k * step < 0) k--;
+		while (k < columns && e + (k + 1) * step >= 0) k++;
+		return k;
+	}
+
+	private static float clamp(float c){
+		return c < 0 ? 0 : c > 1 ? 1 : c;
+	}
+
+	/**
+	 * @return The pixels from the top row down, as 0xRRGGBB with the top byte set. Changed by the next draw.
+	 */
+	public int[] getPixels(){
+		return pixels;
+	}
+	public int getWidth(){
+		return width;
+	}
+	public int getHeight(){
+		return height;
+	}
+
+	/**
+	 * Writes the pixels to a PNG file
+	 * @param file File to write
+	 * @throws IOException if the file can't be written
+	 */
+	public void writePng(File file) throws IOException {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		image.setRGB(0, 0, width, height, pixels, 0, width);
+		ImageIO.write(image, "png", file);
+	}
+
+	/**
+	 * Draws a range of tiles, each with the triangles in its list in the order they were added
+	 */
+	private class Raster extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		int from;
+		int to;
+
+		@Override
+		protected void compute(){
+			drawRange();
+		}
+
+		void drawRange(){
+			for (int tile = from; tile < to; tile++){
+				int left = tile % tilesX * TILE;
+				int top = tile / tilesX * TILE;
+				int right = Math.min(width, left + TILE) - 1;
+				int bottom = Math.min(height, top + TILE) - 1;
+				for (int i = tileStart[tile]; i < tileStart[tile + 1]; i++){
+					int n = binned[i];
+					drawTriangle(n, Math.max(left, bounds[n * 4]), Math.max(top, bounds[n * 4 + 1]),
+							Math.min(right, bounds[n * 4 + 2]), Math.min(bottom, bounds[n * 4 + 3]));
+				}
+			}
+		}
+	}
+}
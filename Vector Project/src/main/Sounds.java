@@ -1,10 +1,8 @@
 package main;
 
 import java.io.BufferedInputStream;
-import java.nio.FloatBuffer;
-import java.util.ArrayList;
+import java.util.Arrays;
 
-import org.lwjgl.BufferUtils;
 import org.lwjgl.LWJGLException;
 import org.lwjgl.openal.AL;
 import org.lwjgl.openal.AL10;
@@ -14,6 +12,11 @@ import static org.lwjgl.openal.AL10.*;
 /**
  * Handles sound effects and music
  * Uses OpenAL, all methods prefixed with 'al' are from the OpenAL library
+ *
+ * Objects make emitters with genSource() and play them. Sounds are played on a fixed number of OpenAL
+ * sources by a VoicePool, which runs on its own thread once OpenAL is set up. The methods here only add
+ * commands to a queue for that thread, so the game never waits on OpenAL. update() is called once a
+ * frame to let the pool find the voices that have finished and move the others to their emitters.
  * @author Henry
  *
  */
@@ -24,49 +27,81 @@ public class Sounds {
 	public static final int KILLED = 1;
 	public static final int HURT = 2;
 	
-	//Factor by which to scale position and velocity values
-	private static final float DIST_FACTOR = 250;
+	//Most OpenAL sources made, fewer are used if the driver runs out
+	private static final int MAX_VOICES = 32;
+	//Most commands waiting for the audio thread
+	private static final int QUEUE_SIZE = 4096;
 	
-	//Lists of sounds and active source handles
+	//Lists of sounds
 	static int[] buffers;
-	static ArrayList<Integer> activeSources;
+	
+	//Voices sounds are played on, the queue of commands for them and the thread that runs the commands
+	private static VoicePool pool;
+	private static AudioQueue queue;
+	private static AudioThread thread;
+	
+	//Emitter handles that are in use and handles that have been freed, handles start at 1 so 0 is never valid
+	private static boolean[] emitterUsed = new boolean[16];
+	private static int[] freeEmitters = new int[16];
+	private static int numFreeEmitters;
+	private static int numEmitters;
+	
+	//Whether OpenAL is used, when false every method does nothing and no sources are created
+	private static boolean enabled = true;
 	
 	/**
-	 * Generates and returns a new sound source with the given parameters
+	 * Turns sound off without setting up OpenAL, used to run the game with no audio device
+	 */
+	public static void disable(){
+		enabled = false;
+	}
+	
+	/**
+	 * Makes an emitter with the given parameters
 	 * @param ID Sound attached to this source
 	 * @param x x position of this source
 	 * @param y y position of this source
 	 * @param vx x velocity of this source
 	 * @param vy y velocity of this source
-	 * @return handle to the generated source or -1 if there was an error
+	 * @return handle to the emitter or -1 if sound is off
 	 */
 	public static int genSource(int ID, double x, double y, double vx, double vy){
-		int source = alGenSources();
-		alSourcei(source, AL_BUFFER, buffers[ID]);
-		alSource3f(source, AL_POSITION, (float)x/DIST_FACTOR, (float)y/DIST_FACTOR, 0);
-		alSource3f(source, AL_VELOCITY, (float)vx/DIST_FACTOR, (float)vy/DIST_FACTOR,0);
-		if (ID == SHOT) alSourcef(source, AL_GAIN, .6f);
-		else alSourcef(source, AL_GAIN, 1f);
-		alSourcef(source, AL_PITCH, 1f);
-		
-		
-		if (alGetError() != AL_NO_ERROR) return -1;
-		
-		activeSources.add(new Integer(source));
-		return source;
-		
+		if (!enabled || queue == null) return -1;
+		int handle;
+		if (numFreeEmitters > 0) handle = freeEmitters[--numFreeEmitters];
+		else {
+			if (numEmitters == emitterUsed.length){
+				emitterUsed = Arrays.copyOf(emitterUsed, numEmitters * 2);
+				freeEmitters = Arrays.copyOf(freeEmitters, numEmitters * 2);
+			}
+			handle = ++numEmitters;
+		}
+		emitterUsed[handle - 1] = true;
+		queue.offer(VoicePool.CREATE, handle, ID, (float)x, (float)y, (float)vx, (float)vy);
+		return handle;
 	}
 	
 	/**
-	 * Play the sound associated with the given source handle
+	 * Play the sound associated with the given source handle. Restarts the sound if the emitter is
+	 * already playing, does nothing if there is no voice for it.
 	 * @param source handle to a source
 	 */
 	public static void playSound(int source){
-		if (source != -1) alSourcePlay(source);
+		if (!enabled || !valid(source)) return;
+		queue.offer(VoicePool.PLAY, source, 0, 0, 0, 0, 0);
+	}
+	
+	/**
+	 * Plays a sound once at the given position, for sounds that are not moved or played again
+	 * @param ID Sound to play
+	 */
+	public static void playOnce(int ID, double x, double y, double vx, double vy){
+		if (!enabled || queue == null) return;
+		queue.offer(VoicePool.PLAY_ONCE, 0, ID, (float)x, (float)y, (float)vx, (float)vy);
 	}
 	
 	/**
-	 * Update the given source to the given position and velocity
+	 * Update the given source to the given position and velocity, a voice playing it is moved at the next update()
 	 * @param source handle to a source
 	 * @param x new x position
 	 * @param y new y position
@@ -74,20 +109,45 @@ public class Sounds {
 	 * @param vy new x velocity
 	 */
 	public static void updateSource(int source, double x, double y, double vx, double vy){
-		alSource3f(source, AL_POSITION, (float)x/DIST_FACTOR, (float)y/DIST_FACTOR, 0);
-		alSource3f(source, AL_VELOCITY, (float)vx/DIST_FACTOR, (float)vy/DIST_FACTOR, 0);
-		
-		alGetError();
+		if (!enabled || !valid(source)) return;
+		queue.offer(VoicePool.MOVE, source, 0, (float)x, (float)y, (float)vx, (float)vy);
 	}
 	
 	/**
-	 * Free the memory used by the given source
+	 * Frees the given emitter, a sound it is playing carries on until it ends
 	 * @param source a handle to a source
 	 */
 	public static void deleteSource(int source){
-		if (activeSources.contains(new Integer(source)));
-		alDeleteSources(source);
-		activeSources.remove(new Integer(source));
+		if (!enabled || !valid(source)) return;
+		emitterUsed[source - 1] = false;
+		freeEmitters[numFreeEmitters++] = source;
+		queue.offer(VoicePool.DELETE, source, 0, 0, 0, 0, 0);
+	}
+	
+	/**
+	 * Lets the voices that have finished be reused and moves the others to their emitters, called once a frame
+	 */
+	public static void update(){
+		if (!enabled || queue == null) return;
+		queue.offer(VoicePool.UPDATE, 0, 0, 0, 0, 0, 0);
+	}
+	
+	private static boolean valid(int source){
+		return queue != null && source > 0 && source <= numEmitters && emitterUsed[source - 1];
+	}
+	
+	/**
+	 * @return The pool sounds are played on, null until sound is set up
+	 */
+	public static VoicePool getPool(){
+		return pool;
+	}
+	
+	/**
+	 * @return The queue of commands for the audio thread, null until sound is set up
+	 */
+	public static AudioQueue getQueue(){
+		return queue;
 	}
 	
 	/**
@@ -95,6 +155,7 @@ public class Sounds {
 	 * @return OpenAL constant indicating success or failure
 	 */
 	public static int setUpSound(){
+		if (!enabled) return AL10.AL_FALSE;
 		
 		try {
 			AL.create();
@@ -121,21 +182,26 @@ public class Sounds {
 		alBufferData(buffers[2], file.format, file.data, file.samplerate);
 		file.dispose();
 		
-		activeSources = new ArrayList<Integer>();
 		if (AL10.alGetError() != AL10.AL_NO_ERROR) return AL10.AL_FALSE;
 		
+		//From here on OpenAL is only called by the audio thread
+		pool = new VoicePool(new OpenALBackend(), buffers, MAX_VOICES);
+		queue = new AudioQueue(QUEUE_SIZE);
+		thread = new AudioThread(queue, pool);
+		thread.start();
+		
 		return AL10.AL_TRUE;
 		
 	}
 	
 	/**
-	 * Indicates whether the given source is currently plaing a sound
+	 * Indicates whether the given source is currently playing a sound, as of the last command the audio thread ran
 	 * @param source
 	 * @return Is the sound currently playing
 	 */
 	public static boolean isPlaying(int source){
-		int isPlaying = alGetSourcei(source, AL_SOURCE_STATE);
-		return isPlaying == AL_PLAYING;
+		if (!enabled || !valid(source)) return false;
+		return pool.isPlaying(source);
 	}
 	
 	/**
@@ -146,19 +212,18 @@ public class Sounds {
 	 * @param vy new y velocity
 	 */
 	public static void updateListener(double x, double y, double vx, double vy){
-		alListener3f(AL_POSITION, (float)x/DIST_FACTOR, (float)y/DIST_FACTOR, 0);
-		alListener3f(AL_VELOCITY, (float)vx/DIST_FACTOR, (float)vy/DIST_FACTOR, 0);
-		FloatBuffer ori = BufferUtils.createFloatBuffer(6).put(new float[] { 0.0f, 0.0f, -1.0f,  0.0f, 1.0f, 0.0f });
-		ori.flip();
-		alListener(AL_ORIENTATION, ori);
-		alGetError();
+		if (!enabled || queue == null) return;
+		queue.offer(VoicePool.LISTENER, 0, 0, (float)x, (float)y, (float)vx, (float)vy);
 	}
 	
 	/**
-	 * Clear memory associated with loaded sounds and sources
+	 * Stops the audio thread once it has run every queued command, then clears memory associated with loaded sounds and sources
 	 */
 	public static void decon(){
+		if (!enabled || thread == null) return;
+		thread.shutdown();
+		//Nothing reads the queue any more, so nothing may wait on it
+		queue = null;
 		for (int i = 0; i < buffers.length; i++) alDeleteBuffers(buffers[i]);
-		for (int i = 0; i < activeSources.size(); i++) alDeleteSources(activeSources.get(i));
 	}
 }
@@ -1,5 +1,8 @@
 package main;
 
+import java.io.IOException;
+import java.util.Arrays;
+
 import org.lwjgl.LWJGLException;
 import org.lwjgl.Sys;
 import org.lwjgl.input.Keyboard;
@@ -16,23 +19,59 @@ import org.lwjgl.opengl.GL11;
  */
 public class Start {
 	
-	//Used to calculate time between frames
-	private static double deltaTime;
+	//Number of simulation ticks per second, and the limits it can be set to
+	private static int tickRate = 60;
+	public static final int MIN_TICK_RATE = 30;
+	public static final int MAX_TICK_RATE = 240;
+	
+	//Most ticks run for one frame, time past this is dropped so a long pause doesn't stall the game catching up
+	public static final int MAX_TICKS_PER_FRAME = 5;
+	//Frames are not drawn faster than this
+	public static final int MAX_FRAME_RATE = 240;
+	
+	//Length of a tick in milliseconds
+	private static double deltaTime = 1000.0 / tickRate;
+	//Time of the last frame, and time that has passed but not been simulated yet
 	private static double lastTime;
+	private static double accumulator;
+	//Fraction of a tick between the last tick and the frame being drawn
+	private static double alpha;
 	
 	//Current game state
 	private static GameState state;
 	
-	public static void main(String[] args) {
+	//Whether the key that toggles the profiler overlay was down last frame
+	private static boolean overlayKeyDown;
+	
+	public static void main(String[] args) throws InterruptedException, IOException {
+		
+		//Run without a window or sound, see HeadlessRunner for the options
+		if (args.length > 0 && args[0].equals("--headless")){
+			HeadlessRunner.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		
+		//Tick rate can be set with -Dvectrix.tickRate=<updates per second>
+		setTickRate(Integer.getInteger("vectrix.tickRate", tickRate));
+		//Error allowed when drawing simplified geometry can be set with -Dvectrix.lodBudget=<pixels>, 0 for full detail
+		Draw.setLodBudget(Double.parseDouble(System.getProperty("vectrix.lodBudget", "" + Draw.getLodBudget())));
+		//Threads updates, collisions and drawing are split across can be set with -Dvectrix.threads=<threads>
+		Workers.setThreads(Integer.getInteger("vectrix.threads", Workers.getThreads()));
 		
 		//Initialize Display and OpenGL
-		lastTime = (Sys.getTime()* 1000 / Sys.getTimerResolution() );
 		init();
+		lastTime = time();
 		while(!Display.isCloseRequested()){
+			long frameStart = Profiler.start();
 			
-			//Updates game state
-			updateDeltaTime();
-			update();
+			//Run as many ticks as fit in the time since the last frame
+			accumulator += frameTime();
+			while (accumulator >= deltaTime){
+				update();
+				accumulator -= deltaTime;
+			}
+			alpha = accumulator / deltaTime;
+			Sounds.update();
 			
 			//Clear screen
 			GL11.glClear(GL11.GL_COLOR_BUFFER_BIT);
@@ -40,11 +79,17 @@ public class Start {
 			
 			//Render
 			render();
+			Profiler.stop(Profiler.FRAME, frameStart);
+			Profiler.endFrame();
 			
+			//Toggle the profiler overlay when F3 is pressed, it is drawn after the frame is timed
+			if (Keyboard.isKeyDown(Keyboard.KEY_F3) && !overlayKeyDown) ProfilerOverlay.toggle();
+			overlayKeyDown = Keyboard.isKeyDown(Keyboard.KEY_F3);
+			ProfilerOverlay.render();
 			
 			//Update display
 			Display.update();
-			Display.sync(1000);
+			Display.sync(MAX_FRAME_RATE);
 		}
 		//Destroy when done
 		decon();
@@ -55,31 +100,74 @@ public class Start {
 	 * Update the current state, transition to a new state if indicated by state.transitionTo()
 	 */
 	private static void update(){
+		long start = Profiler.start();
 		state.update();
 		if (state.transitionTo() != null) state = state.transitionTo();
+		Profiler.stop(Profiler.TICK, start);
 	}
 	
 	/**
 	 * Render the current game state
 	 */
 	private static void render(){
+		long start = Profiler.start();
 		state.render();
+		Draw.flush();
+		Profiler.stop(Profiler.RENDER, start);
 	}
 	
 	/**
 	 * 
-	 * @return Time between frames
+	 * @return Time simulated by each update, in milliseconds
 	 */
 	public static double deltaTime(){
 		return deltaTime;
 	}
 	
 	/**
-	 * Calculates time between frames
+	 * 
+	 * @return Fraction of a tick that has passed since the last update, between 0 and 1, used to draw
+	 * objects between where they were at the last two updates
+	 */
+	public static double alpha(){
+		return alpha;
+	}
+	
+	/**
+	 * 
+	 * @return Number of updates per second
+	 */
+	public static int getTickRate(){
+		return tickRate;
+	}
+	
+	/**
+	 * Sets the number of updates per second
+	 * @param hz Updates per second, limited to between MIN_TICK_RATE and MAX_TICK_RATE
+	 */
+	public static void setTickRate(int hz){
+		tickRate = Math.max(MIN_TICK_RATE, Math.min(MAX_TICK_RATE, hz));
+		deltaTime = 1000.0 / tickRate;
+		accumulator = 0;
+	}
+	
+	/**
+	 * 
+	 * @return Current time in milliseconds
+	 */
+	private static double time(){
+		return Sys.getTime() * 1000.0 / Sys.getTimerResolution();
+	}
+	
+	/**
+	 * Calculates time since the last frame, limited to MAX_TICKS_PER_FRAME ticks
+	 * @return Time to simulate in milliseconds
 	 */
-	private static void updateDeltaTime(){
-		deltaTime = (Sys.getTime()* 1000.0 / Sys.getTimerResolution() ) - lastTime;
-		lastTime = (Sys.getTime()* 1000.0 / Sys.getTimerResolution() );
+	private static double frameTime(){
+		double now = time();
+		double frame = now - lastTime;
+		lastTime = now;
+		return Math.min(frame, MAX_TICKS_PER_FRAME * deltaTime);
 	}
 	
 	/**
@@ -109,6 +197,7 @@ public class Start {
 		
 		
 		State_Score.load();
+		GeometryAssets.preload();
 	
 		state = new State_Main();
 	}
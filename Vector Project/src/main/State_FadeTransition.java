@@ -57,6 +57,7 @@ public class State_FadeTransition implements GameState{
 	public void render() {
 		if (s1Active) s1.render(); 
 		else s2.render();
+		Draw.flush();
 		GL11.glPushMatrix();
 		GL11.glLoadIdentity();
 		GL11.glBegin(GL11.GL_QUADS);
@@ -3,9 +3,7 @@ package main;
 import gameObjects.*;
 
 import java.util.ArrayList;
-
-import org.lwjgl.opengl.Display;
-import org.lwjgl.opengl.GL11;
+import java.util.Random;
 
 /**
  * Manages the game, spawns enemies, updates GameObjects, renders GameObjects
@@ -16,9 +14,6 @@ public class State_Game implements GameState {
 	
 	private Player player;
 	
-	//List of all active GameObjects in the game
-	private ArrayList<GameObject> objects;
-	
 	//List of enemies to be added in next wave
 	private ArrayList<Wave> waveQueue;
 	
@@ -28,6 +23,8 @@ public class State_Game implements GameState {
 	//GUI text, says "SCORE" and "HEALTH"
 	private VectorString score;
 	private VectorString health;
+	//Font used to draw the health and score values
+	private VectorFont font;
 	
 	//Whether the game is in hard mode or not, causes more enemies to spawn initially, increases max difficulty cap
 	private boolean hardMode;
@@ -36,6 +33,9 @@ public class State_Game implements GameState {
 	public static double waveDelay = 5000;
 	//Radius of a circle that is outside the screen
 	public static double spawnRadius = 500;
+	//Bullets and pieces created before the game starts, above the most in use at once in a long headless run in hard mode
+	private static final int BULLET_POOL_SIZE = 32;
+	private static final int PIECE_POOL_SIZE = 128;
 	
 	/**
 	 * Starts a new game
@@ -43,8 +43,10 @@ public class State_Game implements GameState {
 	 */
 	public State_Game(boolean hard){
 		hardMode = hard;
+		Bullet.getPool().fill(BULLET_POOL_SIZE);
+		Piece.getPool().fill(PIECE_POOL_SIZE);
 		player = new Player(0, 0);
-		objects = new ArrayList<GameObject>();
+		ArrayList<GameObject> objects = new ArrayList<GameObject>();
 		
 		objects.add(player);
 		GameObject.initGameObjectList(objects);
@@ -54,6 +56,7 @@ public class State_Game implements GameState {
 		updateWave();
 		score = new VectorString("score", 5);
 		health = new VectorString("health", 5);
+		font = VectorFont.get(5);
 	}
 
 	/**
@@ -61,15 +64,33 @@ public class State_Game implements GameState {
 	 */
 	@Override
 	public void update() {
+		GameObject.saveState();
+		
 		//Set the listener position to the player
 		Sounds.updateListener(player.getX(), player.getY(), player.getVX(), player.getVY());
 		
+		long start = Profiler.start();
 		GameObject.updateQueue();
-		for(GameObject ob : objects) ob.update();
+		Profiler.stop(Profiler.QUEUE, start);
+		
+		start = Profiler.start();
+		GameObject.updateObjects();
+		Profiler.stop(Profiler.UPDATE, start);
+		
+		start = Profiler.start();
+		GameObject.integrate();
+		Profiler.stop(Profiler.INTEGRATE, start);
+		
+		start = Profiler.start();
 		GameObject.checkCollisions();
+		Profiler.stop(Profiler.COLLISIONS, start);
+		
+		start = Profiler.start();
 		GameObject.updateQueue();
+		Profiler.stop(Profiler.QUEUE, start);
 		
 		//If all objects in wave queue have been added, add a new wave to the queue
+		start = Profiler.start();
 		if (waveQueue.size() == 0){
 			updateWave();
 		}
@@ -79,6 +100,7 @@ public class State_Game implements GameState {
 				waveQueue.get(0).update();
 			}
 		}
+		Profiler.stop(Profiler.WAVES, start);
 		
 	}
 
@@ -86,16 +108,17 @@ public class State_Game implements GameState {
 	 * Add enemies to the wave queue
 	 */
 	private void updateWave() {
+		Random random = GameObject.getRandom();
 		//Number of enemies varies based on difficulty factor
-		int numEnemies = (int)(Math.random() * diffFactor/2) + diffFactor/2 +1;
+		int numEnemies = (int)(random.nextDouble() * diffFactor/2) + diffFactor/2 +1;
 		int numTypes = 4;
 		int i = 0;
 		while (i < numEnemies){
 			ArrayList<GameObject> enemies = new ArrayList<GameObject>();
 			
 			//Randomly choose a type of enemy and a number of that enemy to add
-			int type = (int)(Math.random() * numTypes) + 1;
-			int num = (int)(Math.random() * (numEnemies-i)) + 1;
+			int type = (int)(random.nextDouble() * numTypes) + 1;
+			int num = (int)(random.nextDouble() * (numEnemies-i)) + 1;
 			
 			//Make sure no more than 6 Spiral enemies spawn in the same wave
 			if (type == 4 && num > 6){
@@ -103,7 +126,7 @@ public class State_Game implements GameState {
 				numTypes = 3;
 			}
 			//Random angle to add variation to the angle at which enemies spawn
-			double angle = Math.random() * 2 * Math.PI;
+			double angle = random.nextDouble() * 2 * Math.PI;
 			for (int j = 0; j < num; j++){
 				//Add enemies evenly spaced in a circle around the player
 				switch (type){
@@ -131,7 +154,7 @@ public class State_Game implements GameState {
 			
 		}
 		//Increase and cap the difficulty factor
-		diffFactor += (int)( Math.random() * 2);
+		diffFactor += (int)( random.nextDouble() * 2);
 		if (hardMode && diffFactor > 75) diffFactor = 75;
 		else if (diffFactor > 50) diffFactor = 50;
 		
@@ -142,13 +165,37 @@ public class State_Game implements GameState {
 	 */
 	@Override
 	public void render() {
-		GL11.glTranslated(Display.getWidth()/2 - player.getX(), Display.getHeight()/2 - player.getY(), 0);
-		for(GameObject ob : objects) ob.render();
-		GL11.glLoadIdentity();
+		Draw.translate(Input.getWidth()/2 - player.getRenderX(), Input.getHeight()/2 - player.getRenderY());
+		
+		//Part of the world that is on screen, objects outside it are not drawn
+		double minX = player.getRenderX() - Input.getWidth()/2;
+		double minY = player.getRenderY() - Input.getHeight()/2;
+		double maxX = minX + Input.getWidth();
+		double maxY = minY + Input.getHeight();
+		int drawn = 0;
+		int culled = 0;
+		
+		//Layers are drawn from debris at the back to the player at the front, then the HUD on top
+		for (int layer = 0; layer < RenderLayers.COUNT; layer++){
+			for (int i = 0; i < GameObject.getLayerSize(layer); i++){
+				GameObject ob = GameObject.getInLayer(layer, i);
+				if (!ob.isInView(minX, minY, maxX, maxY)){
+					culled++;
+					continue;
+				}
+				drawn++;
+				long objectStart = Profiler.start();
+				ob.render();
+				Profiler.stopRender(ob, objectStart);
+			}
+		}
+		Profiler.countDraws(drawn, culled);
+		Draw.flush();
+		Draw.loadIdentity();
 		health.render(20, 580);
-		new VectorString((int)(player.getHealth()/100 < 0 ? 0 : (int)(player.getHealth()/100)) +"", 5).render(140, 580);
+		font.render(player.getHealth()/100 < 0 ? 0 : (int)(player.getHealth()/100), 1, 140, 580);
 		score.render(200, 580);
-		new VectorString(GameObject.getScore()+""  , 5).render(300, 580);
+		font.render(GameObject.getScore(), 1, 300, 580);
 	}
 
 	/**
@@ -162,10 +209,33 @@ public class State_Game implements GameState {
 		else return null;
 	}
 
+	/**
+	 * 
+	 * @return Whether the player has died, ending the game
+	 */
+	public boolean isOver(){
+		return player.isDead();
+	}
+	
+	/**
+	 * 
+	 * @return Current difficulty factor, which controls the size of the next wave
+	 */
+	public int getDifficulty(){
+		return diffFactor;
+	}
+	
+	/**
+	 * 
+	 * @return Number of enemies waiting to be added to the game
+	 */
+	public int getQueuedEnemies(){
+		return waveQueue.size();
+	}
+
 	@Override
 	public void destroy() {
-		
-		
+		GameObject.destroyGameObjectList();
 	}
 
 	
@@ -14,14 +14,18 @@ public class State_Main implements GameState {
 	private static boolean hardMode = false;
 	
 	//Menu options
-	private VectorGeometry title;
-	private VectorGeometry play;
-	private VectorGeometry scores;
 	private VectorGeometry oTitle;
 	private VectorGeometry oPlay;
 	private VectorGeometry oScores;
 	private VectorString copyright;
 	private VectorString hardModeStr;
+	private VectorFont font;
+	
+	//Current rotation of the title and scale of the other menu options, applied when they are drawn
+	private double titleRot;
+	private double playScale;
+	private double scoresScale;
+	private Transform transform;
 	
 	//Used to deform menu options
 	private double time;
@@ -44,18 +48,20 @@ public class State_Main implements GameState {
 	public State_Main(){
 		
 		//Load the original menu option geometries
-		oTitle = new VectorGeometry("/geomDefs/vectrix.geom").scale(-.25);
-		oPlay = new VectorGeometry("/geomDefs/play.geom").scale(-.5);
-		oScores = new VectorGeometry("/geomDefs/scores.geom").scale(-.75);
+		oTitle = GeometryAssets.get("/geomDefs/vectrix.geom", -.25, 0);
+		oPlay = GeometryAssets.get("/geomDefs/play.geom", -.5, 0);
+		oScores = GeometryAssets.get("/geomDefs/scores.geom", -.75, 0);
 		
-		//Set new menu options to copies of the original menu options
-		play = oPlay.scale(0);
-		title = oTitle.scale(0);
-		scores = oScores.scale(0);
+		//Start the menu options at their original size
+		titleRot = 0;
+		playScale = 1;
+		scoresScale = 1;
+		transform = new Transform();
 				
 		//Load GUI strings displayed at the bottom of the screen
 		copyright = new VectorString("henry conklin 2013", 5);
 		hardModeStr = new VectorString("hard mode", 5);
+		font = VectorFont.get(5);
 		
 		//Set the position of the sound listener
 		Sounds.updateListener(400, 300, 0, 0);
@@ -75,24 +81,24 @@ public class State_Main implements GameState {
 		time %= 5000;
 		
 		//Deform menu options based on time and whether or not they are currently selected
-		title = oTitle.rotate(Math.PI/24 * Math.sin(time * Math.PI * 2 / 5000));
-		if (play.translate(400, 350).getBoundingRect().contains(Mouse.getX(), Mouse.getY())){
+		titleRot = Math.PI/24 * Math.sin(time * Math.PI * 2 / 5000);
+		if (mouseOver(oPlay, playScale, 400, 350)){
 			if (!playPlayed)Sounds.playSound(playSource);
-			play = oPlay.scale(.5);
+			playScale = 1.5;
 			playPlayed = true;
 		}
 		else {
 			playPlayed = false;
-			play = oPlay.scale(.25 * Math.sin(time * Math.PI * 2 / 5000) + .25);
+			playScale = 1.25 + .25 * Math.sin(time * Math.PI * 2 / 5000);
 		
 		}
-		if (scores.translate(400, 250).getBoundingRect().contains(Mouse.getX(), Mouse.getY())){
+		if (mouseOver(oScores, scoresScale, 400, 250)){
 			if (!scoresPlayed)Sounds.playSound(scoresSource);
-			scores = oScores.scale(.5);
+			scoresScale = 1.5;
 			scoresPlayed = true;
 		}
 		else {
-			scores = oScores.scale(.25 * Math.sin(time * Math.PI * 2 / 5000) + .25);
+			scoresScale = 1.25 + .25 * Math.sin(time * Math.PI * 2 / 5000);
 			scoresPlayed = false;
 		}
 		
@@ -113,12 +119,12 @@ public class State_Main implements GameState {
 	 */
 	@Override
 	public void render() {
-		title.render(400, 530);
-		play.render(400, 350);
-		scores.render(400, 250);
+		oTitle.render(400, 530, titleRot);
+		oPlay.render(transform.set(400, 350, 0, playScale, playScale));
+		oScores.render(transform.set(400, 250, 0, scoresScale, scoresScale));
 		copyright.render(20, 10);
 		hardModeStr.render(450, 10);
-		new VectorString((hardMode ? "y" : "n"), 5).render(630, 10);
+		font.render(hardMode ? "y" : "n", 630, 10);
 	}
 
 	/**
@@ -126,11 +132,11 @@ public class State_Main implements GameState {
 	 */
 	@Override
 	public GameState transitionTo() {
-		if (play.translate(400,350).getBoundingRect().contains(Mouse.getX(), Mouse.getY()) && Mouse.isButtonDown(0)){
+		if (mouseOver(oPlay, playScale, 400, 350) && Mouse.isButtonDown(0)){
 			Sounds.playSound(playSource);
 			return new State_FadeTransition(this, new State_Game(hardMode), 2000);
 		}
-		if (scores.translate(400,250).getBoundingRect().contains(Mouse.getX(), Mouse.getY()) && Mouse.isButtonDown(0)){ 
+		if (mouseOver(oScores, scoresScale, 400, 250) && Mouse.isButtonDown(0)){ 
 			Sounds.playSound(scoresSource);
 			return new State_FadeTransition(this, new State_Score(), 2000);
 			
@@ -138,6 +144,21 @@ public class State_Main implements GameState {
 		else return null;
 	}
 
+	/**
+	 * Checks whether the mouse is inside the bounding rectangle of a menu option as it is drawn
+	 * @param g Original geometry of the menu option
+	 * @param scale Scale the option is drawn at
+	 * @param x x coordinate the option is drawn at
+	 * @param y y coordinate the option is drawn at
+	 * @return Whether the mouse is over the option
+	 */
+	private boolean mouseOver(VectorGeometry g, double scale, double x, double y){
+		Rectangle2D bounds = g.getBoundingRect();
+		Rectangle2D.Double drawn = new Rectangle2D.Double(x + bounds.getX() * scale, y + bounds.getY() * scale, 
+				bounds.getWidth() * scale, bounds.getHeight() * scale);
+		return drawn.contains(Mouse.getX(), Mouse.getY());
+	}
+
 	/**
 	 * Free resources used by this game state
 	 */
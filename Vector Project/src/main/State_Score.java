@@ -26,6 +26,9 @@ public class State_Score implements GameState {
 	private int score;
 	private boolean hardMode;
 	
+	//Font used to draw the prompt and the table
+	private VectorFont font = VectorFont.get(10);
+	
 	/**
 	 * Transitions to the high score table game state. If the player has a score higher than the lowest
 	 * score, display a prompt for them to enter their name.
@@ -111,19 +114,18 @@ public class State_Score implements GameState {
 	@Override
 	public void render() {
 		if (enteringName){
-			new VectorString("enter name", 10).renderCentered(400, 350);
-			new VectorString(newName, 10).renderCentered(400, 300);
-			new VectorString("press enter to confirm", 10).renderCentered(400, 250);
+			font.renderCentered("enter name", 400, 350);
+			font.renderCentered(newName, 400, 300);
+			font.renderCentered("press enter to confirm", 400, 250);
 		}
 		else{
-			if (highScores[0] == null) new VectorString("none recorded", 10).renderCentered(400, 300);
+			if (highScores[0] == null) font.renderCentered("none recorded", 400, 300);
 			for(int i = 0; i < highScores.length && highScores[i] != null; i++){
-				new VectorString("" + (i+1), 10).render(10,  570 - i * 30);
-				new VectorString(highScores[i].getName(), 10).render(80, 570 - i * 30);
-				String scoreString = "" + highScores[i].getScore();
-				while(scoreString.length() < 10) scoreString = "0" + scoreString;
-				new VectorString(scoreString, 10).render(410,  570 - i * 30);
-				new VectorString("" + (highScores[i].hardMode() ? "h" : ""), 10).render(760,  570 - i * 30);
+				font.render(i+1, 1, 10,  570 - i * 30);
+				font.render(highScores[i].getName(), 80, 570 - i * 30);
+				//Pad the score with 0s to 10 digits
+				font.render(highScores[i].getScore(), 10, 410,  570 - i * 30);
+				if (highScores[i].hardMode()) font.render("h", 760,  570 - i * 30);
 			}
 		}
 	}
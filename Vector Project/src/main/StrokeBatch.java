@@ -0,0 +1,310 @@
+package main;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Collects the strokes drawn during a frame into a single list of colored triangles, so that they
+ * can be drawn with one call. Does not call OpenGL, Draw.flush() uploads and draws the batch.
+ *
+ * Adding a mesh only records where it goes. The vertices of every mesh are worked out together by
+ * fill(), which can split the work across threads.
+ * @author Henry
+ *
+ */
+public class StrokeBatch {
+
+	//Number of floats stored per vertex, x y r g b a
+	public static final int VERTEX_SIZE = 6;
+
+	//Fewest vertices filled by one task, smaller batches are filled on the calling thread
+	private static final int MIN_FILL = 16384;
+
+	//Vertex data and the number of vertices stored in it
+	private float[] data;
+	private int numVerts;
+
+	//Meshes added since the last clear, with the transform and color of each and the first vertex it fills
+	private StrokeMesh[] meshes;
+	private Transform[] transforms;
+	private float[] colors;
+	private int[] firsts;
+	private int numMeshes;
+	//Number of meshes whose vertices have been filled in
+	private int numFilled;
+
+	//Ranges of the meshes filled by each task
+	private Fill[] fills = {new Fill()};
+	private int numFills;
+
+	//Forks every fill but the first, runs the first itself and then waits for the others
+	private final RecursiveAction root = new RecursiveAction(){
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected void compute(){
+			for (int i = 1; i < numFills; i++){
+				fills[i].reinitialize();
+				fills[i].fork();
+			}
+			fills[0].fillRange();
+			for (int i = numFills - 1; i > 0; i--) fills[i].join();
+		}
+	};
+
+	public StrokeBatch(){
+		data = new float[VERTEX_SIZE * 4096];
+		numVerts = 0;
+		meshes = new StrokeMesh[256];
+		transforms = new Transform[256];
+		for (int i = 0; i < transforms.length; i++) transforms[i] = new Transform();
+		colors = new float[256 * 4];
+		firsts = new int[256];
+	}
+
+	/**
+	 * Adds a mesh to the batch, moved into place by the given transform. Quads are split into two
+	 * triangles and everything is kept in the order StrokeMesh stores it.
+	 * @param mesh Mesh to add
+	 * @param t Transform to apply to the mesh
+	 * @param r red value of the stroke color
+	 * @param g green value of the stroke color
+	 * @param b blue value of the stroke color
+	 */
+	public void add(StrokeMesh mesh, Transform t, double r, double g, double b){
+		add(mesh, t, r, g, b, 1);
+	}
+
+	/**
+	 * Adds a mesh to the batch with a see-through stroke. Only the mesh, transform and color are recorded,
+	 * its vertices are filled in by fill().
+	 * @param mesh Mesh to add
+	 * @param t Transform to apply to the mesh, copied so it can be reused straight away
+	 * @param r red value of the stroke color
+	 * @param g green value of the stroke color
+	 * @param b blue value of the stroke color
+	 * @param a alpha value of the stroke, 1 is opaque
+	 */
+	public void add(StrokeMesh mesh, Transform t, double r, double g, double b, double a){
+		if (mesh.numVerts == 0) return;
+		if (numMeshes == meshes.length) growMeshes();
+		ensureCapacity(numVerts + mesh.getTriangleVertexCount());
+
+		meshes[numMeshes] = mesh;
+		transforms[numMeshes].set(t);
+		colors[numMeshes * 4] = (float)r;
+		colors[numMeshes * 4 + 1] = (float)g;
+		colors[numMeshes * 4 + 2] = (float)b;
+		colors[numMeshes * 4 + 3] = (float)a;
+		firsts[numMeshes] = numVerts;
+		numMeshes++;
+		numVerts += mesh.getTriangleVertexCount();
+	}
+
+	/**
+	 * Fills in the vertices of every mesh added since the last fill. The meshes are split into ranges of
+	 * about the same number of vertices, each range writes only its own part of the vertex data, so the
+	 * result is the same on any number of threads.
+	 * @param pool Pool to fill on, null to fill on the calling thread
+	 */
+	public void fill(ForkJoinPool pool){
+		if (numFilled == numMeshes) return;
+		int verts = numVerts - firsts[numFilled];
+		numFills = pool == null ? 1 : Math.max(1, Math.min(pool.getParallelism() * 4, verts / MIN_FILL));
+		if (numFills > fills.length){
+			int old = fills.length;
+			fills = Arrays.copyOf(fills, numFills);
+			for (int i = old; i < numFills; i++) fills[i] = new Fill();
+		}
+
+		//Cut the meshes into ranges at every verts/numFills vertices
+		int m = numFilled;
+		for (int i = 0; i < numFills; i++){
+			fills[i].from = m;
+			long end = firsts[numFilled] + (long)verts * (i + 1) / numFills;
+			while (m < numMeshes && firsts[m] < end) m++;
+			fills[i].to = m;
+		}
+
+		if (numFills == 1) fills[0].fillRange();
+		else {
+			root.reinitialize();
+			pool.invoke(root);
+		}
+		numFilled = numMeshes;
+	}
+
+	/**
+	 * Removes everything from the batch, keeps the allocated memory
+	 */
+	public void clear(){
+		Arrays.fill(meshes, 0, numMeshes, null);
+		numMeshes = 0;
+		numFilled = 0;
+		numVerts = 0;
+	}
+
+	/**
+	 * @return The number of vertices in the batch, always a multiple of 3
+	 */
+	public int getVertexCount(){
+		return numVerts;
+	}
+
+	/**
+	 * @return The vertex data of the batch, VERTEX_SIZE floats for each of the first getVertexCount()
+	 * vertices. Meshes that have not been filled yet are filled on this thread.
+	 */
+	public float[] getData(){
+		fill(null);
+		return data;
+	}
+
+	/**
+	 * Copies the batch into the given buffer from its start and flips it, meshes that have not been filled
+	 * yet are filled on this thread
+	 * @param buffer buffer with room for getVertexCount() * VERTEX_SIZE floats
+	 */
+	public void writeTo(FloatBuffer buffer){
+		fill(null);
+		buffer.clear();
+		buffer.put(data, 0, numVerts * VERTEX_SIZE);
+		buffer.flip();
+	}
+
+	/**
+	 * Fills in the vertices of a mesh, moved into place by its transform. Quads are split into two
+	 * triangles and everything is kept in the order StrokeMesh stores it.
+	 * @param m index of the mesh in the order it was added
+	 */
+	private void fillMesh(int m){
+		StrokeMesh mesh = meshes[m];
+		Transform t = transforms[m];
+		float r = colors[m * 4];
+		float g = colors[m * 4 + 1];
+		float b = colors[m * 4 + 2];
+		float a = colors[m * 4 + 3];
+		int i = firsts[m] * VERTEX_SIZE;
+
+		int v = 0;
+		for (int segment = 0; segment < mesh.segments; segment++){
+			//Rectangles on either side of the segment
+			i = quad(mesh, v, t, r, g, b, a, i);
+			i = quad(mesh, v + 4, t, r, g, b, a, i);
+			v += 8;
+
+			//Gap between this segment and the last one
+			if (segment != 0){
+				i = triangle(mesh, v, t, r, g, b, a, i);
+				v += 3;
+			}
+		}
+		if (mesh.closed) triangle(mesh, v, t, r, g, b, a, i);
+	}
+
+	/**
+	 * Writes the quad starting at vertex v of the mesh as the triangles v v+1 v+2 and v v+2 v+3
+	 * @param i index in data to write at
+	 * @return index in data after the quad
+	 */
+	private int quad(StrokeMesh mesh, int v, Transform t, float r, float g, float b, float a, int i){
+		i = put(mesh, v, t, r, g, b, a, i);
+		i = put(mesh, v + 1, t, r, g, b, a, i);
+		i = put(mesh, v + 2, t, r, g, b, a, i);
+		i = put(mesh, v, t, r, g, b, a, i);
+		i = put(mesh, v + 2, t, r, g, b, a, i);
+		return put(mesh, v + 3, t, r, g, b, a, i);
+	}
+
+	/**
+	 * Writes the triangle starting at vertex v of the mesh
+	 * @param i index in data to write at
+	 * @return index in data after the triangle
+	 */
+	private int triangle(StrokeMesh mesh, int v, Transform t, float r, float g, float b, float a, int i){
+		i = put(mesh, v, t, r, g, b, a, i);
+		i = put(mesh, v + 1, t, r, g, b, a, i);
+		return put(mesh, v + 2, t, r, g, b, a, i);
+	}
+
+	/**
+	 * Transforms vertex v of the mesh and writes it to data. Lit vertices take the stroke color, the
+	 * others are transparent black.
+	 * @param i index in data to write at
+	 * @return index in data after the vertex
+	 */
+	private int put(StrokeMesh mesh, int v, Transform t, float r, float g, float b, float a, int i){
+		double bx = mesh.base[v * 2];
+		double by = mesh.base[v * 2 + 1];
+		double ox = mesh.offset[v * 2];
+		double oy = mesh.offset[v * 2 + 1];
+
+		//Offsets keep the width of the stroke, so they are turned but not stretched
+		double nx = t.n00 * ox + t.n01 * oy;
+		double ny = t.n10 * ox + t.n11 * oy;
+		if (!t.rigid && (nx != 0 || ny != 0)){
+			double f = Math.sqrt((ox * ox + oy * oy) / (nx * nx + ny * ny));
+			nx *= f;
+			ny *= f;
+		}
+
+		data[i] = (float)(t.m00 * bx + t.m01 * by + t.tx + nx);
+		data[i + 1] = (float)(t.m10 * bx + t.m11 * by + t.ty + ny);
+		if (mesh.lit[v]){
+			data[i + 2] = r;
+			data[i + 3] = g;
+			data[i + 4] = b;
+			data[i + 5] = a;
+		}
+		else {
+			data[i + 2] = 0;
+			data[i + 3] = 0;
+			data[i + 4] = 0;
+			data[i + 5] = 0;
+		}
+		return i + VERTEX_SIZE;
+	}
+
+	/**
+	 * Doubles the room for meshes
+	 */
+	private void growMeshes(){
+		int size = meshes.length * 2;
+		meshes = Arrays.copyOf(meshes, size);
+		transforms = Arrays.copyOf(transforms, size);
+		for (int i = size / 2; i < size; i++) transforms[i] = new Transform();
+		colors = Arrays.copyOf(colors, size * 4);
+		firsts = Arrays.copyOf(firsts, size);
+	}
+
+	/**
+	 * A range of the meshes to fill
+	 */
+	private class Fill extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		int from;
+		int to;
+
+		@Override
+		protected void compute(){
+			fillRange();
+		}
+
+		void fillRange(){
+			for (int m = from; m < to; m++) fillMesh(m);
+		}
+	}
+
+	/**
+	 * Makes sure the batch can hold the given number of vertices
+	 */
+	private void ensureCapacity(int verts){
+		if (verts * VERTEX_SIZE > data.length){
+			data = Arrays.copyOf(data, Math.max(data.length * 2, verts * VERTEX_SIZE));
+		}
+	}
+}
@@ -0,0 +1,212 @@
+package main;
+
+import gameObjects.GameObject;
+
+import java.util.WeakHashMap;
+
+/**
+ * The glowing stroke drawn for a VectorGeometry, built once in the geometry's local space.
+ * Each vertex is stored as a point on the line plus an offset from that point, so the mesh can be
+ * moved, rotated and scaled without changing the width of the stroke.
+ * @author Henry
+ *
+ */
+public class StrokeMesh {
+
+	//Meshes that have been built, keyed by the coordinates of the geometry so that copies which
+	//only change the color share a mesh
+	private static WeakHashMap<double[], StrokeMesh> cache = new WeakHashMap<double[], StrokeMesh>();
+
+	//Weight the mesh was built with
+	final double weight;
+
+	//Point on the line each vertex belongs to and the offset of the vertex from it, stored as x,y pairs
+	final double[] base;
+	final double[] offset;
+
+	//Whether each vertex takes the color of the geometry, other vertices are transparent
+	final boolean[] lit;
+
+	/*
+	 * Vertices are stored in drawing order. Each segment of the line is two quads (8 vertices),
+	 * followed by a triangle covering the gap to the previous segment for every segment but the first.
+	 * If the line is closed, a last triangle covers the gap between the last and first segments.
+	 */
+	final int segments;
+	final boolean closed;
+	final int numVerts;
+
+	/**
+	 * Finds the mesh for the given geometry, building it if it has not been drawn before with its current weight
+	 * @param vg Geometry to get the mesh for
+	 * @return The stroke mesh of vg
+	 */
+	public static StrokeMesh of(VectorGeometry vg){
+		double[] coords = vg.getCoords();
+		StrokeMesh mesh = cache.get(coords);
+		if (mesh == null || mesh.weight != vg.getWeight()){
+			mesh = new StrokeMesh(vg);
+			cache.put(coords, mesh);
+		}
+		return mesh;
+	}
+
+	/**
+	 * Builds the mesh for the given geometry with its current weight. Each segment becomes two quads fading
+	 * from the line out to weight/2 on either side, and the gap on the outside of each corner is covered with
+	 * a triangle. The sides of each quad come from the segment normals the geometry already has.
+	 * @param vg Geometry to build the stroke of
+	 */
+	public StrokeMesh(VectorGeometry vg){
+		weight = vg.getWeight();
+		double[] c = vg.getCoords();
+		int count = vg.getVertexCount();
+
+		if (count < 2){
+			base = offset = new double[0];
+			lit = new boolean[0];
+			segments = numVerts = 0;
+			closed = false;
+			return;
+		}
+
+		segments = count - 1;
+		closed = Math.abs(c[0] - c[segments * 2]) < .5 && Math.abs(c[1] - c[segments * 2 + 1]) < .5;
+		numVerts = 8 * segments + 3 * (segments - 1) + (closed ? 3 : 0);
+		base = new double[numVerts * 2];
+		offset = new double[numVerts * 2];
+		lit = new boolean[numVerts];
+
+		int index = 0;
+		for (int i = 0; i < segments; i++){
+
+			//End points of the rectangle
+			double x1 = c[i * 2], y1 = c[i * 2 + 1];
+			double x2 = c[i * 2 + 2], y2 = c[i * 2 + 3];
+
+			//Offset of the outside points, perpendicular to the segment
+			double dx = vg.getNormalX(i)*weight/2;
+			double dy = vg.getNormalY(i)*weight/2;
+
+			//Two quads, p1 p2 p4 p3 on one side and p1 p2 p6 p5 on the other
+			index = put(index, x1, y1, 0, 0, true);
+			index = put(index, x2, y2, 0, 0, true);
+			index = put(index, x2, y2, dx, dy, false);
+			index = put(index, x1, y1, dx, dy, false);
+			index = put(index, x1, y1, 0, 0, true);
+			index = put(index, x2, y2, 0, 0, true);
+			index = put(index, x2, y2, -dx, -dy, false);
+			index = put(index, x1, y1, -dx, -dy, false);
+
+			//If not on the first rectangle, cover the gap between this rectangle and the last rectangle
+			if (i != 0) index = putJoin(index, vg, i, i + 1, i - 1, i, i - 1);
+		}
+
+		//If the first Vertex is the same as the last vertex, cover the gap between them
+		if (closed) putJoin(index, vg, 0, 1, segments - 1, segments, segments - 1);
+	}
+
+	/**
+	 * Adds the triangle covering the gap at p1 between the segment from prev to p1 and the segment from p1 to p2,
+	 * points are given as vertex indexes in vg
+	 * @param lastEnd End point of the segment from prev, p1 unless the gap closes the shape
+	 * @param lastSegment Segment from prev, the segment from p1 to p2 is the one starting at p1
+	 * @return The index after the triangle
+	 */
+	private int putJoin(int index, VectorGeometry vg, int p1, int p2, int prev, int lastEnd, int lastSegment){
+		double x1 = vg.getX(p1), y1 = vg.getY(p1);
+		double endX = vg.getX(lastEnd), endY = vg.getY(lastEnd);
+		double dx = vg.getNormalX(p1)*weight/2;
+		double dy = vg.getNormalY(p1)*weight/2;
+		double lastDX = vg.getNormalX(lastSegment)*weight/2;
+		double lastDY = vg.getNormalY(lastSegment)*weight/2;
+
+		//Find the direction of the gap
+		double angle1 = GameObject.getAngle(vg.getX(p2) - x1, vg.getY(p2) - y1);
+		double angle2 = GameObject.getAngle(vg.getX(prev) - x1, vg.getY(prev) - y1);
+		if (angle1 < 0) angle1 += 2 * Math.PI;
+		if (angle2 < 0) angle2 += 2 * Math.PI;
+		double direction = (angle1 + angle2)/2;
+		if (Math.abs(direction - angle1) < Math.PI/2) direction += Math.PI;
+		while (direction > Math.PI) direction -= 2 * Math.PI;
+		while (direction < -Math.PI) direction += 2 * Math.PI;
+
+		/*
+		 * Use the outside points closest to a point in the direction of the gap. Where the line doubles back
+		 * or carries straight on, both points are as close and the triangle has no area whichever is used.
+		 * The point is picked here in local space, so it can differ from the old per frame stroke of a moved
+		 * copy, see benchmarks.StrokeMeshCheck.
+		 */
+		double gapX = x1 + weight*Math.cos(direction);
+		double gapY = y1 + weight*Math.sin(direction);
+		double sign = distance(x1 + dx, y1 + dy, gapX, gapY) < distance(x1 - dx, y1 - dy, gapX, gapY) ? 1 : -1;
+		double lastSign = distance(endX + lastDX, endY + lastDY, gapX, gapY) < distance(endX - lastDX, endY - lastDY, gapX, gapY) ? 1 : -1;
+
+		index = put(index, x1, y1, 0, 0, true);
+		index = put(index, x1, y1, sign * dx, sign * dy, false);
+		return put(index, endX, endY, lastSign * lastDX, lastSign * lastDY, false);
+	}
+
+	/**
+	 * Stores a vertex at the given index
+	 * @return The next index
+	 */
+	private int put(int index, double x, double y, double dx, double dy, boolean isLit){
+		base[index * 2] = x;
+		base[index * 2 + 1] = y;
+		offset[index * 2] = dx;
+		offset[index * 2 + 1] = dy;
+		lit[index] = isLit;
+		return index + 1;
+	}
+
+	private static double distance(double x1, double y1, double x2, double y2){
+		return Math.sqrt(Math.pow(x1 - x2, 2) + Math.pow(y1 - y2, 2));
+	}
+
+	//Accessor methods
+	public int getVertexCount(){
+		return numVerts;
+	}
+	public int getSegmentCount(){
+		return segments;
+	}
+	public boolean isClosed(){
+		return closed;
+	}
+	
+	/**
+	 * @return Number of vertices needed to draw this mesh as triangles, with each quad split in two
+	 */
+	public int getTriangleVertexCount(){
+		if (segments == 0) return 0;
+		return 12 * segments + 3 * (segments - 1) + (closed ? 3 : 0);
+	}
+	public double getWeight(){
+		return weight;
+	}
+
+	/**
+	 * @param i index of a vertex
+	 * @return x coordinate of vertex i in local space
+	 */
+	public double getX(int i){
+		return base[i * 2] + offset[i * 2];
+	}
+
+	/**
+	 * @param i index of a vertex
+	 * @return y coordinate of vertex i in local space
+	 */
+	public double getY(int i){
+		return base[i * 2 + 1] + offset[i * 2 + 1];
+	}
+
+	/**
+	 * @param i index of a vertex
+	 * @return Whether vertex i is drawn in the geometry's color rather than transparent
+	 */
+	public boolean isLit(int i){
+		return lit[i];
+	}
+}
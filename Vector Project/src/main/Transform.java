@@ -0,0 +1,113 @@
+package main;
+
+/**
+ * A scale, rotation and translation applied to a geometry when it is drawn, so the geometry
+ * itself never has to be copied. Reused between draws, the set methods overwrite it.
+ * @author Henry
+ *
+ */
+public class Transform {
+
+	//Linear part and translation, a point (x,y) maps to (m00*x + m01*y + tx, m10*x + m11*y + ty)
+	double m00;
+	double m01;
+	double m10;
+	double m11;
+	double tx;
+	double ty;
+
+	//Maps the stroke offsets of a StrokeMesh so they stay perpendicular to the transformed line
+	double n00;
+	double n01;
+	double n10;
+	double n11;
+
+	//Whether the offsets are only rotated, false if the scale differs along x and y in which case
+	//offsets have to be brought back to their original length after being mapped
+	boolean rigid;
+
+	public Transform(){
+		set(0, 0, 0);
+	}
+
+	/**
+	 * Rotate about (0,0) then move to (x,y)
+	 * @return This transform
+	 */
+	public Transform set(double x, double y, double rot){
+		return set(x, y, rot, 1, 1);
+	}
+
+	/**
+	 * Scale by scaleX along the x axis and scaleY along the y axis, rotate about (0,0), then move to (x,y).
+	 * Does the same thing to a geometry as scaleX(scaleX-1).scaleY(scaleY-1).rotate(rot).translate(x,y)
+	 * without changing the weight of the stroke.
+	 * @param x x coordinate to move to
+	 * @param y y coordinate to move to
+	 * @param rot rotation in radians
+	 * @param scaleX Factor to multiply x coordinates by, 1 is no change
+	 * @param scaleY Factor to multiply y coordinates by, 1 is no change
+	 * @return This transform
+	 */
+	public Transform set(double x, double y, double rot, double scaleX, double scaleY){
+		double cos = Math.cos(rot);
+		double sin = Math.sin(rot);
+		m00 = cos * scaleX;
+		m01 = -sin * scaleY;
+		m10 = sin * scaleX;
+		m11 = cos * scaleY;
+		tx = x;
+		ty = y;
+
+		//Normals are mapped by the inverse transpose of the linear part, which is the rotation divided by the scale
+		rigid = scaleX == scaleY || scaleX == 0 || scaleY == 0;
+		double nx = rigid ? Math.signum(scaleX) : 1 / scaleX;
+		double ny = rigid ? Math.signum(scaleY) : 1 / scaleY;
+		if (nx == 0) nx = ny = 1;
+		n00 = cos * nx;
+		n01 = -sin * ny;
+		n10 = sin * nx;
+		n11 = cos * ny;
+		return this;
+	}
+
+	/**
+	 * Copies another transform
+	 * @return This transform
+	 */
+	public Transform set(Transform t){
+		m00 = t.m00;
+		m01 = t.m01;
+		m10 = t.m10;
+		m11 = t.m11;
+		tx = t.tx;
+		ty = t.ty;
+		n00 = t.n00;
+		n01 = t.n01;
+		n10 = t.n10;
+		n11 = t.n11;
+		rigid = t.rigid;
+		return this;
+	}
+
+	/**
+	 * @return The most a length is stretched by this transform, in any direction
+	 */
+	public double getMaxScale(){
+		return Math.sqrt(Math.max(m00 * m00 + m10 * m10, m01 * m01 + m11 * m11));
+	}
+
+	/**
+	 * @return x coordinate the point (x,y) maps to
+	 */
+	public double getX(double x, double y){
+		return m00 * x + m01 * y + tx;
+	}
+
+	/**
+	 * @return y coordinate the point (x,y) maps to
+	 */
+	public double getY(double x, double y){
+		return m10 * x + m11 * y + ty;
+	}
+}
@@ -0,0 +1,182 @@
+package main;
+
+import java.util.HashMap;
+
+/**
+ * The characters used to draw text, each loaded from /geomDefs/characters once and kept for the
+ * rest of the game. Each point size gets its own font with the characters already scaled, so drawing
+ * text does not load, parse or copy any geometry.
+ * @author Henry
+ *
+ */
+public class VectorFont {
+
+	//Unscaled characters indexed by their char value, null for characters that can't be drawn
+	private static VectorGeometry[] glyphs;
+
+	//Fonts that have been created, keyed by point size
+	private static HashMap<Double, VectorFont> fonts = new HashMap<Double, VectorFont>();
+
+	//Characters scaled to this font's size, indexed the same as glyphs
+	private final VectorGeometry[] sized;
+
+	//Width of each character and the distance from one character to the next when it starts a string,
+	//characters that can't be drawn have no width and the advance of the default width
+	private final double[] widths;
+	private final double[] advances;
+
+	//Used for characters without a width, such as spaces at the start of a string
+	private final double defaultWidth;
+
+	/**
+	 * Finds the font for the given point size, creating it the first time it is asked for
+	 * @param point Font size, as used by VectorString
+	 * @return The font
+	 */
+	public static VectorFont get(double point){
+		VectorFont font = fonts.get(point);
+		if (font == null){
+			font = new VectorFont(point);
+			fonts.put(point, font);
+		}
+		return font;
+	}
+
+	/**
+	 * Loads every character definition, only done once
+	 */
+	private static void loadGlyphs(){
+		glyphs = new VectorGeometry[128];
+		for (int i = 0; i < GeometryAssets.CHARACTERS.length(); i++){
+			char c = GeometryAssets.CHARACTERS.charAt(i);
+			glyphs[c] = GeometryAssets.get(GeometryAssets.character(c));
+		}
+	}
+
+	/**
+	 * Scales every character to the given size
+	 * @param point Font size
+	 */
+	private VectorFont(double point){
+		if (glyphs == null) loadGlyphs();
+		sized = new VectorGeometry[glyphs.length];
+		widths = new double[glyphs.length];
+		advances = new double[glyphs.length];
+		for (int i = 0; i < glyphs.length; i++){
+			if (glyphs[i] == null) continue;
+			sized[i] = glyphs[i].scale(point).setWeight(point);
+			sized[i].buildLods();
+			widths[i] = sized[i].getBoundingRect().getWidth();
+		}
+		defaultWidth = widths['0'];
+		for (int i = 0; i < glyphs.length; i++) advances[i] = cellWidth((char)i) * 3 / 2;
+	}
+
+	/**
+	 * @param c A character
+	 * @return The geometry for c at this size, null if it can't be drawn
+	 */
+	public VectorGeometry getGlyph(char c){
+		return c < sized.length ? sized[c] : null;
+	}
+
+	/**
+	 * @param c A character
+	 * @return Width of c at this size, 0 if it can't be drawn
+	 */
+	public double getWidth(char c){
+		return c < widths.length ? widths[c] : 0;
+	}
+
+	/**
+	 * @param c A character
+	 * @return Distance between characters in a string that starts with c
+	 */
+	public double getAdvance(char c){
+		return c < advances.length ? advances[c] : defaultWidth * 3 / 2;
+	}
+
+	/**
+	 * Draw a string starting at the point (x,y). Every character takes the space of the first character,
+	 * characters that can't be drawn are left blank.
+	 * @param s Text to draw
+	 * @param x x coordinate of the left edge
+	 * @param y y coordinate to draw at
+	 */
+	public void render(CharSequence s, double x, double y){
+		if (s.length() == 0) return;
+		double charWidth = cellWidth(s.charAt(0));
+		double advance = getAdvance(s.charAt(0));
+
+		//VectorGeometries render centered at the given point, so increase the x position by half of the width
+		double pos = x + charWidth/2;
+		for (int i = 0; i < s.length(); i++){
+			renderChar(s.charAt(i), pos, y);
+			pos += advance;
+		}
+	}
+
+	/**
+	 * Draw a string centered at the point (x,y)
+	 * @param s Text to draw
+	 * @param x x coordinate of the center
+	 * @param y y coordinate to draw at
+	 */
+	public void renderCentered(CharSequence s, double x, double y){
+		if (s.length() == 0) return;
+		double charWidth = cellWidth(s.charAt(0));
+		double advance = getAdvance(s.charAt(0));
+
+		//Start half of the characters to the left of the center
+		double pos = x - s.length()/2 * advance + charWidth/2;
+		for (int i = 0; i < s.length(); i++){
+			renderChar(s.charAt(i), pos, y);
+			pos += advance;
+		}
+	}
+
+	/**
+	 * Draw a number starting at the point (x,y) without building a String for it
+	 * @param value Number to draw, negative numbers are drawn as 0
+	 * @param minDigits Pad the number with 0s to at least this many digits
+	 * @param x x coordinate of the left edge
+	 * @param y y coordinate to draw at
+	 */
+	public void render(long value, int minDigits, double x, double y){
+		if (value < 0) value = 0;
+
+		//Find the number of digits and the place value of the first one
+		int digits = 1;
+		long place = 1;
+		while (value / place >= 10){
+			place *= 10;
+			digits++;
+		}
+		while (digits < minDigits){
+			place *= 10;
+			digits++;
+		}
+
+		char first = (char)('0' + value / place);
+		double advance = getAdvance(first);
+		double pos = x + cellWidth(first)/2;
+		for (; place > 0; place /= 10){
+			renderChar((char)('0' + value / place % 10), pos, y);
+			pos += advance;
+		}
+	}
+
+	/**
+	 * @param first First character of a string
+	 * @return Width given to each character of the string
+	 */
+	private double cellWidth(char first){
+		double w = getWidth(first);
+		return w > 0 ? w : defaultWidth;
+	}
+
+	private void renderChar(char c, double x, double y){
+		VectorGeometry g = getGlyph(c);
+		if (g != null) g.render(x, y);
+	}
+}
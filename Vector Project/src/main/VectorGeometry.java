@@ -1,22 +1,34 @@
 package main;
 
 
+import gameObjects.GameObject;
+
 import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
 import java.util.Scanner;
 
 import org.newdawn.slick.Color;
 
 /**
  * Represents a shape defined by a list of vertices. Contains methods for deforming the VectorGeometry
+ *
+ * Vertices are packed into a single array of coordinates, and the measurements of the shape (average
+ * radius, bounds, segment lengths and normals) are computed once when the shape is built
  * @author Henry
  *
  */
 public class VectorGeometry {
-	
 
-	//List of vertices
-	private Vertex[] verts;
+	//Used by split() when no Random is given
+	private static final Random RANDOM = new Random();
+
+	//Most distance in units a vertex may be moved by simplifying, for each level of detail from finest to coarsest
+	public static final double[] LOD_TOLERANCES = {.25, .5, 1, 2, 4};
+
+	//Coordinates of the vertices, stored as x,y pairs
+	private double[] coords;
 	//Color
 	private double r;
 	private double g;
@@ -24,19 +36,39 @@ public class VectorGeometry {
 	//Width of rectangles between vertices
 	private double weight;
 
+	//Average distance of the vertices from (0,0), and the distance of the furthest vertex
+	private double averageRadius;
+	private double boundingRadius;
+	//Smallest and largest x and y coordinates of the vertices
+	private double minX;
+	private double minY;
+	private double maxX;
+	private double maxY;
+	//Length and unit normal of the segment from each vertex to the next, normals are stored as x,y pairs
+	private double[] segmentLengths;
+	private double[] normals;
+
+	//Vertex objects returned by getVerts(), created the first time they are asked for
+	private Vertex[] verts;
+
+	//Simplified copies of this geometry for each of LOD_TOLERANCES, null until they are built. A level
+	//that would not remove any more vertices than the one before it is the same object as that level.
+	private VectorGeometry[] lods;
+
 	/**
 	 * Loads the vector geometry from the given file path.
 	 * @param sourcePath path to a geometry definition
 	 */
 	public VectorGeometry(String sourcePath){
-		
+
 		if (sourcePath == ""){
-			verts = new Vertex[0];
+			coords = new double[0];
+			measure();
 			return;
 		}
 		parse(sourcePath);
 	}
-	
+
 	/**
 	 * Loads a vector geometry from the given scanner
 	 * @param source scanner to use to read the geometry definition
@@ -44,7 +76,7 @@ public class VectorGeometry {
 	public VectorGeometry(Scanner source){
 		parse(source);
 	}
-	
+
 	/**
 	 * Defines a new Vector geometry by parts
 	 * @param v An array of vertices to use as the list of points for this geometry
@@ -54,7 +86,50 @@ public class VectorGeometry {
 	 * @param blue A value between 0 and 1 representing the amount of blue in the color of this geometry
 	 */
 	public VectorGeometry(Vertex[] v, double w, double red, double green, double blue){
-		verts = v;
+		coords = new double[v.length * 2];
+		for (int i = 0; i < v.length; i++){
+			coords[i * 2] = v[i].x;
+			coords[i * 2 + 1] = v[i].y;
+		}
+		r = red;
+		g = green;
+		b = blue;
+		weight = w;
+		measure();
+	}
+
+	/**
+	 * Defines a new Vector geometry from packed coordinates
+	 * @param c Coordinates of the vertices as x,y pairs, used directly and should not be changed afterwards
+	 * @param w The weight of the rectangle connecting the points of this geometry
+	 * @param red A value between 0 and 1 representing the amount of red in the color of this geometry
+	 * @param green A value between 0 and 1 representing the amount of green in the color of this geometry
+	 * @param blue A value between 0 and 1 representing the amount of blue in the color of this geometry
+	 */
+	public VectorGeometry(double[] c, double w, double red, double green, double blue){
+		coords = c;
+		r = red;
+		g = green;
+		b = blue;
+		weight = w;
+		measure();
+	}
+
+	/**
+	 * Creates a geometry with the same shape as another, shares its coordinates and measurements
+	 * @param shape Geometry to take the shape from
+	 */
+	private VectorGeometry(VectorGeometry shape, double w, double red, double green, double blue){
+		coords = shape.coords;
+		averageRadius = shape.averageRadius;
+		boundingRadius = shape.boundingRadius;
+		minX = shape.minX;
+		minY = shape.minY;
+		maxX = shape.maxX;
+		maxY = shape.maxY;
+		segmentLengths = shape.segmentLengths;
+		normals = shape.normals;
+		verts = shape.verts;
 		r = red;
 		g = green;
 		b = blue;
@@ -70,81 +145,226 @@ public class VectorGeometry {
 		in = new Scanner(this.getClass().getResourceAsStream(sourcePath));
 		parse(in);
 	}
-	
+
 	/**
 	 * Loads a vector geometry from file
 	 * @param in Scanner that refers to a geometry definition
 	 */
 	private void parse(Scanner in) {
-		
+
 		r = in.nextFloat();
 		g = in.nextFloat();
 		b = in.nextFloat();
 		weight = in.nextFloat();
 		int numVerts = in.nextInt();
-		verts = new Vertex[numVerts];
-		for (int i = 0; i < numVerts; i++){
-			verts[i] = new Vertex(in.nextFloat(), in.nextFloat());
+		coords = new double[numVerts * 2];
+		for (int i = 0; i < numVerts * 2; i++){
+			coords[i] = in.nextFloat();
 		}
 		in.close();
+		measure();
+	}
+
+	/**
+	 * Computes the average and bounding radius, bounds, segment lengths and segment normals of the shape
+	 */
+	private void measure(){
+		int numVerts = coords.length / 2;
+
+		double sum = 0;
+		boundingRadius = 0;
+		for (int i = 0; i < numVerts; i++){
+			double x = coords[i * 2];
+			double y = coords[i * 2 + 1];
+			double distance = Math.sqrt(x*x + y*y);
+			sum += distance;
+			if (distance > boundingRadius) boundingRadius = distance;
+		}
+		averageRadius = sum/numVerts;
+
+		if (numVerts > 0){
+			minX = maxX = coords[0];
+			minY = maxY = coords[1];
+		}
+		for (int i = 1; i < numVerts; i++){
+			double x = coords[i * 2];
+			double y = coords[i * 2 + 1];
+			if (x < minX) minX = x;
+			else if (x > maxX) maxX = x;
+			if (y < minY) minY = y;
+			else if (y > maxY) maxY = y;
+		}
+
+		int numSegments = Math.max(numVerts - 1, 0);
+		segmentLengths = new double[numSegments];
+		normals = new double[numSegments * 2];
+		for (int i = 0; i < numSegments; i++){
+			double x1 = coords[i * 2], y1 = coords[i * 2 + 1];
+			double x2 = coords[i * 2 + 2], y2 = coords[i * 2 + 3];
+			segmentLengths[i] = Math.sqrt((x2 - x1) * (x2 - x1) + (y2 - y1) * (y2 - y1));
+
+			//Angle perpendicular to the segment, on the left going from the first vertex to the second
+			double angle = GameObject.getAngle(y1 - y2, x2 - x1);
+			normals[i * 2] = Math.cos(angle);
+			normals[i * 2 + 1] = Math.sin(angle);
+		}
 	}
-	
+
 	/**
 	 * Draws this vector geometry at the given coordinates
 	 * @param x
 	 * @param y
 	 */
 	public void render(double x, double y){
-		Draw.geometry(this.translate(x, y));
+		Draw.geometry(this, x, y, 0);
 	}
-	
+
+	/**
+	 * Draws this vector geometry rotated about its center at the given coordinates
+	 * @param x
+	 * @param y
+	 * @param rot rotation in radians
+	 */
+	public void render(double x, double y, double rot){
+		Draw.geometry(this, x, y, rot);
+	}
+
+	/**
+	 * Draws this vector geometry moved into place by the given transform
+	 * @param t Transform to apply
+	 */
+	public void render(Transform t){
+		Draw.geometry(this, t);
+	}
+
 	//Accessor methods
+
+	/**
+	 * Creates Vertex objects for the vertices the first time it is called, prefer getVertexCount(),
+	 * getX(int) and getY(int)
+	 * @return The vertices of this geometry
+	 */
 	public Vertex[] getVerts(){
+		if (verts == null){
+			verts = new Vertex[coords.length / 2];
+			for (int i = 0; i < verts.length; i++) verts[i] = new Vertex(coords[i * 2], coords[i * 2 + 1]);
+		}
 		return verts;
 	}
+	public int getVertexCount(){
+		return coords.length / 2;
+	}
+	public double getX(int i){
+		return coords[i * 2];
+	}
+	public double getY(int i){
+		return coords[i * 2 + 1];
+	}
 	public Color getColor(){
 		return new Color((float)r,(float)g,(float)b);
 	}
 	public double getWeight(){
 		return weight;
 	}
-	
+	public double getRed(){
+		return r;
+	}
+	public double getGreen(){
+		return g;
+	}
+	public double getBlue(){
+		return b;
+	}
+	public double getMinX(){
+		return minX;
+	}
+	public double getMinY(){
+		return minY;
+	}
+	public double getMaxX(){
+		return maxX;
+	}
+	public double getMaxY(){
+		return maxY;
+	}
+
+	/**
+	 * @param i index of a segment, between vertex i and vertex i+1
+	 * @return Length of the segment
+	 */
+	public double getSegmentLength(int i){
+		return segmentLengths[i];
+	}
+
+	/**
+	 * @param i index of a segment, between vertex i and vertex i+1
+	 * @return x component of the unit normal of the segment
+	 */
+	public double getNormalX(int i){
+		return normals[i * 2];
+	}
+
+	/**
+	 * @param i index of a segment, between vertex i and vertex i+1
+	 * @return y component of the unit normal of the segment
+	 */
+	public double getNormalY(int i){
+		return normals[i * 2 + 1];
+	}
+
+	/**
+	 * The packed coordinates, shared between geometries that only differ in color or weight
+	 * @return Coordinates of the vertices as x,y pairs, must not be changed
+	 */
+	double[] getCoords(){
+		return coords;
+	}
+
 	/**
 	 * Splits the vectorGeometry into pieces
 	 * @return An array of the pieces that this geometry was split into
 	 */
 	public VectorGeometry[] split(){
+		return split(RANDOM);
+	}
+
+	/**
+	 * Splits the vectorGeometry into pieces
+	 * @param rand Decides the number of vertices in each piece
+	 * @return An array of the pieces that this geometry was split into
+	 */
+	public VectorGeometry[] split(Random rand){
 		ArrayList<VectorGeometry> result = new ArrayList<VectorGeometry>();
-		
+		int numVerts = coords.length / 2;
+
 		//The current vertex
 		int i = 0;
-		
-		while (i < verts.length){
+
+		while (i < numVerts){
 			//Randomly selects a number of vertices to use in the next piece
-			int numVerts = (int)(Math.random() * (verts.length-1)/2)+1;
-			
-			//Limit numVerts so that it does not go past the last vertex
-			if (i + numVerts >= verts.length) numVerts = verts.length-1-i;
-			
-			//End the loop if numVerts is 0, when all vertices have been used
-			if (numVerts == 0) break;
-			
-			//Add the numVerts vertices to an array
-			Vertex[] v = new Vertex[numVerts+3];
-			v[0] = verts[i];
-			for (int j = 1; j <= numVerts; j++){
-				v[j] = verts[i+j];
-			}
-			//Add (0,0) and verts[i] to the list to make it a closed shape and make it appear to split from the center
-			v[v.length-2] = new Vertex(0,0);
-			v[v.length-1] = verts[i];
-			
-			i+= numVerts;
-			result.add(new VectorGeometry(v,weight, r,g,b));
+			int count = (int)(rand.nextDouble() * (numVerts-1)/2)+1;
+
+			//Limit count so that it does not go past the last vertex
+			if (i + count >= numVerts) count = numVerts-1-i;
+
+			//End the loop if count is 0, when all vertices have been used
+			if (count == 0) break;
+
+			//Add the count+1 vertices from i to the piece
+			double[] c = new double[(count+3) * 2];
+			System.arraycopy(coords, i * 2, c, 0, (count+1) * 2);
+			//Add (0,0) and vertex i to the list to make it a closed shape and make it appear to split from the center
+			c[c.length-4] = 0;
+			c[c.length-3] = 0;
+			c[c.length-2] = coords[i * 2];
+			c[c.length-1] = coords[i * 2 + 1];
+
+			i+= count;
+			result.add(new VectorGeometry(c,weight, r,g,b));
 		}
 		return result.toArray(new VectorGeometry[] {});
 	}
-	
+
 	/**
 	 * Translates and returns a copy of this VectorGeometry centered at (x,y),
 	 * does not affect this VectorGeometry
@@ -153,13 +373,14 @@ public class VectorGeometry {
 	 * @return A vector geometry centered at (x,y)
 	 */
 	public VectorGeometry translate(double x, double y){
-		Vertex[] v = new Vertex[verts.length];
-		for (int i = 0; i < verts.length; i++){
-			v[i]= verts[i].add(new Vertex(x,y));
+		double[] c = new double[coords.length];
+		for (int i = 0; i < coords.length; i += 2){
+			c[i] = coords[i] + x;
+			c[i + 1] = coords[i + 1] + y;
 		}
-		return new VectorGeometry(v,weight,r,g,b);
+		return new VectorGeometry(c,weight,r,g,b);
 	}
-	
+
 	/**
 	 * Scales this VectorGeometry along the x axis and returns a copy, does not affect
 	 * this VectorGeometry
@@ -168,13 +389,14 @@ public class VectorGeometry {
 	 * @return A vector geometry scaled by factor along the x axis
 	 */
 	public VectorGeometry scaleX(double factor){
-		Vertex[] v = new Vertex[verts.length];
-		for (int i = 0; i < verts.length; i++){
-			v[i] = new Vertex(verts[i].x * (1+factor), verts[i].y);
+		double[] c = new double[coords.length];
+		for (int i = 0; i < coords.length; i += 2){
+			c[i] = coords[i] * (1+factor);
+			c[i + 1] = coords[i + 1];
 		}
-		return new VectorGeometry(v,weight,r,g,b);
+		return new VectorGeometry(c,weight,r,g,b);
 	}
-	
+
 	/**
 	 * Scales this VectorGeometry along the y axis and returns a copy,
 	 * does not affect this VectorGeometry
@@ -183,13 +405,14 @@ public class VectorGeometry {
 	 * @return A vector geometry scaled by factor along the y axis
 	 */
 	public VectorGeometry scaleY(double factor){
-		Vertex[] v = new Vertex[verts.length];
-		for (int i = 0; i < verts.length; i++){
-			v[i] = new Vertex(verts[i].x, verts[i].y * (1+factor));
+		double[] c = new double[coords.length];
+		for (int i = 0; i < coords.length; i += 2){
+			c[i] = coords[i];
+			c[i + 1] = coords[i + 1] * (1+factor);
 		}
-		return new VectorGeometry(v,weight,r,g,b);
+		return new VectorGeometry(c,weight,r,g,b);
 	}
-	
+
 	/**
 	 * Scales this VectorGeometry along both the x and y axis and returns a copy,
 	 * does not affect this VectorGeometry
@@ -198,71 +421,166 @@ public class VectorGeometry {
 	 * @return A vector geometry scaled by factor
 	 */
 	public VectorGeometry scale(double factor){
-		Vertex[] v = new Vertex[verts.length];
-		for (int i = 0; i < verts.length; i++){
-			v[i] = new Vertex(verts[i].x * (1+factor), verts[i].y * (1+factor));
+		double[] c = new double[coords.length];
+		for (int i = 0; i < coords.length; i++){
+			c[i] = coords[i] * (1+factor);
 		}
-		return new VectorGeometry(v,weight,r,g,b);
+		return new VectorGeometry(c,weight,r,g,b);
 	}
-	
+
 	/**
 	 * Rotates this VectorGeometry about (0,0), returns a copy, does not affect this VectorGeometry
 	 * @param angle Angle by which to rotate this VectorGeometry, in radians
 	 * @return A VectorGeometry rotated by angle radians
 	 */
 	public VectorGeometry rotate(double angle){
-		Vertex[] v = new Vertex[verts.length];
-		for (int i = 0; i < verts.length; i++){
-			double x = (Math.cos(angle) * (verts[i].x) - Math.sin(angle) * (verts[i].y));
-			double y = (Math.sin(angle) * (verts[i].x) + Math.cos(angle) * (verts[i].y));
-			v[i] = new Vertex(x,y);
+		double cos = Math.cos(angle);
+		double sin = Math.sin(angle);
+		double[] c = new double[coords.length];
+		for (int i = 0; i < coords.length; i += 2){
+			c[i] = cos * coords[i] - sin * coords[i + 1];
+			c[i + 1] = sin * coords[i] + cos * coords[i + 1];
 		}
-		return new VectorGeometry(v, weight,r,g,b);
+		return new VectorGeometry(c, weight,r,g,b);
 	}
-	
+
 	/**
 	 * Darkens the color of this VectorGeometry
-	 * @param factor Factor by which to darken this VectorGeometry, 
+	 * @param factor Factor by which to darken this VectorGeometry,
 	 * may cause errors in rendering if factor is less than 0
 	 * @return A copy of this VectorGeometry darkened by factor
 	 */
 	public VectorGeometry darken(double factor){
-		return new VectorGeometry(verts, weight, r * (1-factor), g * (1-factor), b* (1-factor));
+		return new VectorGeometry(this, weight, r * (1-factor), g * (1-factor), b* (1-factor));
 	}
-	
+
 	/**
-	 * Calculates the average distance of the vertices in this VectorGeometry from (0,0)
+	 * Average distance of the vertices in this VectorGeometry from (0,0), computed when the geometry is built
 	 * @return The average distance of the vertices in verts from (0,0)
 	 */
 	public double getAverageRadius(){
-		double sum = 0;
-		for (Vertex v : verts){
-			sum += Math.sqrt(v.x*v.x + v.y*v.y);
+		return averageRadius;
+	}
+
+	/**
+	 * Builds the simplified copies of this geometry used for drawing it small, if they have not been built yet.
+	 * Each level is simplified from the full shape with the Douglas-Peucker algorithm, the first and last
+	 * vertices are always kept so closed shapes stay closed.
+	 */
+	public void buildLods(){
+		if (lods != null) return;
+		VectorGeometry[] levels = new VectorGeometry[LOD_TOLERANCES.length];
+		VectorGeometry previous = this;
+		for (int i = 0; i < levels.length; i++){
+			double[] c = simplify(coords, LOD_TOLERANCES[i]);
+			levels[i] = c.length < previous.coords.length ? new VectorGeometry(c, weight, r, g, b) : previous;
+			previous = levels[i];
+		}
+		lods = levels;
+	}
+
+	/**
+	 * Finds the simplest level of detail that looks the same as this geometry to within the given error
+	 * @param scale Size on screen of one unit of this geometry, in pixels
+	 * @param budget Most error allowed on screen, in pixels, 0 for the full geometry
+	 * @return This geometry or one of its simplified copies, built the first time they are needed
+	 */
+	public VectorGeometry getLod(double scale, double budget){
+		if (budget <= 0) return this;
+		buildLods();
+		VectorGeometry lod = this;
+		for (int i = 0; i < lods.length && LOD_TOLERANCES[i] * scale <= budget; i++) lod = lods[i];
+		return lod;
+	}
+
+	/**
+	 * @param level Index in LOD_TOLERANCES
+	 * @return Number of vertices in the given level of detail, building the levels if needed
+	 */
+	public int getLodVertexCount(int level){
+		buildLods();
+		return lods[level].getVertexCount();
+	}
+
+	/**
+	 * Douglas-Peucker simplification of a line: keeps the vertex furthest from the segment between the ends
+	 * of each span if it is further than the tolerance, and splits the span there
+	 * @param c Coordinates of the line as x,y pairs
+	 * @param tolerance Most distance a removed vertex may be from the simplified line
+	 * @return Coordinates of the kept vertices, c itself if every vertex is kept
+	 */
+	private static double[] simplify(double[] c, double tolerance){
+		int numVerts = c.length / 2;
+		if (numVerts < 3) return c;
+		boolean[] keep = new boolean[numVerts];
+		keep[0] = keep[numVerts - 1] = true;
+		int kept = 2;
+
+		//Spans left to check, as pairs of first and last vertex
+		int[] stack = new int[64];
+		int top = 0;
+		stack[top++] = 0;
+		stack[top++] = numVerts - 1;
+		while (top > 0){
+			int last = stack[--top];
+			int first = stack[--top];
+			double x1 = c[first * 2], y1 = c[first * 2 + 1];
+			double dx = c[last * 2] - x1, dy = c[last * 2 + 1] - y1;
+			double lengthSquared = dx * dx + dy * dy;
+
+			int furthest = -1;
+			double max = tolerance * tolerance;
+			for (int i = first + 1; i < last; i++){
+				double px = c[i * 2] - x1, py = c[i * 2 + 1] - y1;
+				//Squared distance to the segment between the ends, so vertices that double back past an end are not lost
+				double t = lengthSquared > 0 ? Math.max(0, Math.min(1, (px * dx + py * dy) / lengthSquared)) : 0;
+				double ex = px - t * dx, ey = py - t * dy;
+				double d = ex * ex + ey * ey;
+				if (d > max){
+					max = d;
+					furthest = i;
+				}
+			}
+			if (furthest == -1) continue;
+
+			keep[furthest] = true;
+			kept++;
+			if (top + 4 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+			stack[top++] = first;
+			stack[top++] = furthest;
+			stack[top++] = furthest;
+			stack[top++] = last;
+		}
+
+		if (kept == numVerts) return c;
+		double[] result = new double[kept * 2];
+		int n = 0;
+		for (int i = 0; i < numVerts; i++){
+			if (!keep[i]) continue;
+			result[n++] = c[i * 2];
+			result[n++] = c[i * 2 + 1];
 		}
-		return sum/verts.length;
+		return result;
 	}
-	
+
+	/**
+	 * Distance of the furthest vertex from (0,0), computed when the geometry is built
+	 * @return Radius of a circle around (0,0) that holds every vertex
+	 */
+	public double getBoundingRadius(){
+		return boundingRadius;
+	}
+
 	/**
-	 * Finds the maximum and minimum x and y coordinates in verts, creates a rectangle
-	 * that encloses all points and is in line with the x and y axis
+	 * Creates a rectangle that encloses all points and is in line with the x and y axis,
+	 * from the bounds computed when the geometry is built
 	 * @return A rectangle with the minimum x value and minimum y value for the top left corner
 	 * and width and height that place the bottom right corner at the maximum x value and maximum y value
 	 */
 	public Rectangle2D getBoundingRect(){
-		double minX = verts[0].x;
-		double minY = verts[0].y;
-		double maxX = verts[0].x;
-		double maxY = verts[0].y;
-		for (int i = 1; i < verts.length; i++){
-			if (verts[i].x < minX) minX = verts[i].x;
-			else if (verts[i].x > maxX) maxX = verts[i].x;
-			if (verts[i].y < minY) minY = verts[i].y;
-			else if (verts[i].y > maxY) maxY = verts[i].y;
-		}
 		return new Rectangle2D.Double(minX, minY, maxX-minX, maxY-minY);
-		
 	}
-	
+
 	/**
 	 * Create a new  VectorGeometry that is a copy of this VectorGeometry but
 	 * has a new Weight
@@ -270,8 +588,8 @@ public class VectorGeometry {
 	 * @return A new VectorGeometry with weight w and other parameters copies of this VectorGeometry
 	 */
 	public VectorGeometry setWeight(double w){
-		return new VectorGeometry(verts, w, r,g,b);
+		return new VectorGeometry(this, w, r,g,b);
 	}
-	
-	
+
+
 }
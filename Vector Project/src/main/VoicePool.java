@@ -0,0 +1,386 @@
+package main;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A fixed number of sources (voices) that the sounds of every emitter are played on. Playing an emitter
+ * gives it a free voice, or takes the voice of a less important or further away sound if none are free.
+ * The same sound started more than once before the next update() is only played once. update() finds the
+ * voices that have finished and moves the voices that are playing to their emitters.
+ *
+ * Only one thread may call the methods that change the pool, the audio thread once it is started.
+ * isPlaying() and the counts can be read from any thread.
+ * @author Henry
+ *
+ */
+public class VoicePool {
+
+	//Commands run by execute()
+	public static final int CREATE = 0;
+	public static final int PLAY = 1;
+	public static final int PLAY_ONCE = 2;
+	public static final int MOVE = 3;
+	public static final int DELETE = 4;
+	public static final int LISTENER = 5;
+	public static final int UPDATE = 6;
+
+	//Gain of each sound, and its priority when there are no free voices, higher sounds take voices from lower ones
+	private static final float[] GAIN = {.6f, 1f, 1f};
+	private static final int[] PRIORITY = {0, 1, 2};
+
+	//Factor by which to scale position and velocity values
+	private static final float DIST_FACTOR = 250;
+
+	private final AudioBackend backend;
+	//Buffer of each sound
+	private final int[] buffers;
+
+	/*
+	 * Sources sounds are played on, with the sound and emitter each is playing and where it is in game
+	 * coordinates. The emitter is -1 once it has been deleted, the voice keeps playing until the sound
+	 * ends. started is set for voices started since the last update(), for merging identical sounds.
+	 */
+	private final int[] voices;
+	private final int[] voiceSound;
+	private final int[] voiceEmitter;
+	private final float[] voiceX;
+	private final float[] voiceY;
+	private final boolean[] voiceBusy;
+	private final boolean[] voiceStarted;
+
+	//Handle of the emitter playing on each voice, 0 for none, -1 for a sound with no emitter, read by other threads
+	private final AtomicIntegerArray playing;
+
+	//Sound, position and velocity in game coordinates of each emitter, and the voice playing it or -1, indexed by handle - 1
+	private int[] emitterSound = new int[16];
+	private float[] emitterX = new float[16];
+	private float[] emitterY = new float[16];
+	private float[] emitterVX = new float[16];
+	private float[] emitterVY = new float[16];
+	private int[] emitterVoice = new int[16];
+	private boolean[] emitterMoved = new boolean[16];
+
+	//Listener position in game coordinates
+	private float listenerX;
+	private float listenerY;
+
+	//Sounds that took another's voice and sounds that were merged or dropped
+	private volatile long stolen;
+	private volatile long merged;
+	private volatile long dropped;
+
+	/**
+	 * Makes up to maxVoices sources, stopping early if the backend runs out
+	 * @param backend Library to play sounds with
+	 * @param buffers Buffer of each sound
+	 * @param maxVoices Most sources to make
+	 */
+	public VoicePool(AudioBackend backend, int[] buffers, int maxVoices){
+		this.backend = backend;
+		this.buffers = buffers;
+		int[] made = new int[maxVoices];
+		int count = 0;
+		while (count < maxVoices){
+			int source = backend.genSource();
+			if (source == -1) break;
+			made[count++] = source;
+		}
+		backend.clearErrors();
+		voices = Arrays.copyOf(made, count);
+		voiceSound = new int[count];
+		voiceEmitter = new int[count];
+		Arrays.fill(voiceEmitter, -1);
+		voiceX = new float[count];
+		voiceY = new float[count];
+		voiceBusy = new boolean[count];
+		voiceStarted = new boolean[count];
+		playing = new AtomicIntegerArray(count);
+		Arrays.fill(emitterVoice, -1);
+	}
+
+	/**
+	 * Runs a command, the arguments that the command does not use are ignored
+	 * @param command One of the commands above
+	 * @param handle Emitter handle, from 1
+	 * @param sound Sound to play
+	 */
+	public void execute(int command, int handle, int sound, float x, float y, float vx, float vy){
+		switch (command){
+		case CREATE: create(handle, sound, x, y, vx, vy); break;
+		case PLAY: play(handle); break;
+		case PLAY_ONCE: playOnce(sound, x, y, vx, vy); break;
+		case MOVE: move(handle, x, y, vx, vy); break;
+		case DELETE: delete(handle); break;
+		case LISTENER: setListener(x, y, vx, vy); break;
+		case UPDATE: update(); break;
+		default: throw new IllegalArgumentException("Unknown audio command " + command);
+		}
+	}
+
+	/**
+	 * Sets up an emitter, detaching it from a voice it was playing on before
+	 */
+	public void create(int handle, int sound, float x, float y, float vx, float vy){
+		int e = handle - 1;
+		if (e >= emitterSound.length) growEmitters(e + 1);
+		if (emitterVoice[e] != -1) detach(emitterVoice[e]);
+		emitterSound[e] = sound;
+		emitterVoice[e] = -1;
+		emitterMoved[e] = false;
+		emitterX[e] = x;
+		emitterY[e] = y;
+		emitterVX[e] = vx;
+		emitterVY[e] = vy;
+	}
+
+	/**
+	 * Plays an emitter, restarts it if it is already playing
+	 */
+	public void play(int handle){
+		int e = handle - 1;
+		if (emitterVoice[e] != -1){
+			backend.play(voices[emitterVoice[e]]);
+			return;
+		}
+		int v = start(emitterSound[e], emitterX[e], emitterY[e], emitterVX[e], emitterVY[e]);
+		if (v == -1) return;
+		voiceEmitter[v] = e;
+		emitterVoice[e] = v;
+		emitterMoved[e] = false;
+		playing.set(v, handle);
+	}
+
+	/**
+	 * Plays a sound once at the given position, with no emitter
+	 */
+	public void playOnce(int sound, float x, float y, float vx, float vy){
+		start(sound, x, y, vx, vy);
+	}
+
+	/**
+	 * Moves an emitter, a voice playing it is moved at the next update()
+	 */
+	public void move(int handle, float x, float y, float vx, float vy){
+		int e = handle - 1;
+		emitterX[e] = x;
+		emitterY[e] = y;
+		emitterVX[e] = vx;
+		emitterVY[e] = vy;
+		emitterMoved[e] = true;
+	}
+
+	/**
+	 * Forgets an emitter, a sound it is playing carries on until it ends
+	 */
+	public void delete(int handle){
+		int e = handle - 1;
+		if (emitterVoice[e] != -1) detach(emitterVoice[e]);
+		emitterVoice[e] = -1;
+	}
+
+	/**
+	 * Moves the listener, in game coordinates
+	 */
+	public void setListener(float x, float y, float vx, float vy){
+		listenerX = x;
+		listenerY = y;
+		backend.setListener(x/DIST_FACTOR, y/DIST_FACTOR, vx/DIST_FACTOR, vy/DIST_FACTOR);
+		backend.clearErrors();
+	}
+
+	/**
+	 * Frees the voices that have finished playing and moves the others to their emitters, ends the time
+	 * in which identical sounds are merged
+	 */
+	public void update(){
+		for (int v = 0; v < voices.length; v++){
+			voiceStarted[v] = false;
+			if (!voiceBusy[v]) continue;
+			if (!backend.isPlaying(voices[v])){
+				free(v);
+				continue;
+			}
+			int e = voiceEmitter[v];
+			if (e != -1 && emitterMoved[e]){
+				position(v, emitterX[e], emitterY[e], emitterVX[e], emitterVY[e]);
+				emitterMoved[e] = false;
+			}
+		}
+		backend.clearErrors();
+	}
+
+	/**
+	 * Stops and deletes every voice
+	 */
+	public void destroy(){
+		for (int v = 0; v < voices.length; v++){
+			if (voiceBusy[v]) free(v);
+			backend.deleteSource(voices[v]);
+		}
+	}
+
+	/**
+	 * Finds a voice for a sound and starts playing it
+	 * @return The voice, or -1 if the sound was merged with another or there was no voice for it
+	 */
+	private int start(int sound, float x, float y, float vx, float vy){
+		//The same sound started since the last update is only played once, from the closest place
+		for (int v = 0; v < voices.length; v++){
+			if (voiceStarted[v] && voiceSound[v] == sound){
+				if (distance(x, y) < distance(voiceX[v], voiceY[v]) && voiceEmitter[v] == -1) position(v, x, y, vx, vy);
+				merged++;
+				return -1;
+			}
+		}
+
+		int v = freeVoice();
+		if (v == -1){
+			v = weakestVoice();
+			if (v == -1 || !outranks(sound, x, y, v)){
+				dropped++;
+				return -1;
+			}
+			backend.stop(voices[v]);
+			free(v);
+			stolen++;
+		}
+
+		backend.setSound(voices[v], buffers[sound], GAIN[sound]);
+		position(v, x, y, vx, vy);
+		backend.play(voices[v]);
+		voiceSound[v] = sound;
+		voiceEmitter[v] = -1;
+		voiceBusy[v] = true;
+		voiceStarted[v] = true;
+		playing.set(v, -1);
+		return v;
+	}
+
+	/**
+	 * @return A voice that is not playing, or -1 if all are
+	 */
+	private int freeVoice(){
+		for (int v = 0; v < voices.length; v++){
+			if (!voiceBusy[v]) return v;
+		}
+		return -1;
+	}
+
+	/**
+	 * @return The voice with the lowest priority that is furthest from the listener, or -1 if there are no voices
+	 */
+	private int weakestVoice(){
+		int weakest = -1;
+		for (int v = 0; v < voices.length; v++){
+			if (weakest == -1 || PRIORITY[voiceSound[v]] < PRIORITY[voiceSound[weakest]] ||
+					(PRIORITY[voiceSound[v]] == PRIORITY[voiceSound[weakest]] && distance(voiceX[v], voiceY[v]) > distance(voiceX[weakest], voiceY[weakest]))){
+				weakest = v;
+			}
+		}
+		return weakest;
+	}
+
+	/**
+	 * @return Whether a sound at (x,y) should take the given voice, it must have a higher priority or the same priority and be closer
+	 */
+	private boolean outranks(int sound, float x, float y, int v){
+		if (PRIORITY[sound] != PRIORITY[voiceSound[v]]) return PRIORITY[sound] > PRIORITY[voiceSound[v]];
+		return distance(x, y) < distance(voiceX[v], voiceY[v]);
+	}
+
+	/**
+	 * Marks a voice as free and detaches it from its emitter
+	 */
+	private void free(int v){
+		if (voiceEmitter[v] != -1) emitterVoice[voiceEmitter[v]] = -1;
+		voiceEmitter[v] = -1;
+		voiceBusy[v] = false;
+		playing.set(v, 0);
+	}
+
+	/**
+	 * Lets a voice carry on playing with no emitter
+	 */
+	private void detach(int v){
+		emitterVoice[voiceEmitter[v]] = -1;
+		voiceEmitter[v] = -1;
+		playing.set(v, -1);
+	}
+
+	/**
+	 * Moves a voice in the backend
+	 */
+	private void position(int v, float x, float y, float vx, float vy){
+		voiceX[v] = x;
+		voiceY[v] = y;
+		backend.setPosition(voices[v], x/DIST_FACTOR, y/DIST_FACTOR, vx/DIST_FACTOR, vy/DIST_FACTOR);
+	}
+
+	/**
+	 * @return Squared distance from the listener in game coordinates
+	 */
+	private float distance(float x, float y){
+		float dx = x - listenerX;
+		float dy = y - listenerY;
+		return dx * dx + dy * dy;
+	}
+
+	/**
+	 * Grows the emitter arrays to hold at least the given number of emitters
+	 */
+	private void growEmitters(int count){
+		int capacity = emitterSound.length;
+		while (capacity < count) capacity *= 2;
+		int old = emitterVoice.length;
+		emitterSound = Arrays.copyOf(emitterSound, capacity);
+		emitterX = Arrays.copyOf(emitterX, capacity);
+		emitterY = Arrays.copyOf(emitterY, capacity);
+		emitterVX = Arrays.copyOf(emitterVX, capacity);
+		emitterVY = Arrays.copyOf(emitterVY, capacity);
+		emitterVoice = Arrays.copyOf(emitterVoice, capacity);
+		Arrays.fill(emitterVoice, old, capacity, -1);
+		emitterMoved = Arrays.copyOf(emitterMoved, capacity);
+	}
+
+	/**
+	 * Can be called from any thread
+	 * @return Whether the emitter with the given handle is playing, as of the last command run
+	 */
+	public boolean isPlaying(int handle){
+		for (int v = 0; v < playing.length(); v++){
+			if (playing.get(v) == handle) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return Number of sources sounds are played on
+	 */
+	public int getVoiceCount(){
+		return voices.length;
+	}
+
+	/**
+	 * Can be called from any thread
+	 * @return Number of voices playing a sound
+	 */
+	public int getBusyVoices(){
+		int count = 0;
+		for (int v = 0; v < playing.length(); v++){
+			if (playing.get(v) != 0) count++;
+		}
+		return count;
+	}
+
+	//Counts of sounds that took a voice, were merged with the same sound, or had no voice
+	public long getStolen(){
+		return stolen;
+	}
+	public long getMerged(){
+		return merged;
+	}
+	public long getDropped(){
+		return dropped;
+	}
+}
@@ -0,0 +1,42 @@
+package main;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The fork-join pool shared by the work that is split across threads: updating objects, finding collisions
+ * and filling the stroke batch. Each of these runs one after another on the game thread and waits for its
+ * tasks to finish, so they never compete for the pool. One thread a core by default.
+ * @author Henry
+ *
+ */
+public class Workers {
+
+	//Pool tasks run on, null when everything runs on the game thread
+	private static ForkJoinPool pool;
+	private static int threads;
+
+	static {
+		setThreads(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Replaces the pool with one with the given number of threads, the old pool's threads are stopped
+	 * @param n Number of threads, 1 to run everything on the game thread
+	 */
+	public static void setThreads(int n){
+		if (n < 1) throw new IllegalArgumentException("Can't run on " + n + " threads");
+		if (pool != null) pool.shutdown();
+		threads = n;
+		pool = n > 1 ? new ForkJoinPool(n) : null;
+	}
+	public static int getThreads(){
+		return threads;
+	}
+
+	/**
+	 * @return The pool, null when running on one thread
+	 */
+	public static ForkJoinPool getPool(){
+		return pool;
+	}
+}